@@ -0,0 +1,127 @@
+package dbFileBuilder;
+
+import dbFileBuilder.dump.BZip2InputStream;
+import dbFileBuilder.dump.Page;
+import dbFileBuilder.dump.PageSource;
+import dbFileBuilder.dump.StaxPageReader;
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * The pages of an earlier build with the pages of incremental
+ * (<tt>adds-changes</tt>) dumps applied on top of them.<br>
+ * The pages of the earlier build are given as they are in its
+ * {@link Manifest}, without text, so the builder copies their entries from the
+ * {@link PreviousBuild}. A page which is in one of the incremental dumps is
+ * given from the dump instead, where it was in the earlier build; a new page is
+ * given in the order of its id, as in a full dump.
+ * <br><br>
+ * When a page is in more than one of the dumps, the last dump wins, so the
+ * dumps should be given oldest first. The incremental dumps don't list deleted
+ * pages; a page is dropped from the output only when its new revision is not
+ * {@link PageConverter#isToProcess(dbFileBuilder.dump.Page) to be processed}
+ * any more, e.g. it was moved out of the main namespace.
+ */
+public class ChangesPageSource implements PageSource {
+
+    /**
+     * The changed pages, by id.
+     */
+    private final TreeMap<Long, Page> changes = new TreeMap<Long, Page>();
+    private final Iterator<Manifest.Entry> previousEntries;
+    private final Iterator<Page> changedPages;
+    private Manifest.Entry nextEntry;
+    private Page nextChange;
+
+    /**
+     * Creates a new <tt>ChangesPageSource</tt>. All the pages of the
+     * incremental dumps are read at once.
+     *
+     * @param previous The earlier build.
+     * @param fileNames The incremental dumps, XML or bzip2 compressed XML,
+     * oldest first.
+     * @throws IOException if a dump can't be read, or the earlier build has
+     * pages without sha1, whose entries can't be copied.
+     */
+    public ChangesPageSource(PreviousBuild previous, List<String> fileNames) throws IOException {
+        for (Manifest.Entry entry : previous.getEntries()) {
+            if (entry.getSha1() == null) {
+                throw new IOException("Page " + entry.getPageId() + " of " + previous + " has no sha1");
+            }
+        }
+        for (String fileName : fileNames) {
+            int count = 0;
+            PageSource source = new StaxPageReader(open(new File(fileName)));
+            try {
+                Page page;
+                while ((page = source.next()) != null) {
+                    this.changes.put(page.getId(), page);
+                    count++;
+                }
+            } finally {
+                source.close();
+            }
+            System.out.println("Pages in " + fileName + " : " + count);
+        }
+        this.previousEntries = previous.getEntries().iterator();
+        this.changedPages = this.changes.values().iterator();
+        this.nextEntry = this.nextPreviousEntry();
+        this.nextChange = this.changedPages.hasNext() ? this.changedPages.next() : null;
+    }
+
+    private static InputStream open(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        if (file.getName().endsWith(".bz2")) {
+            in = new BufferedInputStream(new BZip2InputStream(in), 1 << 16);
+        }
+        return in;
+    }
+
+    /**
+     * @return The next page of the earlier build which did not change, or
+     * <tt>null</tt>.
+     */
+    private Manifest.Entry nextPreviousEntry() {
+        while (this.previousEntries.hasNext()) {
+            Manifest.Entry entry = this.previousEntries.next();
+            if (this.changes.containsKey(entry.getPageId()) == false) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Page next() throws IOException {
+        if (this.nextEntry != null
+                && (this.nextChange == null || this.nextEntry.getPageId() < this.nextChange.getId())) {
+            Manifest.Entry entry = this.nextEntry;
+            this.nextEntry = this.nextPreviousEntry();
+            return new Page(entry.getTitle(), 0, entry.getPageId(), -1, entry.getSha1(), null, "");
+        }
+        Page page = this.nextChange;
+        if (page != null) {
+            this.nextChange = this.changedPages.hasNext() ? this.changedPages.next() : null;
+        }
+        return page;
+    }
+
+    /**
+     * @return Always <tt>0</tt>, the pages come from several files.
+     */
+    @Override
+    public int getLineNumber() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        this.changes.clear();
+    }
+}
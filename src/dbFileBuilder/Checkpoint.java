@@ -0,0 +1,209 @@
+package dbFileBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Progress of a build, saved from time to time so that a build which died can
+ * be {@link Settings#isResume() resumed}.<br>
+ * A checkpoint is taken only when the output holds exactly the entries of the
+ * pages up to, and including, the {@link #getLastPageId() last page}, so
+ * truncating the output to {@link #getOutputLength() its length} gives a
+ * consistent point to continue from.
+ */
+public class Checkpoint {
+
+    private String inputFileName;
+    /**
+     * Size and modification time of the dump, to make sure the build resumes
+     * on the same one.
+     */
+    private long inputLength;
+    private long inputModified;
+    private long lastPageId;
+    private long outputLength;
+    private long quarantineLength;
+    private long manifestLength;
+    private int entries;
+    private int defects;
+    private int failures;
+
+    /**
+     * Creates a new <tt>Checkpoint</tt>.
+     *
+     * @param input The dump.
+     * @param lastPageId Id of the last page whose entries are in the output.
+     * @param outputLength Length of the output, in bytes, after that page.
+     * @param quarantineLength Length of the {@link Quarantine} file, in bytes,
+     * after that page.
+     * @param manifestLength Length of the {@link Manifest}, in bytes, after
+     * that page.
+     * @param entries Number of entries processed up to that page.
+     * @param defects Number of articles without a section title.
+     * @param failures Number of quarantined entries.
+     */
+    public Checkpoint(File input, long lastPageId, long outputLength, long quarantineLength,
+            long manifestLength, int entries, int defects, int failures) {
+        this.inputFileName = input.getPath();
+        this.inputLength = input.length();
+        this.inputModified = input.lastModified();
+        this.lastPageId = lastPageId;
+        this.outputLength = outputLength;
+        this.quarantineLength = quarantineLength;
+        this.manifestLength = manifestLength;
+        this.entries = entries;
+        this.defects = defects;
+        this.failures = failures;
+    }
+
+    private Checkpoint() {
+    }
+
+    /**
+     * @param outputFileName The name of the output file.
+     * @return The checkpoint file of <tt>outputFileName</tt>.
+     */
+    public static File fileFor(String outputFileName) {
+        return new File(outputFileName + ".checkpoint");
+    }
+
+    /**
+     * Read a checkpoint.
+     *
+     * @param file The checkpoint file.
+     * @return The checkpoint.
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    public static Checkpoint load(File file) throws IOException {
+        Properties properties = new Properties();
+        InputStream in = new FileInputStream(file);
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        Checkpoint checkpoint = new Checkpoint();
+        try {
+            checkpoint.inputFileName = properties.getProperty("input");
+            checkpoint.inputLength = Long.parseLong(properties.getProperty("input.length"));
+            checkpoint.inputModified = Long.parseLong(properties.getProperty("input.modified"));
+            checkpoint.lastPageId = Long.parseLong(properties.getProperty("page.id"));
+            checkpoint.outputLength = Long.parseLong(properties.getProperty("output.length"));
+            checkpoint.quarantineLength = Long.parseLong(properties.getProperty("quarantine.length"));
+            checkpoint.manifestLength = Long.parseLong(properties.getProperty("manifest.length"));
+            checkpoint.entries = Integer.parseInt(properties.getProperty("entries"));
+            checkpoint.defects = Integer.parseInt(properties.getProperty("defects"));
+            checkpoint.failures = Integer.parseInt(properties.getProperty("failures"));
+        } catch (NumberFormatException ex) {
+            throw new IOException("Malformed checkpoint " + file + ": " + ex.getMessage());
+        }
+        if (checkpoint.inputFileName == null) {
+            throw new IOException("Malformed checkpoint " + file);
+        }
+        return checkpoint;
+    }
+
+    /**
+     * Write the checkpoint. The previous checkpoint is replaced only after the
+     * new one is fully written.
+     *
+     * @param file The checkpoint file.
+     * @throws IOException if the file can't be written.
+     */
+    public void save(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty("input", this.inputFileName);
+        properties.setProperty("input.length", String.valueOf(this.inputLength));
+        properties.setProperty("input.modified", String.valueOf(this.inputModified));
+        properties.setProperty("page.id", String.valueOf(this.lastPageId));
+        properties.setProperty("output.length", String.valueOf(this.outputLength));
+        properties.setProperty("quarantine.length", String.valueOf(this.quarantineLength));
+        properties.setProperty("manifest.length", String.valueOf(this.manifestLength));
+        properties.setProperty("entries", String.valueOf(this.entries));
+        properties.setProperty("defects", String.valueOf(this.defects));
+        properties.setProperty("failures", String.valueOf(this.failures));
+
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream out = new FileOutputStream(tmp);
+        try {
+            properties.store(out, "Build checkpoint - resume with --resume");
+            out.getFD().sync();
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) { // Some file systems don't rename over a file
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                throw new IOException("Can't rename " + tmp + " to " + file);
+            }
+        }
+    }
+
+    /**
+     * Check that the checkpoint was taken on <tt>input</tt>.
+     *
+     * @param input The dump.
+     * @throws IOException if <tt>input</tt> is not the dump of the checkpoint.
+     */
+    public void verifyInput(File input) throws IOException {
+        if (!new File(this.inputFileName).getAbsoluteFile().equals(input.getAbsoluteFile())
+                || this.inputLength != input.length()
+                || this.inputModified != input.lastModified()) {
+            throw new IOException("The checkpoint was taken on another dump: " + this.inputFileName);
+        }
+    }
+
+    /**
+     * @return Id of the last page whose entries are in the output.
+     */
+    public long getLastPageId() {
+        return this.lastPageId;
+    }
+
+    /**
+     * @return Length of the output, in bytes, at the checkpoint.
+     */
+    public long getOutputLength() {
+        return this.outputLength;
+    }
+
+    /**
+     * @return Length of the {@link Quarantine} file, in bytes, at the
+     * checkpoint.
+     */
+    public long getQuarantineLength() {
+        return this.quarantineLength;
+    }
+
+    /**
+     * @return Length of the {@link Manifest}, in bytes, at the checkpoint.
+     */
+    public long getManifestLength() {
+        return this.manifestLength;
+    }
+
+    /**
+     * @return Number of entries processed at the checkpoint.
+     */
+    public int getEntries() {
+        return this.entries;
+    }
+
+    /**
+     * @return Number of articles without a section title at the checkpoint.
+     */
+    public int getDefects() {
+        return this.defects;
+    }
+
+    /**
+     * @return Number of quarantined entries at the checkpoint.
+     */
+    public int getFailures() {
+        return this.failures;
+    }
+}
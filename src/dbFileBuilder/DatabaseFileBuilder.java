@@ -1,21 +1,23 @@
 package dbFileBuilder;
 
-import dbFileBuilder.article.Article;
-import dbFileBuilder.json.JSON;
-import dbFileBuilder.utilities.StringUtility;
-import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
+import dbFileBuilder.article.ConversionContext;
+import dbFileBuilder.article.PageClassifier;
+import dbFileBuilder.article.PageLimitException;
+import dbFileBuilder.dump.BZip2InputStream;
+import dbFileBuilder.dump.DomPageReader;
+import dbFileBuilder.dump.MappedDumpInputStream;
+import dbFileBuilder.dump.PageFilterInputStream;
+import dbFileBuilder.dump.MultistreamIndex;
+import dbFileBuilder.dump.MultistreamInputStream;
+import dbFileBuilder.dump.Page;
+import dbFileBuilder.dump.PageSource;
+import dbFileBuilder.dump.StaxPageReader;
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Iterator;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
 
 /**
  * Take XML {@link dbFileBuilder.Globals#INPUT_FILE_NAME  file}
@@ -29,51 +31,283 @@ import org.w3c.dom.NodeList;
 public class DatabaseFileBuilder {
 
     private File fileToProcess;
-    private BufferedReader bufrReader;
-    /**
-     * Indicates whether the processing is inside page tag or not.
-     */
-    private boolean insidePage = false;
-    private StringBuilder strBuilder;
+    private PageSource pageSource;
     /**
      * Indicates which entry is processing.
      */
     private static int entryToProcess = 0;
-    private DocumentBuilderFactory docBuilderFactory;
-    private DocumentBuilder DocBuilder;
-    private InputStream inputStream;
-    private Document doc;
     /**
-     * Current line to process.
+     * count article which can't be process.
      */
-    private int lineCount;
+    private int defects = 0;
     private Writer writer;
-    private String title;
+    private final Settings settings;
+    /**
+     * Where pages which fail are written, <tt>null</tt> to stop on the first
+     * one.
+     */
+    private Quarantine quarantine = null;
+    /**
+     * Whether all of the dump was read.
+     */
+    private boolean dumpCompleted = false;
+    /**
+     * Where the progress of the build is saved.
+     */
+    private final File checkpointFile;
+    /**
+     * Id of the last page whose entries were written, or quarantined.
+     */
+    private long lastPageId = -1;
+    /**
+     * Number of entries whose output was written, or quarantined. When pages
+     * are converted in parallel it is behind {@link #entryToProcess}.
+     */
+    private int entriesDone = 0;
+    /**
+     * When resuming, the id of the last page of the checkpoint; the pages up
+     * to it, and it, are skipped. <tt>-1</tt> otherwise.
+     */
+    private long resumeAfter = -1;
+    private long lastCheckpointTime = System.currentTimeMillis();
+    /**
+     * Where the entries of each page are written.
+     */
+    private Manifest manifest;
+    /**
+     * The build to copy the entries of unchanged pages from, <tt>null</tt> to
+     * convert all the pages.
+     */
+    private PreviousBuild previous = null;
+    /**
+     * Number of entries copied from the {@link #previous} build.
+     */
+    private int copied = 0;
+    /**
+     * Number of oversized pages which were converted one section at a time.
+     */
+    private int oversized = 0;
+    /**
+     * Number of pages left out of the output for being over the limits.
+     */
+    private int leftOut = 0;
+
+    /**
+     * Creates a new <tt>DatabaseFileBuilder</tt> with the default
+     * {@link Settings}.
+     *
+     * @throws IOException if {@link Globals#INPUT_FILE_NAME input} file can't
+     * be opened.
+     */
+    public DatabaseFileBuilder() throws IOException {
+        this(new Settings());
+    }
 
     /**
      * Creates a new <tt>DatabaseFileBuilder</tt>.
      *
-     * @throws FileNotFoundException if {@link Globals#INPUT_FILE_NAME input}
-     * file is not found.
-     */
-    public DatabaseFileBuilder() throws FileNotFoundException {
-        this.fileToProcess = new File(Globals.INPUT_FILE_NAME);
-        this.bufrReader = new BufferedReader(new FileReader(this.fileToProcess));
-        this.strBuilder = new StringBuilder("");
-        this.writer = new Writer(Globals.OUTPUT_FILE_NAME);
+     * @param settings of the build.
+     * @throws IOException if the input file can't be opened.
+     */
+    public DatabaseFileBuilder(Settings settings) throws IOException {
+        this.settings = settings;
+        this.fileToProcess = new File(settings.getInputFileName());
+        this.checkpointFile = Checkpoint.fileFor(settings.getOutputFileName());
+        String manifestFileName = Manifest.fileFor(settings.getOutputFileName()).getPath();
+        if (settings.getPreviousFileName() != null) {
+            if (new File(settings.getPreviousFileName()).getCanonicalFile().equals(
+                    new File(settings.getOutputFileName()).getCanonicalFile())) {
+                throw new IOException("The previous build can't be the output: " + settings.getPreviousFileName());
+            }
+            this.previous = new PreviousBuild(settings.getPreviousFileName());
+        }
+        if (settings.isResume() == false) {
+            this.checkpointFile.delete(); // Left by an older build
+            if (settings.getChangeFileNames() != null) {
+                this.pageSource = new ChangesPageSource(this.previous, settings.getChangeFileNames());
+            } else {
+                this.pageSource = openPageSource(this.fileToProcess, settings, -1);
+            }
+            this.writer = new Writer(settings.getOutputFileName(), 0, settings.getCompressionThreads());
+            this.manifest = new Manifest(manifestFileName);
+            if (settings.getQuarantineFileName() != null) {
+                this.quarantine = new Quarantine(settings.getQuarantineFileName());
+            }
+            return;
+        }
+
+        if (this.checkpointFile.isFile() == false) {
+            throw new IOException("No checkpoint to resume from: " + this.checkpointFile);
+        }
+        Checkpoint checkpoint = Checkpoint.load(this.checkpointFile);
+        checkpoint.verifyInput(this.fileToProcess);
+        if (new File(settings.getOutputFileName()).length() < checkpoint.getOutputLength()) {
+            throw new IOException("The output is shorter than at the checkpoint: " + settings.getOutputFileName());
+        }
+        if (new File(manifestFileName).length() < checkpoint.getManifestLength()) {
+            throw new IOException("The manifest is shorter than at the checkpoint: " + manifestFileName);
+        }
+        DatabaseFileBuilder.entryToProcess = checkpoint.getEntries();
+        this.entriesDone = checkpoint.getEntries();
+        this.defects = checkpoint.getDefects();
+        this.lastPageId = checkpoint.getLastPageId();
+        this.resumeAfter = checkpoint.getLastPageId();
+        this.pageSource = openPageSource(this.fileToProcess, settings, this.resumeAfter);
+        this.writer = new Writer(settings.getOutputFileName(), checkpoint.getOutputLength(),
+                settings.getCompressionThreads());
+        this.manifest = new Manifest(manifestFileName, checkpoint.getManifestLength());
+        if (settings.getQuarantineFileName() != null) {
+            this.quarantine = new Quarantine(settings.getQuarantineFileName(),
+                    Math.min(checkpoint.getQuarantineLength(), new File(settings.getQuarantineFileName()).length()),
+                    checkpoint.getFailures());
+        }
+        System.out.println("Resuming after page " + this.resumeAfter + ", entry " + this.entriesDone);
+    }
+
+    /**
+     * Opens the dump according to the reader mode of <tt>settings</tt>.<br>
+     * The pages which are surely not to be processed are
+     * {@link PageFilterInputStream left out} before they are parsed.<br>
+     * An uncompressed dump is {@link MappedDumpInputStream mapped to memory} in
+     * the {@link Settings.ReaderMode#MAPPED mapped mode}; a compressed one
+     * can't be, and is streamed.
+     *
+     * @param file The dump.
+     * @param settings of the build.
+     * @param resumeAfter Id of a page to resume after, or <tt>-1</tt>.
+     * @return Source of the pages in the dump.
+     * @throws IOException if <tt>file</tt> can't be opened.
+     */
+    private static PageSource openPageSource(File file, Settings settings, long resumeAfter) throws IOException {
+        InputStream inputStream;
+        if (settings.getReaderMode() == Settings.ReaderMode.MAPPED && !file.getName().endsWith(".bz2")) {
+            inputStream = new MappedDumpInputStream(file);
+        } else {
+            if (settings.getReaderMode() == Settings.ReaderMode.MAPPED) {
+                System.out.println("A compressed dump can't be mapped, streaming it.");
+            }
+            inputStream = new PageFilterInputStream(openDump(file, settings, resumeAfter));
+        }
+        if (settings.getReaderMode() == Settings.ReaderMode.DOM) {
+            return new DomPageReader(inputStream);
+        }
+        return new StaxPageReader(inputStream);
+    }
+
+    /**
+     * Opens the dump as uncompressed XML.<br>
+     * A <tt>.bz2</tt> dump is decompressed on the fly: in parallel, when the
+     * index of the multistream dump exists, and on this thread otherwise.<br>
+     * With the index, the streams before the one which holds page
+     * <tt>resumeAfter</tt> are not read at all.
+     *
+     * @param file The dump.
+     * @param settings of the build.
+     * @param resumeAfter Id of a page to resume after, or <tt>-1</tt>.
+     * @return The XML of the dump.
+     * @throws IOException if <tt>file</tt> can't be opened.
+     */
+    private static InputStream openDump(File file, Settings settings, long resumeAfter) throws IOException {
+        if (!file.getName().endsWith(".bz2")) {
+            return new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        }
+        String indexFileName = settings.getIndexFileName();
+        if (indexFileName != null && new File(indexFileName).isFile()) {
+            MultistreamIndex index = new MultistreamIndex(new File(indexFileName));
+            int firstStream = resumeAfter == -1 ? 0 : index.findStream(resumeAfter);
+            return new BufferedInputStream(new MultistreamInputStream(file, index,
+                    settings.getDecompressionThreads(), firstStream), 1 << 16);
+        }
+        System.out.println("No multistream index, decompressing on a single thread.");
+        return new BufferedInputStream(
+                new BZip2InputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16)), 1 << 16);
     }
 
     /**
      * Build the Database
      */
     public void buildDatabase() {
-        this.lineCount = 0;
+        ParallelProcessor processor = null;
+        if (this.settings.getThreads() > 1) {
+            processor = new ParallelProcessor(this.settings,
+                    new ParallelProcessor.Listener() {
+                        @Override
+                        public void completed(Page page, ArrayList<String> lines, int pageDefects)
+                                throws IOException {
+                            defects += pageDefects;
+                            write(page, lines, pageDefects);
+                            done(page);
+                        }
+
+                        @Override
+                        public void failed(Page page, int lineNumber, int entry, Exception ex) {
+                            fail(page, lineNumber, entry, ex);
+                            done(page);
+                        }
+                    });
+        }
         try {
-            while (this.bufrReader.ready()) {
-                this.process(this.bufrReader.readLine() + '\n');
-                this.lineCount++;
+            Page page;
+            while ((page = this.pageSource.next()) != null) {
+                if (this.resumeAfter != -1) { // Already in the output
+                    if (page.getId() == this.resumeAfter) {
+                        this.resumeAfter = -1;
+                    }
+                    continue;
+                }
+                // An unchanged page was to be processed in the previous build.
+                Manifest.Entry unchanged = this.previous == null ? null : this.previous.findUnchanged(page);
+                if (unchanged == null && !PageConverter.isToProcess(page)) {
+                    continue;
+                }
+                DatabaseFileBuilder.entryToProcess++;
+                if (unchanged == null && this.settings.isSkipOversized() == false
+                        && PageConverter.isOversized(page, this.settings.getMaxPageSize())) {
+                    this.oversized++;
+                    System.out.println("Oversized: " + page + ": " + page.getText().length()
+                            + " chars, converted section by section");
+                }
+                //<editor-fold defaultstate="collapsed" desc="Good spot for debug">
+                // if (entryToProcess == 114) { ...   }
+                //    if (title.equals("הלך")) { ...  }
+                //   if (title.equals("דבר")) { ...   }
+                //  if (title.equals("כמר")) { ...    }
+                //</editor-fold>
+                if (unchanged != null && unchanged.isLeftOut()) { // Over the limits again
+                    PageLimitException e = new PageLimitException("Over the limits in " + this.previous);
+                    if (processor != null) {
+                        processor.submit(page, e, this.pageSource.getLineNumber(), DatabaseFileBuilder.entryToProcess);
+                    } else {
+                        this.fail(page, this.pageSource.getLineNumber(), DatabaseFileBuilder.entryToProcess, e);
+                        this.done(page);
+                    }
+                } else if (unchanged != null) {
+                    this.copied++;
+                    ArrayList<String> lines = this.previous.read(unchanged);
+                    if (processor != null) {
+                        processor.submit(page, lines, unchanged.getDefects(),
+                                this.pageSource.getLineNumber(), DatabaseFileBuilder.entryToProcess);
+                    } else {
+                        this.defects += unchanged.getDefects();
+                        this.write(page, lines, unchanged.getDefects());
+                        this.done(page);
+                    }
+                } else if (processor != null) {
+                    processor.submit(page, this.pageSource.getLineNumber(), DatabaseFileBuilder.entryToProcess);
+                } else {
+                    this.process(page);
+                }
+            }
+            if (processor != null) {
+                processor.finish();
+                processor = null;
+            }
+            this.writer.close();
+            if (this.resumeAfter != -1) {
+                throw new IOException("Page " + this.resumeAfter + " of the checkpoint is not in the dump");
             }
-            this.bufrReader.close();
+            this.dumpCompleted = true;
+            this.checkpointFile.delete();
         } // print the error
         catch (IOException ex) {
             System.out.println(ex);
@@ -81,119 +315,194 @@ public class DatabaseFileBuilder {
                 System.out.println(el);
             }
         } finally {
-            this.writer.close();
+            if (processor != null) {
+                processor.abort();
+            }
+            this.close();
+        }
+        if (this.dumpCompleted && this.previous != null) {
+            this.writeTombstones();
+        }
+        System.out.println("Entries processed : " + DatabaseFileBuilder.entryToProcess);
+        System.out.println("Bytes written : " + this.writer.getBytesWritten()
+                + (GzipBlockIndex.isCompressed(this.settings.getOutputFileName())
+                        ? " compressed, " + this.writer.getLength() + " in all uncompressed" : "")
+                + " (waited " + this.writer.getStallTime() + " ms for the disk)");
+        if (this.previous != null) {
+            System.out.println("Entries copied from " + this.previous + " : " + this.copied);
+        }
+        System.out.println("Articles without a section title : " + this.defects);
+        if (this.settings.getMaxPageSize() != 0 || this.settings.getMaxPageTime() != 0) {
+            System.out.println("Oversized pages converted section by section : " + this.oversized);
+            System.out.println("Pages left out over the limits : " + this.leftOut);
+        }
+        for (String line : PageClassifier.getCounters()) {
+            System.out.println("Dropped by " + line);
+        }
+        if (this.quarantine != null) {
+            System.out.println("Failed entries : " + this.quarantine.getFailures()
+                    + (this.quarantine.getFailures() == 0 ? "" : " (see " + this.quarantine + ")"));
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the build read all of the dump, and no more
+     * entries failed than the {@link Settings#getMaxFailures() maximum}.
+     */
+    public boolean isSuccessful() {
+        if (this.dumpCompleted == false) {
+            return false;
         }
+        return this.quarantine == null || this.quarantine.getFailures() <= this.settings.getMaxFailures();
     }
 
     /**
      * Process wiktionary entry and write it as JSON to the
      * {@link Globals#OUTPUT_FILE_NAME output file}.
      *
-     * @param stringToProcess Current line to process.
-     */
-    private void process(String stringToProcess) {
-
-        String // Containing the data of the entry in wiktionary syntax
-                wiktionaryEntryTxt = "";
-
-        if (StringUtility.isAPageTag(stringToProcess, true)) {
-            this.insidePage = true;// Processing going inside page tag 
-            this.strBuilder = new StringBuilder(300);
-        }
-        this.strBuilder.append(stringToProcess);
-
-        if (this.insidePage == true && StringUtility.isAPageTag(stringToProcess, false)) //stringToProcess contains an <page> entry.
-        {
-            this.insidePage = false;
-
-            try {
-                this.docBuilderFactory = DocumentBuilderFactory.newInstance();
-                this.DocBuilder = this.docBuilderFactory.newDocumentBuilder();
-                this.inputStream = new ByteArrayInputStream(this.strBuilder.toString().getBytes("UTF-8"));
-                this.doc = DocBuilder.parse(this.inputStream);
-                boolean isaArticle = true;
-
-                //optional, but recommended
-                //read this - http://stackoverflow.com/questions/13786607/normalization-in-dom-parsing-with-java-how-does-it-work
-                //   doc.getDocumentElement().normalize();
-                NodeList nodTitle // title of the page
-                        = doc.getElementsByTagName("title");
-                NodeList NodComment = doc.getElementsByTagName("comment");
-                NodeList redirectNode = doc.getElementsByTagName("redirect");
-                this.title = nodTitle.item(0).getTextContent();
-
-                if (redirectNode.getLength() != 0 && (!this.title.contains(":"))) {
-                    isaArticle = false; // It is REDIRECT entry - so it’s not an Article.
-                    DatabaseFileBuilder.entryToProcess++;
-
-                    RedirectEntry redirectEntry = new RedirectEntry(doc);
-                    if (!redirectEntry.isEmpty()) {
-                        this.writer.write(redirectEntry.asJSON());
-                    }
-
-                    return;// Start the next entry.
-                }
+     * @param page Current page to process.
+     * @throws IOException if the output can't be written.
+     */
+    private void process(Page page) throws IOException {
+        ArrayList<String> lines;
+        ConversionContext context = new ConversionContext(this.settings.getEngine());
+        context.setTimeLimit(this.settings.getMaxPageTime());
+        try {
+            lines = PageConverter.convert(page, context, this.settings.getMaxPageSize(),
+                    this.settings.isSkipOversized());
+        } catch (Exception e) {
+            this.fail(page, this.pageSource.getLineNumber(), DatabaseFileBuilder.entryToProcess, e);
+            this.done(page);
+            return;
+        }
+        this.defects += context.getDefects();
+        this.write(page, lines, context.getDefects());
+        this.done(page);
+    }
 
-                if (NodComment.getLength() == 0) // check whether its REDIRECT entry.
-                {
-                    if (NodComment.item(0) != null) {
-                        if (NodComment.item(0).getTextContent().contains("REDIRECT")
-                                || NodComment.item(0).getTextContent().contains("הועבר ל")) {
-                            RedirectEntry redirectEntry = new RedirectEntry(doc);
-                            isaArticle = false;// It is REDIRECT entry - so it’s not an Article.
-                            this.writer.write(redirectEntry.asJSON());
-                        }
-                    }
-                }
+    /**
+     * Write the JSON lines of a page to the
+     * {@link Globals#OUTPUT_FILE_NAME output file}, and record them in the
+     * {@link Manifest}.
+     *
+     * @throws IOException if the output can't be written.
+     */
+    private void write(Page page, ArrayList<String> lines, int pageDefects) throws IOException {
+        long offset = this.writer.getLength();
+        for (String line : lines) {
+            this.writer.write(line);
+        }
+        this.manifest.add(page, offset, this.writer.getLength() - offset, pageDefects);
+    }
 
-                if ((!this.title.contains(":"))
-                        && (isaArticle == true)
-                        && (this.title.equals("עמוד ראשי") == false)) { //Are we need to process the entry?
-                    DatabaseFileBuilder.entryToProcess++;
-                    //<editor-fold defaultstate="collapsed" desc="Good spot for debug">
-                    // if (entryToProcess == 114) { ...   }
-                    //    if (title.equals("הלך")) { ...  }
-                    //   if (title.equals("דבר")) { ...   }
-                    //  if (title.equals("כמר")) { ...    }
-                    //</editor-fold>
-                    nodTitle = doc.getElementsByTagName("text");
-                    wiktionaryEntryTxt = nodTitle.item(0).getTextContent();
-
-                    ArrayList<Article> articles = Article.getArticles(this.title, wiktionaryEntryTxt);
-
-                    for (Iterator<Article> // Remove empty articles.
-                            iter = articles.iterator(); iter.hasNext();) {
-                        Article candidate = iter.next();
-                        if (candidate.isEmpty()) {
-                            iter.remove();
-                        }
-                    }
-                    // Convert the articles to JSON and write them.
-                    for (Article art : articles) {
-                        JSON json = new JSON(art);
+    /**
+     * Write a tombstone for each page of the {@link #previous} build which is
+     * not in the output.
+     */
+    private void writeTombstones() {
+        String fileName = PreviousBuild.tombstonesFor(this.settings.getOutputFileName()).getPath();
+        try {
+            int count = this.previous.writeTombstones(
+                    Manifest.read(Manifest.fileFor(this.settings.getOutputFileName())), fileName);
+            System.out.println("Deleted entries : " + count + (count == 0 ? "" : " (see " + fileName + ")"));
+        } catch (IOException ex) {
+            this.dumpCompleted = false;
+            System.out.println(ex);
+            for (StackTraceElement el : ex.getStackTrace()) {
+                System.out.println(el);
+            }
+        }
+    }
 
-                        if (!json.isEmpty()) {
-                            this.writer.write(json.toString());
-                        }
+    /**
+     * Note that the output of a page was written, or that it was quarantined,
+     * and save a {@link Checkpoint} if it is time to.
+     *
+     * @param page The page.
+     */
+    private void done(Page page) {
+        this.lastPageId = page.getId();
+        this.entriesDone++;
+        int interval = this.settings.getCheckpointInterval();
+        if (interval == 0 || this.settings.getChangeFileNames() != null || System.currentTimeMillis() - this.lastCheckpointTime < interval * 1000L) {
+            return;
+        }
+        try {
+            long outputLength = this.writer.sync();
+            long manifestLength = this.manifest.sync();
+            long quarantineLength = 0;
+            int failures = 0;
+            if (this.quarantine != null) {
+                quarantineLength = this.quarantine.sync();
+                failures = this.quarantine.getFailures();
+            }
+            new Checkpoint(this.fileToProcess, this.lastPageId, outputLength, quarantineLength,
+                    manifestLength, this.entriesDone, this.defects, failures).save(this.checkpointFile);
+        } catch (IOException ex) { // The build can go on without it
+            System.out.println(ex);
+            for (StackTraceElement el : ex.getStackTrace()) {
+                System.out.println(el);
+            }
+        }
+        this.lastCheckpointTime = System.currentTimeMillis();
+    }
 
-                    }
-                }
+    /**
+     * Handle a page which failed: write it to the {@link Quarantine}, if there
+     * is one. Otherwise prints necessary info about it and stop the build.<br>
+     * A page which is over the limits of a page is not a failure: it is only
+     * reported, and left out. It is recorded in the {@link Manifest} as left
+     * out, so the next build makes no tombstone for it.
+     *
+     * @param page The page which failed.
+     * @param lineNumber The line of the dump the page ends on.
+     * @param entry The number of the page among the processed ones.
+     * @param e The failure.
+     */
+    private void fail(Page page, int lineNumber, int entry, Exception e) {
+        if (e instanceof PageLimitException) {
+            this.leftOut++;
+            this.manifest.addLeftOut(page);
+            System.out.println("Left out: " + page + ": " + e.getMessage());
+            return;
+        }
+        if (this.quarantine != null) {
+            this.quarantine.add(page, lineNumber, entry, e);
+            System.out.println("Quarantined: " + page + ": " + e);
+            return;
+        }
+        System.out.println(e);
+        System.out.println("\tLine Count        : " + lineNumber);
+        System.out.println("\tEntry To Process  : " + entry);
 
-            } catch (Exception e) { // catch exception and prints necessary info.
-                System.out.println(e);
-                System.out.println("\tLine Count        : " + lineCount);
-                System.out.println("\tEntry To Process  : " + DatabaseFileBuilder.entryToProcess);
+        for (StackTraceElement el : e.getStackTrace()) {
+            System.out.println(el);
+        }
+        System.out.println("---------------------------------------------------------------------------------------------------");
+        System.out.println("Title :\n\t" + page.getTitle());
+        System.out.println("Wiktionary Entry Text :");
+        System.out.println(page.getText());
+        this.close();
+        System.exit(2);
+    }
 
-                for (StackTraceElement el : e.getStackTrace()) {
-                    System.out.println(el);
-                }
-                System.out.println("---------------------------------------------------------------------------------------------------");
-                System.out.println("Title :\n\t" + title);
-                System.out.println("Wiktionary Entry Text :");
-                System.out.println(wiktionaryEntryTxt);
-                writer.close();
-                System.exit(0);
-            }
+    /**
+     * Close the dump, the output and the files along with it, and the
+     * {@link #previous} build.
+     */
+    private void close() {
+        this.pageSource.close();
+        try {
+            this.writer.close();
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+        this.manifest.close();
+        if (this.quarantine != null) {
+            this.quarantine.close();
+        }
+        if (this.previous != null) {
+            this.previous.close();
         }
     }
 }
@@ -21,7 +21,8 @@ public class Globals {
      */
     public static final String OUTPUT_FILE_NAME = "output.json";
     /**
-     * The name of input file.
+     * The name of input file.<br>
+     * Either the compressed multistream dump or the uncompressed XML.
      */
-    public static final String INPUT_FILE_NAME = "multistreams/hewiktionary-latest-pages-articles-multistream.xml";
+    public static final String INPUT_FILE_NAME = "multistreams/hewiktionary-latest-pages-articles-multistream.xml.bz2";
 }
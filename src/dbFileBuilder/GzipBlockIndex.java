@@ -0,0 +1,150 @@
+package dbFileBuilder;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * The index of a block compressed output file.<br>
+ * The file is a series of gzip members, each of them the compression of one
+ * block of the output, so any gzip reader reads it as a whole, and a reader
+ * which has the index can start at any block. Each line of the index has the
+ * form
+ * <tt>uncompressedOffset TAB compressedOffset TAB uncompressedLength TAB compressedLength</tt>,
+ * one for each block, in order. Lines starting with <tt>#</tt> are comments.
+ *
+ * @see GzipBlockWriter
+ */
+public class GzipBlockIndex {
+
+    /**
+     * The first line of an index file.
+     */
+    static final String HEADER = "# uncompressed_offset\tcompressed_offset\tuncompressed_length\tcompressed_length";
+    private final long[] uncompressedOffsets;
+    private final long[] compressedOffsets;
+    private final long[] uncompressedLengths;
+    private final long[] compressedLengths;
+
+    /**
+     * Reads an index file.
+     *
+     * @param file The index file.
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    public GzipBlockIndex(File file) throws IOException {
+        long[][] columns = new long[4][1024];
+        int count = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\t");
+                if (fields.length != 4) {
+                    throw new IOException("Bad block index line: " + line);
+                }
+                if (count == columns[0].length) {
+                    for (int i = 0; i < columns.length; i++) {
+                        columns[i] = Arrays.copyOf(columns[i], count * 2);
+                    }
+                }
+                for (int i = 0; i < columns.length; i++) {
+                    columns[i][count] = Long.parseLong(fields[i]);
+                }
+                count++;
+            }
+        } catch (NumberFormatException ex) {
+            throw new IOException("Malformed block index " + file + ": " + ex.getMessage());
+        } finally {
+            reader.close();
+        }
+        this.uncompressedOffsets = Arrays.copyOf(columns[0], count);
+        this.compressedOffsets = Arrays.copyOf(columns[1], count);
+        this.uncompressedLengths = Arrays.copyOf(columns[2], count);
+        this.compressedLengths = Arrays.copyOf(columns[3], count);
+    }
+
+    /**
+     * @param outputFileName The name of the output file.
+     * @return The block index file of <tt>outputFileName</tt>.
+     */
+    public static File fileFor(String outputFileName) {
+        return new File(outputFileName + ".blocks");
+    }
+
+    /**
+     * @param fileName The name of a file.
+     * @return <tt>true</tt> if the file is written block compressed.
+     */
+    public static boolean isCompressed(String fileName) {
+        return fileName.endsWith(".gz");
+    }
+
+    /**
+     * @return Number of blocks.
+     */
+    public int size() {
+        return this.uncompressedOffsets.length;
+    }
+
+    /**
+     * Find the block which holds an offset of the uncompressed data.
+     *
+     * @param uncompressedOffset An offset of the uncompressed data.
+     * @return The number of the block, or <tt>-1</tt> if the offset is beyond
+     * the last block.
+     */
+    public int find(long uncompressedOffset) {
+        int low = 0;
+        int high = this.uncompressedOffsets.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (this.uncompressedOffsets[mid] > uncompressedOffset) {
+                high = mid - 1;
+            } else if (this.uncompressedOffsets[mid] + this.uncompressedLengths[mid] <= uncompressedOffset) {
+                low = mid + 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param i Block number.
+     * @return Offset of the block in the uncompressed data.
+     */
+    public long getUncompressedOffset(int i) {
+        return this.uncompressedOffsets[i];
+    }
+
+    /**
+     * @param i Block number.
+     * @return Offset of the gzip member of the block in the file.
+     */
+    public long getCompressedOffset(int i) {
+        return this.compressedOffsets[i];
+    }
+
+    /**
+     * @param i Block number.
+     * @return Length of the block, uncompressed.
+     */
+    public long getUncompressedLength(int i) {
+        return this.uncompressedLengths[i];
+    }
+
+    /**
+     * @param i Block number.
+     * @return Length of the gzip member of the block.
+     */
+    public long getCompressedLength(int i) {
+        return this.compressedLengths[i];
+    }
+}
@@ -0,0 +1,201 @@
+package dbFileBuilder;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses blocks of the output on a pool of threads, the way
+ * <a href="http://zlib.net/pigz/">pigz</a> does, and writes them in order.<br>
+ * Each block becomes a gzip member of its own, so the file is a valid gzip
+ * file, and a {@link GzipBlockIndex block index} is written next to it.
+ * <br><br>
+ * Used by the {@link Writer} thread only.
+ */
+class GzipBlockWriter {
+
+    /**
+     * A block being compressed.
+     */
+    private static class Block {
+
+        private final long uncompressedLength;
+        private final Future<byte[]> compressed;
+
+        Block(long uncompressedLength, Future<byte[]> compressed) {
+            this.uncompressedLength = uncompressedLength;
+            this.compressed = compressed;
+        }
+    }
+    private final FileChannel channel;
+    private final ExecutorService executor;
+    private final int maxPending;
+    /**
+     * Blocks being compressed, in order.
+     */
+    private final LinkedList<Block> pending = new LinkedList<Block>();
+    private final FileOutputStream indexOutputStream;
+    private final PrintWriter index;
+    private long uncompressedLength;
+    private long compressedLength;
+
+    /**
+     * Creates a new <tt>GzipBlockWriter</tt>.
+     *
+     * @param channel The output file, positioned at <tt>length</tt>.
+     * @param indexFile The block index of the output file.
+     * @param length Length of the output file to keep, in bytes. Must be at
+     * the end of a block of the index.
+     * @param threads Number of compressing threads.
+     * @throws IOException if the index can't be read or written, or
+     * <tt>length</tt> is not at the end of a block.
+     */
+    GzipBlockWriter(FileChannel channel, File indexFile, long length, int threads) throws IOException {
+        this.channel = channel;
+        this.maxPending = threads * 2;
+        GzipBlockIndex kept = null;
+        if (length != 0) {
+            kept = new GzipBlockIndex(indexFile);
+        }
+        this.indexOutputStream = new FileOutputStream(indexFile);
+        this.index = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                this.indexOutputStream, Charset.forName("UTF8"))));
+        this.index.println(GzipBlockIndex.HEADER);
+        for (int i = 0; kept != null && i < kept.size()
+                && kept.getCompressedOffset(i) + kept.getCompressedLength(i) <= length; i++) {
+            this.addToIndex(kept.getUncompressedLength(i), kept.getCompressedLength(i));
+        }
+        this.index.flush();
+        if (this.compressedLength != length) {
+            this.index.close();
+            throw new IOException("Length " + length + " is not at the end of a block of " + indexFile);
+        }
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "gzip-compressor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Compress a block. Blocks which were compressed already are written.
+     *
+     * @param buffer The block; it may be reused once this returns.
+     * @throws IOException if a block can't be written.
+     */
+    void write(ByteBuffer buffer) throws IOException {
+        final byte[] block = new byte[buffer.remaining()];
+        buffer.get(block);
+        this.pending.add(new Block(block.length, this.executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws IOException {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.length / 4 + 64);
+                GZIPOutputStream gzip = new GZIPOutputStream(bytes, 1 << 16);
+                gzip.write(block);
+                gzip.close();
+                return bytes.toByteArray();
+            }
+        })));
+        while (this.pending.size() > this.maxPending
+                || (!this.pending.isEmpty() && this.pending.getFirst().compressed.isDone())) {
+            this.writeOldest();
+        }
+    }
+
+    /**
+     * Write all the blocks, and the index all the way to the disk.
+     *
+     * @return Length of the output file, in bytes.
+     * @throws IOException if a block can't be written.
+     */
+    long flush() throws IOException {
+        while (!this.pending.isEmpty()) {
+            this.writeOldest();
+        }
+        this.index.flush();
+        if (this.index.checkError()) {
+            throw new IOException("Failed to write the block index");
+        }
+        this.indexOutputStream.getFD().sync();
+        return this.compressedLength;
+    }
+
+    /**
+     * Stop the compressing threads and close the index.
+     */
+    void close() {
+        this.executor.shutdownNow();
+        this.index.close();
+    }
+
+    /**
+     * @return Length of the output file, in bytes.
+     */
+    long getCompressedLength() {
+        return this.compressedLength;
+    }
+
+    /**
+     * @return Length of the data written, uncompressed.
+     */
+    long getUncompressedLength() {
+        return this.uncompressedLength;
+    }
+
+    private void writeOldest() throws IOException {
+        Block block = this.pending.removeFirst();
+        byte[] compressed;
+        try {
+            compressed = getUninterruptibly(block.compressed);
+        } catch (ExecutionException ex) {
+            throw new IOException(ex.getCause());
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(compressed);
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.addToIndex(block.uncompressedLength, compressed.length);
+    }
+
+    private void addToIndex(long blockLength, long compressedBlockLength) {
+        this.index.println(this.uncompressedLength + "\t" + this.compressedLength
+                + "\t" + blockLength + "\t" + compressedBlockLength);
+        this.uncompressedLength += blockLength;
+        this.compressedLength += compressedBlockLength;
+    }
+
+    private static <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
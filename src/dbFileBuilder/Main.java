@@ -1,6 +1,6 @@
 package dbFileBuilder;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * Entry point for the program.
@@ -8,17 +8,32 @@ import java.io.FileNotFoundException;
 public class Main {
 
     /**
-     * No arguments needed.
+     * No arguments needed. See {@link Settings#usage()} for the optional
+     * ones.<br>
+     * Exits with <tt>1</tt> on bad arguments, and with <tt>2</tt> if the build
+     * was not {@link DatabaseFileBuilder#isSuccessful() successful}.
      *
-     * @param args the command line arguments - not needed.
-     * @throws FileNotFoundException
+     * @param args the command line arguments - optional.
+     * @throws IOException if the input file can't be opened.
      */
-    public static void main(String[] args) throws FileNotFoundException {
+    public static void main(String[] args) throws IOException {
         System.setProperty("file.encoding", "UTF-8");
         System.out.println("Entry point is on Main");
-        DatabaseFileBuilder dbFb = new DatabaseFileBuilder();
+        Settings settings;
+        try {
+            settings = Settings.parse(args);
+        } catch (IllegalArgumentException ex) {
+            System.out.println(ex.getMessage());
+            System.out.println(Settings.usage());
+            System.exit(1);
+            return;
+        }
+        DatabaseFileBuilder dbFb = new DatabaseFileBuilder(settings);
         dbFb.buildDatabase();
 
         System.out.println("Finished");
+        if (dbFb.isSuccessful() == false) {
+            System.exit(2);
+        }
     }
 }
@@ -0,0 +1,244 @@
+package dbFileBuilder;
+
+import dbFileBuilder.dump.Page;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.LinkedHashMap;
+
+/**
+ * Where the entries of each page are in the output of a build, and which
+ * revision of the page they were made from.<br>
+ * Each line of the file has the form
+ * <tt>pageId TAB sha1 TAB offset TAB length TAB defects TAB title</tt>, in the
+ * order of the output. <tt>offset</tt> and <tt>length</tt> are in bytes of the
+ * output; a page without entries has the length <tt>0</tt>. A page whose
+ * revision has no sha1 has <tt>-</tt> instead. A page which was left out of
+ * the output, for being over the limits of a page, has <tt>-</tt> for its
+ * offset and the length <tt>0</tt>: it is still there, and while it does not
+ * change it is left out again.
+ * <br><br>
+ * The next build can copy the entries of the pages whose sha1 did not change,
+ * see {@link PreviousBuild}.
+ */
+public class Manifest {
+
+    /**
+     * The record of one page.
+     */
+    public static class Entry {
+
+        private final long pageId;
+        private final String sha1;
+        private final long offset;
+        private final long length;
+        private final int defects;
+        private final String title;
+
+        Entry(long pageId, String sha1, long offset, long length, int defects, String title) {
+            this.pageId = pageId;
+            this.sha1 = sha1;
+            this.offset = offset;
+            this.length = length;
+            this.defects = defects;
+            this.title = title;
+        }
+
+        /**
+         * @return The id of the page.
+         */
+        public long getPageId() {
+            return this.pageId;
+        }
+
+        /**
+         * @return The sha1 of the revision, <tt>null</tt> if the dump had
+         * none.
+         */
+        public String getSha1() {
+            return this.sha1;
+        }
+
+        /**
+         * @return Offset of the entries of the page in the output, in bytes,
+         * <tt>-1</tt> if the page was left out.
+         */
+        public long getOffset() {
+            return this.offset;
+        }
+
+        /**
+         * @return Length of the entries of the page in the output, in bytes.
+         */
+        public long getLength() {
+            return this.length;
+        }
+
+        /**
+         * @return Number of articles of the page without a section title.
+         */
+        public int getDefects() {
+            return this.defects;
+        }
+
+        /**
+         * @return The title of the page.
+         */
+        public String getTitle() {
+            return this.title;
+        }
+
+        /**
+         * @return <tt>true</tt> if the page was left out of the output, for
+         * being over the limits of a page.
+         */
+        public boolean isLeftOut() {
+            return this.offset == -1;
+        }
+    }
+    private final String fileName;
+    private final FileOutputStream fileOutputStream;
+    private final PrintWriter printWriter;
+
+    /**
+     * Creates a new <tt>Manifest</tt>, replacing the file if it exists.
+     *
+     * @param fileName The name of the manifest file.
+     * @throws IOException if the file can't be created.
+     */
+    public Manifest(String fileName) throws IOException {
+        this(fileName, 0);
+    }
+
+    /**
+     * Creates a new <tt>Manifest</tt> which continues an existing file, from a
+     * {@link Checkpoint}.
+     *
+     * @param fileName The name of the manifest file.
+     * @param length Number of bytes of the file to keep.
+     * @throws IOException if the file can't be opened.
+     */
+    public Manifest(String fileName, long length) throws IOException {
+        this.fileName = fileName;
+        RandomAccessFile truncator = new RandomAccessFile(fileName, "rw");
+        try {
+            truncator.setLength(length);
+        } finally {
+            truncator.close();
+        }
+        this.fileOutputStream = new FileOutputStream(fileName, true);
+        this.printWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                this.fileOutputStream, Charset.forName("UTF8"))));
+    }
+
+    /**
+     * @param outputFileName The name of the output file.
+     * @return The manifest file of <tt>outputFileName</tt>.
+     */
+    public static File fileFor(String outputFileName) {
+        return new File(outputFileName + ".manifest");
+    }
+
+    /**
+     * Record the entries of a page.
+     *
+     * @param page The page.
+     * @param offset Offset of its entries in the output, in bytes.
+     * @param length Length of its entries in the output, in bytes.
+     * @param defects Number of its articles without a section title.
+     */
+    public void add(Page page, long offset, long length, int defects) {
+        this.printWriter.print(page.getId());
+        this.printWriter.print('\t');
+        this.printWriter.print(page.getSha1() == null ? "-" : page.getSha1());
+        this.printWriter.print('\t');
+        this.printWriter.print(offset == -1 ? "-" : String.valueOf(offset));
+        this.printWriter.print('\t');
+        this.printWriter.print(length);
+        this.printWriter.print('\t');
+        this.printWriter.print(defects);
+        this.printWriter.print('\t');
+        this.printWriter.print(page.getTitle());
+        this.printWriter.print('\n');
+    }
+
+    /**
+     * Record a page which was left out of the output, for being over the
+     * limits of a page.
+     *
+     * @param page The page.
+     */
+    public void addLeftOut(Page page) {
+        this.add(page, -1, 0, 0);
+    }
+
+    /**
+     * Flush the records all the way to the disk.
+     *
+     * @return The length of the file, in bytes.
+     * @throws IOException if the data can't be flushed.
+     */
+    public long sync() throws IOException {
+        this.printWriter.flush();
+        if (this.printWriter.checkError()) {
+            throw new IOException("Failed to write to " + this.fileName);
+        }
+        this.fileOutputStream.getFD().sync();
+        return this.fileOutputStream.getChannel().position();
+    }
+
+    /**
+     * Close the file.
+     */
+    public void close() {
+        this.printWriter.close();
+    }
+
+    /**
+     * Read a manifest file.
+     *
+     * @param file The manifest file.
+     * @return The records, by page id, in the order of the output.
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    public static LinkedHashMap<Long, Entry> read(File file) throws IOException {
+        LinkedHashMap<Long, Entry> entries = new LinkedHashMap<Long, Entry>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new FileInputStream(file), "UTF-8"), 1 << 16);
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", 6);
+                if (fields.length != 6) {
+                    throw new IOException("Bad manifest line: " + line);
+                }
+                Entry entry = new Entry(Long.parseLong(fields[0]),
+                        fields[1].equals("-") ? null : fields[1],
+                        fields[2].equals("-") ? -1 : Long.parseLong(fields[2]), Long.parseLong(fields[3]),
+                        Integer.parseInt(fields[4]), fields[5]);
+                entries.put(entry.getPageId(), entry);
+            }
+        } catch (NumberFormatException ex) {
+            throw new IOException("Malformed manifest " + file + ": " + ex.getMessage());
+        } finally {
+            reader.close();
+        }
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return this.fileName;
+    }
+}
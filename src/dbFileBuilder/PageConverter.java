@@ -0,0 +1,169 @@
+package dbFileBuilder;
+
+import dbFileBuilder.article.Article;
+import dbFileBuilder.article.ConversionContext;
+import dbFileBuilder.article.PageLimitException;
+import dbFileBuilder.dump.Page;
+import dbFileBuilder.json.JSON;
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/**
+ * Convert one page of the dump to the lines of the JSON file.
+ */
+public class PageConverter {
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private PageConverter() {
+    }
+
+    /**
+     * Check whether a page should be converted at all.
+     *
+     * @param page A page of the dump.
+     * @return <tt>true</tt> if <tt>page</tt> is a redirect or an entry
+     * outside of the special namespaces.
+     */
+    public static boolean isToProcess(Page page) {
+        String title = page.getTitle();
+        if (title.contains(":")) {
+            return false;
+        }
+        return page.isRedirect() || title.equals("עמוד ראשי") == false;
+    }
+
+    /**
+     * Convert a page to JSON.<br>
+     * Safe to call from several threads at the same time, each with its own
+     * <tt>context</tt>.
+     *
+     * @param page A page which {@link #isToProcess(dbFileBuilder.dump.Page) is
+     * to be processed}.
+     * @param context of the conversion.
+     * @return The JSON lines of the page, in order. May be empty.
+     * @throws PageLimitException if the conversion takes longer than the
+     * {@link ConversionContext#setTimeLimit(int) time limit} of
+     * <tt>context</tt>.
+     */
+    public static ArrayList<String> convert(Page page, ConversionContext context) throws PageLimitException {
+        context.startClock();
+        ArrayList<String> lines = new ArrayList<String>();
+        String title = page.getTitle();
+
+        if (page.isRedirect()) {
+            return convertRedirect(page);
+        }
+
+        ArrayList<Article> articles = Article.getArticles(title, page.getText(), context);
+
+        for (Iterator<Article> // Remove empty articles.
+                iter = articles.iterator(); iter.hasNext();) {
+            Article candidate = iter.next();
+            if (candidate.isEmpty()) {
+                iter.remove();
+            }
+        }
+        // Convert the articles to JSON.
+        for (Article art : articles) {
+            context.checkTime();
+            JSON json = new JSON(art, context);
+
+            if (!json.isEmpty()) {
+                lines.add(json.toString());
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * @param page A page of the dump.
+     * @param maxPageSize The length of text over which a page is oversized,
+     * <tt>0</tt> for no limit.
+     * @return <tt>true</tt> if the text of <tt>page</tt> is longer than
+     * <tt>maxPageSize</tt> chars.
+     */
+    public static boolean isOversized(Page page, long maxPageSize) {
+        return maxPageSize != 0 && page.getText().length() > maxPageSize;
+    }
+
+    /**
+     * Convert a page to JSON, and an
+     * {@link #isOversized(dbFileBuilder.dump.Page, long) oversized} one
+     * {@link #convertBySection(dbFileBuilder.dump.Page, dbFileBuilder.article.ConversionContext) by section},
+     * or not at all.
+     *
+     * @param page A page which {@link #isToProcess(dbFileBuilder.dump.Page) is
+     * to be processed}.
+     * @param context of the conversion.
+     * @param maxPageSize The length of text over which a page is oversized,
+     * <tt>0</tt> for no limit.
+     * @param skipOversized <tt>true</tt> to leave an oversized page out.
+     * @return The JSON lines of the page, in order. May be empty.
+     * @throws PageLimitException if the page is oversized and is left out, or
+     * if the conversion takes longer than the
+     * {@link ConversionContext#setTimeLimit(int) time limit} of
+     * <tt>context</tt>.
+     */
+    public static ArrayList<String> convert(Page page, ConversionContext context, long maxPageSize,
+            boolean skipOversized) throws PageLimitException {
+        if (isOversized(page, maxPageSize) == false) {
+            return convert(page, context);
+        }
+        if (skipOversized) {
+            throw new PageLimitException("Over the size limit of " + maxPageSize + " chars: "
+                    + page.getText().length() + " chars");
+        }
+        return convertBySection(page, context);
+    }
+
+    /**
+     * Convert a page to JSON one article at a time: each article is converted
+     * to JSON as soon as it is made, and is dropped before the next one is
+     * made. The lines are the same as of
+     * {@link #convert(dbFileBuilder.dump.Page, dbFileBuilder.article.ConversionContext) convert},
+     * but only the lines, and not the HTML of all the articles, are kept to
+     * the end; for the pages which are far longer than the others.
+     *
+     * @param page A page which {@link #isToProcess(dbFileBuilder.dump.Page) is
+     * to be processed}.
+     * @param context of the conversion.
+     * @return The JSON lines of the page, in order. May be empty.
+     * @throws PageLimitException if the conversion takes longer than the
+     * {@link ConversionContext#setTimeLimit(int) time limit} of
+     * <tt>context</tt>.
+     */
+    public static ArrayList<String> convertBySection(Page page, final ConversionContext context)
+            throws PageLimitException {
+        context.startClock();
+        if (page.isRedirect()) {
+            return convertRedirect(page);
+        }
+        final ArrayList<String> lines = new ArrayList<String>();
+        Article.getArticles(page.getTitle(), page.getText(), context, new Article.Receiver() {
+            @Override
+            public void receive(Article article) {
+                if (article.isEmpty()) {
+                    return;
+                }
+                context.checkTime();
+                JSON json = new JSON(article, context);
+                if (!json.isEmpty()) {
+                    lines.add(json.toString());
+                }
+            }
+        });
+        return lines;
+    }
+
+    private static ArrayList<String> convertRedirect(Page page) {
+        ArrayList<String> lines = new ArrayList<String>();
+        // It is REDIRECT entry - so it’s not an Article.
+        RedirectEntry redirectEntry = new RedirectEntry(page.getTitle(), page.getText());
+        if (!redirectEntry.isEmpty()) {
+            lines.add(redirectEntry.asJSON());
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,326 @@
+package dbFileBuilder;
+
+import dbFileBuilder.article.ConversionContext;
+import dbFileBuilder.article.PageLimitException;
+import dbFileBuilder.dump.Page;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Convert pages on a pool of worker threads.<br>
+ * Pages are {@link #submit(dbFileBuilder.dump.Page, int, int) submitted} in the
+ * order of the dump, along with pages whose entries are already known, and
+ * their results are handed to the {@link Listener} in that order only, however
+ * the workers finish. So the output is the same as of a sequential run.
+ * <br><br>
+ * The pages which were submitted and whose results were not handed yet are
+ * capped both by count and by their size. When a cap is reached,
+ * <tt>submit</tt> waits for the oldest page.
+ * <br><br>
+ * The {@link PageConverter#isOversized(dbFileBuilder.dump.Page, long) oversized}
+ * pages are converted on a slow lane of their own, a single thread, so no more
+ * than one of them is converted at a time, and they do not hold up the
+ * workers of the other pages.
+ */
+public class ParallelProcessor {
+
+    /**
+     * Receives the results, in the order of submission. Called on the
+     * submitting thread.
+     */
+    public interface Listener {
+
+        /**
+         * @param page A page which was converted.
+         * @param lines Its JSON lines.
+         * @param defects Number of its articles without a section title.
+         * @throws IOException if the lines can't be written.
+         */
+        void completed(Page page, ArrayList<String> lines, int defects) throws IOException;
+
+        /**
+         * @param page A page whose conversion failed.
+         * @param lineNumber The line of the dump the page ends on.
+         * @param entry The number of the page among the processed ones.
+         * @param ex The failure.
+         */
+        void failed(Page page, int lineNumber, int entry, Exception ex);
+    }
+
+    /**
+     * A submitted page.
+     */
+    private static class Job {
+
+        private final Page page;
+        private final int lineNumber;
+        private final int entry;
+        private final long size;
+        private ConversionContext context;
+        private Future<ArrayList<String>> result;
+        /**
+         * Defects of a page which was not converted here.
+         */
+        private int defects;
+
+        Job(Page page, int lineNumber, int entry, long size) {
+            this.page = page;
+            this.lineNumber = lineNumber;
+            this.entry = entry;
+            this.size = size;
+        }
+    }
+    private final ExecutorService executor;
+    /**
+     * Converts the oversized pages.
+     */
+    private final ExecutorService slowLane;
+    private final Listener listener;
+    private final int maxPages;
+    private final long maxBytes;
+    private final Settings.Engine engine;
+    private final long maxPageSize;
+    private final boolean skipOversized;
+    private final int maxPageTime;
+    /**
+     * Jobs in flight, in the order of submission.
+     */
+    private final LinkedList<Job> inFlight = new LinkedList<Job>();
+    private long bytesInFlight = 0;
+
+    /**
+     * Creates a new <tt>ParallelProcessor</tt>.
+     *
+     * @param settings of the build: the number of worker
+     * {@link Settings#getThreads() threads}, the maximum
+     * {@link Settings#getMaxPagesInFlight() number} and
+     * {@link Settings#getMaxBytesInFlight() size} of the pages in flight, the
+     * {@link Settings#getEngine() engine} and the limits of a page. A single
+     * page bigger than the maximum size is still processed, alone.
+     * @param listener Receives the results.
+     */
+    public ParallelProcessor(Settings settings, Listener listener) {
+        this.listener = listener;
+        this.maxPages = settings.getMaxPagesInFlight();
+        this.maxBytes = settings.getMaxBytesInFlight();
+        this.engine = settings.getEngine();
+        this.maxPageSize = settings.getMaxPageSize();
+        this.skipOversized = settings.isSkipOversized();
+        this.maxPageTime = settings.getMaxPageTime();
+        this.executor = Executors.newFixedThreadPool(settings.getThreads(), new ThreadFactory() {
+            private int count = 0;
+
+            @Override
+            public synchronized Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "page-worker-" + (++this.count));
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.slowLane = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "page-slow-lane");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Submit the next page of the dump. Results of the pages which are
+     * already done are handed to the listener.
+     *
+     * @param page The page to convert.
+     * @param lineNumber The line of the dump the page ends on.
+     * @param entry The number of the page among the processed ones.
+     * @throws IOException if the listener failed to write a result.
+     */
+    public void submit(Page page, int lineNumber, int entry) throws IOException {
+        long size = sizeOf(page);
+        this.makeRoom(size);
+
+        final Job job = new Job(page, lineNumber, entry, size);
+        job.context = new ConversionContext(this.engine);
+        job.context.setTimeLimit(this.maxPageTime);
+        Callable<ArrayList<String>> conversion = new Callable<ArrayList<String>>() {
+            @Override
+            public ArrayList<String> call() throws PageLimitException {
+                return PageConverter.convert(job.page, job.context, maxPageSize, skipOversized);
+            }
+        };
+        if (PageConverter.isOversized(page, this.maxPageSize) && this.skipOversized == false) {
+            job.result = this.slowLane.submit(conversion);
+        } else {
+            job.result = this.executor.submit(conversion);
+        }
+        this.add(job);
+    }
+
+    /**
+     * Submit the next page of the dump, whose entries are already known. They
+     * are handed to the listener in turn, after the pages before it.
+     *
+     * @param page The page.
+     * @param lines Its JSON lines.
+     * @param defects Number of its articles without a section title.
+     * @param lineNumber The line of the dump the page ends on.
+     * @param entry The number of the page among the processed ones.
+     * @throws IOException if the listener failed to write a result.
+     */
+    public void submit(Page page, ArrayList<String> lines, int defects, int lineNumber, int entry)
+            throws IOException {
+        long size = sizeOf(lines);
+        this.makeRoom(size);
+
+        Job job = new Job(page, lineNumber, entry, size);
+        job.defects = defects;
+        FutureTask<ArrayList<String>> done = new FutureTask<ArrayList<String>>(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, lines);
+        done.run();
+        job.result = done;
+        this.add(job);
+    }
+
+    /**
+     * Submit the next page of the dump, which is already known to fail. It is
+     * handed to the listener in turn, after the pages before it.
+     *
+     * @param page The page.
+     * @param failure Why it fails.
+     * @param lineNumber The line of the dump the page ends on.
+     * @param entry The number of the page among the processed ones.
+     * @throws IOException if the listener failed to write a result.
+     */
+    public void submit(Page page, final Exception failure, int lineNumber, int entry) throws IOException {
+        this.makeRoom(0);
+
+        Job job = new Job(page, lineNumber, entry, 0);
+        FutureTask<ArrayList<String>> failed = new FutureTask<ArrayList<String>>(new Callable<ArrayList<String>>() {
+            @Override
+            public ArrayList<String> call() throws Exception {
+                throw failure;
+            }
+        });
+        failed.run();
+        job.result = failed;
+        this.add(job);
+    }
+
+    /**
+     * Wait for the oldest pages until there is room for <tt>size</tt> more
+     * bytes.
+     */
+    private void makeRoom(long size) throws IOException {
+        while (!this.inFlight.isEmpty()
+                && (this.inFlight.size() >= this.maxPages || this.bytesInFlight + size > this.maxBytes)) {
+            this.completeOldest();
+        }
+    }
+
+    /**
+     * Add a job to the ones in flight, and hand the results which are done.
+     */
+    private void add(Job job) throws IOException {
+        this.inFlight.add(job);
+        this.bytesInFlight += job.size;
+
+        while (!this.inFlight.isEmpty() && this.inFlight.getFirst().result.isDone()) {
+            this.completeOldest();
+        }
+    }
+
+    /**
+     * Wait for all the submitted pages and stop the workers.
+     *
+     * @throws IOException if the listener failed to write a result.
+     */
+    public void finish() throws IOException {
+        try {
+            while (!this.inFlight.isEmpty()) {
+                this.completeOldest();
+            }
+        } finally {
+            this.executor.shutdownNow();
+            this.slowLane.shutdownNow();
+        }
+    }
+
+    /**
+     * Stop the workers, dropping the pages in flight. For a build which
+     * failed.
+     */
+    public void abort() {
+        this.executor.shutdownNow();
+        this.slowLane.shutdownNow();
+        this.inFlight.clear();
+        this.bytesInFlight = 0;
+    }
+
+    /**
+     * Wait for the oldest page in flight and hand its result.
+     */
+    private void completeOldest() throws IOException {
+        Job job = this.inFlight.removeFirst();
+        this.bytesInFlight -= job.size;
+        ArrayList<String> lines;
+        try {
+            lines = getUninterruptibly(job.result);
+        } catch (ExecutionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            this.listener.failed(job.page, job.lineNumber, job.entry, (Exception) cause);
+            return;
+        }
+        this.listener.completed(job.page, lines,
+                job.context == null ? job.defects : job.context.getDefects());
+    }
+
+    private static <T> T getUninterruptibly(Future<T> future) throws ExecutionException {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return future.get();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return Approximate heap size of <tt>lines</tt>, in bytes.
+     */
+    private static long sizeOf(ArrayList<String> lines) {
+        long size = 0;
+        for (String line : lines) {
+            size += 2L * line.length();
+        }
+        return size;
+    }
+
+    /**
+     * @return Approximate heap size of <tt>page</tt>, in bytes.
+     */
+    private static long sizeOf(Page page) {
+        return 2L * (page.getText().length() + page.getTitle().length());
+    }
+}
@@ -0,0 +1,225 @@
+package dbFileBuilder;
+
+import dbFileBuilder.dump.Page;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import org.json.JSONObject;
+
+/**
+ * The output of an earlier build, with its {@link Manifest}, for an
+ * incremental build.<br>
+ * The entries of a page whose revision sha1 is the same as in the earlier
+ * build are copied from its output, instead of converting the page again.
+ * Pages of the earlier build which are not in the new output get a tombstone.
+ * <br><br>
+ * The copied entries are only as good as the converter which made them; after
+ * the converter is changed, make a full build.
+ * <br><br>
+ * A block compressed output is read through its {@link GzipBlockIndex};
+ * only the blocks which hold the copied entries are decompressed.
+ */
+public class PreviousBuild {
+
+    private final String outputFileName;
+    private final LinkedHashMap<Long, Manifest.Entry> entries;
+    private final RandomAccessFile output;
+    /**
+     * The block index of a compressed output, <tt>null</tt> if it is not
+     * compressed.
+     */
+    private final GzipBlockIndex blocks;
+    /**
+     * The last block which was decompressed, and its data.
+     */
+    private int cachedBlock = -1;
+    private byte[] cachedData;
+
+    /**
+     * Opens the output of an earlier build.
+     *
+     * @param outputFileName The output file of the earlier build. Its
+     * {@link Manifest#fileFor(java.lang.String) manifest} must be next to it.
+     * @throws IOException if the files can't be read, or the output is
+     * shorter than its manifest says.
+     */
+    public PreviousBuild(String outputFileName) throws IOException {
+        this.outputFileName = outputFileName;
+        this.entries = Manifest.read(Manifest.fileFor(outputFileName));
+        this.blocks = GzipBlockIndex.isCompressed(outputFileName)
+                ? new GzipBlockIndex(GzipBlockIndex.fileFor(outputFileName)) : null;
+        this.output = new RandomAccessFile(outputFileName, "r");
+        long end = 0;
+        for (Manifest.Entry entry : this.entries.values()) {
+            end = Math.max(end, entry.getOffset() + entry.getLength());
+        }
+        long length = this.output.length();
+        if (this.blocks != null) { // The uncompressed length of the blocks in the file
+            length = 0;
+            for (int i = 0; i < this.blocks.size()
+                    && this.blocks.getCompressedOffset(i) + this.blocks.getCompressedLength(i) <= this.output.length(); i++) {
+                length += this.blocks.getUncompressedLength(i);
+            }
+        }
+        if (length < end) {
+            this.output.close();
+            throw new IOException("The output is shorter than its manifest: " + outputFileName);
+        }
+    }
+
+    /**
+     * Find the record of a page, if the page did not change since the earlier
+     * build.
+     *
+     * @param page A page of the dump.
+     * @return The record of <tt>page</tt> in the earlier build, or
+     * <tt>null</tt> if it is not there, its sha1 is missing or different, or
+     * it was renamed. The page may have been
+     * {@link Manifest.Entry#isLeftOut() left out} of the earlier output.
+     */
+    public Manifest.Entry findUnchanged(Page page) {
+        Manifest.Entry entry = this.entries.get(page.getId());
+        if (entry == null || entry.getSha1() == null || entry.getSha1().equals(page.getSha1()) == false
+                || entry.getTitle().equals(page.getTitle()) == false) {
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * @return The records of the earlier build, in the order of its output.
+     */
+    public Collection<Manifest.Entry> getEntries() {
+        return this.entries.values();
+    }
+
+    /**
+     * Read the entries of a page from the earlier output.
+     *
+     * @param entry The record of the page.
+     * @return Its JSON lines, as they were written.
+     * @throws IOException if the output can't be read.
+     */
+    public ArrayList<String> read(Manifest.Entry entry) throws IOException {
+        ArrayList<String> lines = new ArrayList<String>();
+        if (entry.getLength() == 0) {
+            return lines;
+        }
+        byte[] bytes = new byte[(int) entry.getLength()];
+        if (this.blocks == null) {
+            this.output.seek(entry.getOffset());
+            this.output.readFully(bytes);
+        } else {
+            int done = 0;
+            while (done < bytes.length) {
+                long offset = entry.getOffset() + done;
+                int block = this.blocks.find(offset);
+                if (block == -1) {
+                    throw new IOException("Offset " + offset + " is not in " + this.outputFileName);
+                }
+                byte[] data = this.decompress(block);
+                int from = (int) (offset - this.blocks.getUncompressedOffset(block));
+                int count = Math.min(bytes.length - done, data.length - from);
+                System.arraycopy(data, from, bytes, done, count);
+                done += count;
+            }
+        }
+        lines.add(new String(bytes, "UTF-8"));
+        return lines;
+    }
+
+    /**
+     * @return The data of a block of a compressed output.
+     */
+    private byte[] decompress(int block) throws IOException {
+        if (block == this.cachedBlock) {
+            return this.cachedData;
+        }
+        byte[] compressed = new byte[(int) this.blocks.getCompressedLength(block)];
+        this.output.seek(this.blocks.getCompressedOffset(block));
+        this.output.readFully(compressed);
+        byte[] data = new byte[(int) this.blocks.getUncompressedLength(block)];
+        InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed));
+        try {
+            int done = 0;
+            while (done < data.length) {
+                int count = in.read(data, done, data.length - done);
+                if (count == -1) {
+                    throw new IOException("Block " + block + " of " + this.outputFileName + " is too short");
+                }
+                done += count;
+            }
+        } finally {
+            in.close();
+        }
+        this.cachedBlock = block;
+        this.cachedData = data;
+        return data;
+    }
+
+    /**
+     * Write a tombstone for each page of the earlier build which is not in the
+     * new one, as one JSON object per line:
+     * <tt>{"page_id":..., "title":..., "deleted":true}</tt>.
+     *
+     * @param current The records of the new build.
+     * @param fileName The name of the file to write.
+     * @return Number of tombstones written.
+     * @throws IOException if the file can't be written.
+     */
+    public int writeTombstones(Map<Long, Manifest.Entry> current, String fileName) throws IOException {
+        int count = 0;
+        Writer writer = new OutputStreamWriter(new FileOutputStream(fileName), Charset.forName("UTF8"));
+        try {
+            for (Manifest.Entry entry : this.entries.values()) {
+                if (current.containsKey(entry.getPageId())) {
+                    continue;
+                }
+                JSONObject jsonObject = new JSONObject();
+                jsonObject.put("page_id", entry.getPageId());
+                jsonObject.put("title", entry.getTitle());
+                jsonObject.put("deleted", true);
+                writer.write(jsonObject.toString() + '\n');
+                count++;
+            }
+        } finally {
+            writer.close();
+        }
+        return count;
+    }
+
+    /**
+     * @param outputFileName The name of the output file.
+     * @return The tombstone file of <tt>outputFileName</tt>.
+     */
+    public static File tombstonesFor(String outputFileName) {
+        return new File(outputFileName + ".tombstones");
+    }
+
+    /**
+     * Close the earlier output.
+     */
+    public void close() {
+        try {
+            this.output.close();
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.outputFileName;
+    }
+}
@@ -0,0 +1,118 @@
+package dbFileBuilder;
+
+import dbFileBuilder.dump.Page;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+/**
+ * Dead-letter file for the pages which failed to convert.<br>
+ * Each failed page is written with its title, the line of the dump it ends
+ * on, the stack trace of the failure and its text, so it can be examined and
+ * fixed without running the whole build again.
+ */
+public class Quarantine {
+
+    private static final String SEPARATOR
+            = "---------------------------------------------------------------------------------------------------";
+    private final String fileName;
+    private final FileOutputStream fileOutputStream;
+    private final PrintWriter printWriter;
+    /**
+     * Number of pages written to the file.
+     */
+    private int failures = 0;
+
+    /**
+     * Creates a new <tt>Quarantine</tt>, replacing the file if it exists.
+     *
+     * @param fileName The name of the dead-letter file.
+     * @throws IOException if the file can't be created.
+     */
+    public Quarantine(String fileName) throws IOException {
+        this(fileName, 0, 0);
+    }
+
+    /**
+     * Creates a new <tt>Quarantine</tt> which continues an existing file, from
+     * a {@link Checkpoint}.
+     *
+     * @param fileName The name of the dead-letter file.
+     * @param length Number of bytes of the file to keep.
+     * @param failures Number of pages in those bytes.
+     * @throws IOException if the file can't be opened.
+     */
+    public Quarantine(String fileName, long length, int failures) throws IOException {
+        this.fileName = fileName;
+        this.failures = failures;
+        RandomAccessFile truncator = new RandomAccessFile(fileName, "rw");
+        try {
+            truncator.setLength(length);
+        } finally {
+            truncator.close();
+        }
+        this.fileOutputStream = new FileOutputStream(fileName, true);
+        this.printWriter = new PrintWriter(new BufferedWriter(new OutputStreamWriter(
+                this.fileOutputStream, Charset.forName("UTF8"))));
+    }
+
+    /**
+     * Write a failed page to the file.
+     *
+     * @param page The page which failed.
+     * @param lineNumber The line of the dump the page ends on.
+     * @param entry The number of the page among the processed ones.
+     * @param e The failure.
+     */
+    public void add(Page page, int lineNumber, int entry, Exception e) {
+        this.failures++;
+        this.printWriter.println(SEPARATOR);
+        this.printWriter.println("Title             : " + page.getTitle());
+        this.printWriter.println("Page Id           : " + page.getId());
+        this.printWriter.println("Line Count        : " + lineNumber);
+        this.printWriter.println("Entry To Process  : " + entry);
+        e.printStackTrace(this.printWriter);
+        this.printWriter.println("Wiktionary Entry Text :");
+        this.printWriter.println(page.getText());
+        // Flushed at once: the file is most needed when the build dies.
+        this.printWriter.flush();
+        if (this.printWriter.checkError()) {
+            System.out.println("Failed to write to " + this.fileName);
+        }
+    }
+
+    /**
+     * Flush the written pages all the way to the disk.
+     *
+     * @return The length of the file, in bytes.
+     * @throws IOException if the data can't be flushed.
+     */
+    public long sync() throws IOException {
+        this.printWriter.flush();
+        this.fileOutputStream.getFD().sync();
+        return this.fileOutputStream.getChannel().position();
+    }
+
+    /**
+     * @return Number of pages written to the file.
+     */
+    public int getFailures() {
+        return this.failures;
+    }
+
+    /**
+     * Close the file.
+     */
+    public void close() {
+        this.printWriter.close();
+    }
+
+    @Override
+    public String toString() {
+        return this.fileName;
+    }
+}
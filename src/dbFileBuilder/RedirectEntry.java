@@ -23,9 +23,20 @@ public class RedirectEntry {
      * @param document to retrieve data from.
      */
     public RedirectEntry(Document document) {
-        this.title = document.getElementsByTagName("title").item(0).getTextContent();
+        this(document.getElementsByTagName("title").item(0).getTextContent(),
+                document.getElementsByTagName("text").item(0).getTextContent());
+    }
+
+    /**
+     * Creates a new redirect entry.
+     *
+     * @param title of the redirect page.
+     * @param text of the redirect page, e.g. <tt>#הפניה [[entry]]</tt>.
+     */
+    public RedirectEntry(String title, String text) {
+        this.title = title;
 
-        this.where_to_redirect = document.getElementsByTagName("text").item(0).getTextContent();
+        this.where_to_redirect = text;
 
         String fullText = this.title + this.where_to_redirect;
         if (fullText.contains("שורש")
@@ -0,0 +1,394 @@
+package dbFileBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Runtime setting of a build, parsed from the command line arguments.<br>
+ * Each argument has the form <tt>--name=value</tt>, or <tt>--name</tt> for a
+ * flag; every setting which is not given keeps its default value.
+ */
+public class Settings {
+
+    /**
+     * The ways the XML dump can be read.
+     */
+    public enum ReaderMode {
+
+        /**
+         * Stream the dump once with a StAX parser.
+         *
+         * @see dbFileBuilder.dump.StaxPageReader
+         */
+        STAX,
+        /**
+         * Collect each page line by line and parse it to a DOM.
+         *
+         * @see dbFileBuilder.dump.DomPageReader
+         */
+        DOM,
+        /**
+         * Map the uncompressed dump to memory and stream it from there to a
+         * StAX parser. A compressed dump is streamed as with {@link #STAX}.
+         *
+         * @see dbFileBuilder.dump.MappedDumpInputStream
+         */
+        MAPPED
+    }
+
+    /**
+     * The ways the HTML of an article can be read for its JSON.
+     */
+    public enum Engine {
+
+        /**
+         * Parse it with Jsoup.
+         */
+        JSOUP,
+        /**
+         * Read the markup the wiki renderer writes straight to a light tree,
+         * and leave to Jsoup only the articles it can't read.
+         *
+         * @see dbFileBuilder.json.JSON
+         */
+        DIRECT
+    }
+    private String inputFileName = Globals.INPUT_FILE_NAME;
+    private String outputFileName = Globals.OUTPUT_FILE_NAME;
+    private ReaderMode readerMode = ReaderMode.STAX;
+    private Engine engine = Engine.JSOUP;
+    private String indexFileName = null;
+    private int decompressionThreads = Runtime.getRuntime().availableProcessors();
+    private int compressionThreads = Runtime.getRuntime().availableProcessors();
+    private int threads = 1;
+    private int maxPagesInFlight = 256;
+    private long maxBytesInFlight = 64L << 20;
+    private String quarantineFileName = null;
+    private int maxFailures = 0;
+    private long maxPageSize = 0;
+    private int maxPageTime = 0;
+    private boolean skipOversized = false;
+    private boolean resume = false;
+    private int checkpointInterval = 60;
+    private String previousFileName = null;
+    private List<String> changeFileNames = null;
+
+    /**
+     * Creates <tt>Settings</tt> with the default values.
+     */
+    public Settings() {
+    }
+
+    /**
+     * Parse the command line arguments.
+     *
+     * @param args the command line arguments.
+     * @return The settings.
+     * @throws IllegalArgumentException if an argument is unknown or has a bad
+     * value.
+     */
+    public static Settings parse(String[] args) throws IllegalArgumentException {
+        Settings settings = new Settings();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Bad argument: " + arg);
+            }
+            if (arg.equals("--resume")) {
+                settings.resume = true;
+                continue;
+            }
+            if (arg.equals("--skip-oversized")) {
+                settings.skipOversized = true;
+                continue;
+            }
+            int index = arg.indexOf('=');
+            if (index == -1) {
+                throw new IllegalArgumentException("Bad argument: " + arg);
+            }
+            String name = arg.substring(2, index);
+            String value = arg.substring(index + 1);
+
+            if (name.equals("input")) {
+                settings.inputFileName = value;
+            } else if (name.equals("output")) {
+                settings.outputFileName = value;
+            } else if (name.equals("reader")) {
+                settings.readerMode = ReaderMode.valueOf(value.toUpperCase());
+            } else if (name.equals("engine")) {
+                settings.engine = Engine.valueOf(value.toUpperCase());
+            } else if (name.equals("index")) {
+                settings.indexFileName = value;
+            } else if (name.equals("bz2-threads")) {
+                settings.decompressionThreads = Integer.parseInt(value);
+                if (settings.decompressionThreads < 1) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("gzip-threads")) {
+                settings.compressionThreads = Integer.parseInt(value);
+                if (settings.compressionThreads < 1) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("threads")) {
+                settings.threads = Integer.parseInt(value);
+                if (settings.threads < 1) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("max-pages-in-flight")) {
+                settings.maxPagesInFlight = Integer.parseInt(value);
+                if (settings.maxPagesInFlight < 1) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("quarantine")) {
+                settings.quarantineFileName = value;
+            } else if (name.equals("max-failures")) {
+                settings.maxFailures = Integer.parseInt(value);
+                if (settings.maxFailures < 0) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("max-bytes-in-flight")) {
+                settings.maxBytesInFlight = parseSize(value);
+                if (settings.maxBytesInFlight < 1) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("max-page-size")) {
+                settings.maxPageSize = parseSize(value);
+                if (settings.maxPageSize < 0) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("max-page-time")) {
+                settings.maxPageTime = Integer.parseInt(value);
+                if (settings.maxPageTime < 0) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else if (name.equals("previous")) {
+                settings.previousFileName = value;
+            } else if (name.equals("apply")) {
+                settings.changeFileNames = new ArrayList<String>(Arrays.asList(value.split(",")));
+            } else if (name.equals("checkpoint-interval")) {
+                settings.checkpointInterval = Integer.parseInt(value);
+                if (settings.checkpointInterval < 0) {
+                    throw new IllegalArgumentException("Bad argument: " + arg);
+                }
+            } else {
+                throw new IllegalArgumentException("Unknown argument: " + arg);
+            }
+        }
+        if (settings.changeFileNames != null) {
+            if (settings.previousFileName == null) {
+                throw new IllegalArgumentException("--apply needs --previous");
+            }
+            if (settings.resume) {
+                throw new IllegalArgumentException("--resume can't be used with --apply");
+            }
+        }
+        if (settings.skipOversized && settings.maxPageSize == 0) {
+            throw new IllegalArgumentException("--skip-oversized needs --max-page-size");
+        }
+        return settings;
+    }
+
+    /**
+     * Parse a size in bytes, with an optional <tt>k</tt>, <tt>m</tt> or
+     * <tt>g</tt> suffix.
+     *
+     * @param value The size.
+     * @return The size in bytes.
+     * @throws NumberFormatException if <tt>value</tt> is not a size.
+     */
+    private static long parseSize(String value) throws NumberFormatException {
+        String lower = value.toLowerCase();
+        int shift = 0;
+        if (lower.endsWith("k")) {
+            shift = 10;
+        } else if (lower.endsWith("m")) {
+            shift = 20;
+        } else if (lower.endsWith("g")) {
+            shift = 30;
+        }
+        if (shift != 0) {
+            lower = lower.substring(0, lower.length() - 1);
+        }
+        return Long.parseLong(lower) << shift;
+    }
+
+    /**
+     * @return Description of the accepted arguments.
+     */
+    public static String usage() {
+        return "Arguments (all optional):"
+                + "\n\t--input=<file>        XML dump to read (default: " + Globals.INPUT_FILE_NAME + ")"
+                + "\n\t--output=<file>       JSON file to write; gzip compressed in blocks if it ends with .gz (default: " + Globals.OUTPUT_FILE_NAME + ")"
+                + "\n\t--reader=stax|dom|mapped  How to read the dump; mapped is for an uncompressed dump (default: stax)"
+                + "\n\t--engine=jsoup|direct How to read the HTML of an article for its JSON (default: jsoup)"
+                + "\n\t--index=<file>        Index of a multistream .bz2 dump (default: next to the dump)"
+                + "\n\t--bz2-threads=<n>     Threads decompressing a multistream dump (default: number of cores)"
+                + "\n\t--gzip-threads=<n>    Threads compressing a .gz output (default: number of cores)"
+                + "\n\t--threads=<n>         Threads converting pages; 1 converts on the reading thread (default: 1)"
+                + "\n\t--max-pages-in-flight=<n>  Pages read ahead of the output (default: 256)"
+                + "\n\t--max-bytes-in-flight=<n>  Size of the pages read ahead of the output, k/m/g suffix allowed (default: 64m)"
+                + "\n\t--quarantine=<file>   Write pages which fail to this file and go on, instead of stopping"
+                + "\n\t--max-failures=<n>    With --quarantine, exit with an error if more pages fail (default: 0)"
+                + "\n\t--max-page-size=<n>   Pages whose text is longer, in chars, are converted one section at a time on a lane of their own; k/m/g suffix allowed, 0 for no limit (default: 0)"
+                + "\n\t--skip-oversized      Leave the pages over --max-page-size out of the output instead"
+                + "\n\t--max-page-time=<seconds>  Leave a page out of the output if its conversion takes longer; checked between sections, 0 for no limit (default: 0)"
+                + "\n\t--checkpoint-interval=<seconds>  How often to save a checkpoint of the build; 0 disables (default: 60)"
+                + "\n\t--resume              Continue a build which died from its last checkpoint"
+                + "\n\t--previous=<file>     Output of an earlier build; copy the entries of the pages which did not change from it"
+                + "\n\t--apply=<file>[,<file>...]  With --previous, apply incremental (adds-changes) dumps, oldest first, to it instead of reading --input";
+    }
+
+    /**
+     * @return The name of the input file.
+     */
+    public String getInputFileName() {
+        return this.inputFileName;
+    }
+
+    /**
+     * @return The name of the output file.
+     */
+    public String getOutputFileName() {
+        return this.outputFileName;
+    }
+
+    /**
+     * @return The name of the index of a multistream dump. Unless it was
+     * given, <tt>{@literal <}dump{@literal >}-index.txt.bz2</tt> next to the
+     * dump, where <tt>{@literal <}dump{@literal >}</tt> is the name of the
+     * input file without <tt>.xml.bz2</tt>.
+     */
+    public String getIndexFileName() {
+        if (this.indexFileName != null) {
+            return this.indexFileName;
+        }
+        if (this.inputFileName.endsWith(".xml.bz2")) {
+            return this.inputFileName.substring(0, this.inputFileName.length() - ".xml.bz2".length())
+                    + "-index.txt.bz2";
+        }
+        return null;
+    }
+
+    /**
+     * @return Number of threads decompressing a multistream dump.
+     */
+    public int getDecompressionThreads() {
+        return this.decompressionThreads;
+    }
+
+    /**
+     * @return Number of threads compressing a <tt>.gz</tt> output.
+     */
+    public int getCompressionThreads() {
+        return this.compressionThreads;
+    }
+
+    /**
+     * @return Number of threads converting pages.
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * @return Maximum number of pages read ahead of the output.
+     */
+    public int getMaxPagesInFlight() {
+        return this.maxPagesInFlight;
+    }
+
+    /**
+     * @return Maximum size, in bytes, of the pages read ahead of the output.
+     */
+    public long getMaxBytesInFlight() {
+        return this.maxBytesInFlight;
+    }
+
+    /**
+     * @return The name of the dead-letter file for pages which fail, or
+     * <tt>null</tt> to stop the build on the first one.
+     */
+    public String getQuarantineFileName() {
+        return this.quarantineFileName;
+    }
+
+    /**
+     * @return Number of failed pages a quarantined build may have and still
+     * succeed.
+     */
+    public int getMaxFailures() {
+        return this.maxFailures;
+    }
+
+    /**
+     * @return The length of the text of a page, in chars, over which the page
+     * is oversized, <tt>0</tt> for no limit.
+     * @see #isSkipOversized()
+     */
+    public long getMaxPageSize() {
+        return this.maxPageSize;
+    }
+
+    /**
+     * @return <tt>true</tt> to leave the oversized pages out of the output,
+     * <tt>false</tt> to convert them one section at a time on a lane of
+     * their own.
+     */
+    public boolean isSkipOversized() {
+        return this.skipOversized;
+    }
+
+    /**
+     * @return Seconds the conversion of a page may take, <tt>0</tt> for no
+     * limit.
+     */
+    public int getMaxPageTime() {
+        return this.maxPageTime;
+    }
+
+    /**
+     * @return <tt>true</tt> to continue a build from its {@link Checkpoint}.
+     */
+    public boolean isResume() {
+        return this.resume;
+    }
+
+    /**
+     * @return Seconds between two {@link Checkpoint checkpoints}, <tt>0</tt>
+     * for none.
+     */
+    public int getCheckpointInterval() {
+        return this.checkpointInterval;
+    }
+
+    /**
+     * @return The output file of an earlier build to copy the entries of
+     * unchanged pages from, or <tt>null</tt> to convert all the pages.
+     */
+    public String getPreviousFileName() {
+        return this.previousFileName;
+    }
+
+    /**
+     * @return The incremental dumps to apply to the
+     * {@link #getPreviousFileName() previous} build, oldest first, or
+     * <tt>null</tt> to read the {@link #getInputFileName() input} file.
+     */
+    public List<String> getChangeFileNames() {
+        return this.changeFileNames;
+    }
+
+    /**
+     * @return How to read the dump.
+     */
+    public ReaderMode getReaderMode() {
+        return this.readerMode;
+    }
+
+    /**
+     * @return How to read the HTML of an article for its JSON.
+     */
+    public Engine getEngine() {
+        return this.engine;
+    }
+}
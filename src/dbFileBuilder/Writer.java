@@ -1,22 +1,98 @@
 package dbFileBuilder;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
 import java.nio.charset.UnsupportedCharsetException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 
 /**
- * Writes text to a given file.
+ * Writes text to a given file.<br>
+ * The text is encoded to UTF-8 into one of two large direct buffers. When it
+ * is full, it is handed to a writer thread which writes it to the file's
+ * {@link FileChannel}, and the text goes on into the other buffer. So writing
+ * to the disk overlaps with making the text; the caller waits only when both
+ * buffers are full.
+ * <br><br>
+ * When the name of the file ends with <tt>.gz</tt>, each full buffer is
+ * compressed as a block of its own, on several threads, see
+ * {@link GzipBlockWriter}.
+ * <br><br>
+ * A failure of the writer thread is thrown to the caller, by the next
+ * {@link #write(java.lang.String) write}, {@link #sync() sync} or
+ * {@link #close() close}.
  */
 public class Writer {
 
+    /**
+     * Size of each buffer, in bytes.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /**
+     * Handed to the writer thread to stop it.
+     */
+    private static final ByteBuffer END = ByteBuffer.allocate(0);
+    /**
+     * Handed to the writer thread to write everything it has.
+     */
+    private static final ByteBuffer FLUSH = ByteBuffer.allocate(0);
     private File file;
-    private FileOutputStream fileOutputStream;
-    private OutputStreamWriter outputStreamWriter;
-    private BufferedWriter bufferWriter;
+    private RandomAccessFile randomAccessFile;
+    private FileChannel channel;
+    private final CharsetEncoder encoder = Charset.forName("UTF8").newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    /**
+     * The buffer being filled.
+     */
+    private ByteBuffer current;
+    /**
+     * Buffers to be written, in order.
+     */
+    private final BlockingQueue<ByteBuffer> full = new ArrayBlockingQueue<ByteBuffer>(3);
+    /**
+     * Buffers which were written, ready to be filled.
+     */
+    private final BlockingQueue<ByteBuffer> free = new ArrayBlockingQueue<ByteBuffer>(2);
+    /**
+     * Signals that the writer thread handled a {@link #FLUSH}.
+     */
+    private final BlockingQueue<Boolean> flushed = new ArrayBlockingQueue<Boolean>(1);
+    /**
+     * Compresses the output, <tt>null</tt> if it is not compressed.
+     */
+    private GzipBlockWriter gzip = null;
+    private Thread writerThread;
+    /**
+     * The failure of the writer thread, if any.
+     */
+    private volatile IOException error = null;
+    /**
+     * Length of the data in bytes, uncompressed, including the data which was
+     * not written yet.
+     */
+    private long length;
+    /**
+     * Length of the file when it was opened.
+     */
+    private long initialLength;
+    /**
+     * Number of bytes the writer thread wrote.
+     */
+    private volatile long bytesWritten = 0;
+    /**
+     * Time the caller waited for the writer thread, in nanoseconds.
+     */
+    private long stallTime = 0;
+    private boolean closed = false;
 
     /**
      * Constructs a Writer object given a file name.
@@ -26,8 +102,45 @@ public class Writer {
      * {@link System#setProperty system} property is not set to
      * <tt>UTF-8</tt>
      * an <tt>UnsupportedCharsetException</tt> is thrown.
+     * @throws IOException if the file can't be opened.
+     */
+    public Writer(String fileName) throws UnsupportedCharsetException, IOException {
+        this(fileName, 0);
+    }
+
+    /**
+     * Constructs a Writer object given a file name, which keeps the first
+     * <tt>length</tt> bytes of the file and appends after them.
+     *
+     * @param fileName The name of file to write.
+     * @param length Number of bytes of the file to keep.
+     * @exception UnsupportedCharsetException If the <tt>file.encoding</tt>
+     * {@link System#setProperty system} property is not set to
+     * <tt>UTF-8</tt>
+     * an <tt>UnsupportedCharsetException</tt> is thrown.
+     * @throws IOException if the file can't be opened.
      */
-    public Writer(String fileName) throws UnsupportedCharsetException {
+    public Writer(String fileName, long length) throws UnsupportedCharsetException, IOException {
+        this(fileName, length, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Constructs a Writer object given a file name, which keeps the first
+     * <tt>length</tt> bytes of the file and appends after them.
+     *
+     * @param fileName The name of file to write.
+     * @param length Number of bytes of the file to keep. For a compressed
+     * file, it must be a length {@link #sync() sync} returned.
+     * @param compressionThreads Number of threads compressing a
+     * <tt>.gz</tt> file.
+     * @exception UnsupportedCharsetException If the <tt>file.encoding</tt>
+     * {@link System#setProperty system} property is not set to
+     * <tt>UTF-8</tt>
+     * an <tt>UnsupportedCharsetException</tt> is thrown.
+     * @throws IOException if the file can't be opened.
+     */
+    public Writer(String fileName, long length, int compressionThreads)
+            throws UnsupportedCharsetException, IOException {
         if (System.getProperty("file.encoding").equalsIgnoreCase("UTF-8") == false) {
             String explainString // Chack whether the encoding property is correct
                     = "\n\tThe system property: \"file.encoding\" should set to \"UTF-8\"."
@@ -36,18 +149,36 @@ public class Writer {
             throw new UnsupportedCharsetException(explainString);
         }
 
-        try {
-            this.file = new File(fileName);
-
-            if (this.file.exists() == false) {//if file doesnt exists, then create it
-                this.file.createNewFile();
+        this.file = new File(fileName);
+        this.randomAccessFile = new RandomAccessFile(this.file, "rw");
+        this.randomAccessFile.setLength(length);
+        this.channel = this.randomAccessFile.getChannel();
+        this.channel.position(length);
+        this.length = length;
+        this.initialLength = length;
+        if (GzipBlockIndex.isCompressed(fileName)) {
+            try {
+                this.gzip = new GzipBlockWriter(this.channel, GzipBlockIndex.fileFor(fileName),
+                        length, compressionThreads);
+            } catch (IOException ex) {
+                this.randomAccessFile.close();
+                throw ex;
             }
+            this.length = this.gzip.getUncompressedLength();
+        }
 
-            this.fileOutputStream = new FileOutputStream(this.file);
-            this.outputStreamWriter = new OutputStreamWriter(this.fileOutputStream, Charset.forName("UTF8"));
-            this.bufferWriter = new BufferedWriter(this.outputStreamWriter);
+        this.current = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        this.free.add(ByteBuffer.allocateDirect(BUFFER_SIZE));
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBuffers();
+            }
+        }, "output-writer");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
 
-            //<editor-fold defaultstate="collapsed" desc="would you like to test?">
+        //<editor-fold defaultstate="collapsed" desc="would you like to test?">
 //            this.write("<!DOCTYPE html>\n"
 //                    + "<html>\n"
 //                    + "    <head>\n"
@@ -57,12 +188,46 @@ public class Writer {
 //                    + "       <link href=\"style.css\" rel=\"stylesheet\" type=\"text/css\" media=\"all\">\n"
 //                    + "    </head>\n"
 //                    + "    <body>\n");
-            //</editor-fold>
-        } catch (IOException ex) {
-            System.out.println(ex);
-            for (StackTraceElement el : ex.getStackTrace()) {
-                System.out.println(el);
+        //</editor-fold>
+    }
+
+    /**
+     * The loop of the writer thread.
+     */
+    private void writeBuffers() {
+        while (true) {
+            ByteBuffer buffer = takeUninterruptibly(this.full);
+            if (buffer == END) {
+                return;
             }
+            if (buffer == FLUSH) {
+                if (this.gzip != null && this.error == null) {
+                    try {
+                        this.gzip.flush();
+                        this.bytesWritten = this.gzip.getCompressedLength() - this.initialLength;
+                    } catch (IOException ex) {
+                        this.error = ex;
+                    }
+                }
+                putUninterruptibly(this.flushed, Boolean.TRUE);
+                continue;
+            }
+            if (this.error == null) {
+                try {
+                    if (this.gzip != null) {
+                        this.gzip.write(buffer);
+                        this.bytesWritten = this.gzip.getCompressedLength() - this.initialLength;
+                    } else {
+                        while (buffer.hasRemaining()) {
+                            this.bytesWritten += this.channel.write(buffer);
+                        }
+                    }
+                } catch (IOException ex) {
+                    this.error = ex;
+                }
+            }
+            buffer.clear();
+            putUninterruptibly(this.free, buffer);
         }
     }
 
@@ -70,28 +235,169 @@ public class Writer {
      * Append data to the file.
      *
      * @param data to append.
+     * @throws IOException if the writer thread failed.
      */
-    public void write(String data) {
-        try {
-            this.bufferWriter.write(data);
-        } catch (IOException ex) {
-            System.out.println(ex);
-            for (StackTraceElement el : ex.getStackTrace()) {
-                System.out.println(el);
+    public void write(String data) throws IOException {
+        this.checkError();
+        CharBuffer in = CharBuffer.wrap(data);
+        int start = this.current.position();
+        this.encoder.reset();
+        while (true) {
+            CoderResult result = this.encoder.encode(in, this.current, true);
+            if (result.isOverflow() == false) {
+                result = this.encoder.flush(this.current);
+            }
+            if (result.isOverflow() == false) {
+                break;
             }
+            this.length += this.current.position() - start;
+            this.handOff();
+            start = 0;
+        }
+        this.length += this.current.position() - start;
+    }
+
+    /**
+     * Hand the current buffer to the writer thread, and take a free one.
+     */
+    private void handOff() throws IOException {
+        this.current.flip();
+        putUninterruptibly(this.full, this.current);
+        this.current = this.takeFree();
+    }
+
+    /**
+     * @return A free buffer, waiting for the writer thread if there is none.
+     */
+    private ByteBuffer takeFree() throws IOException {
+        ByteBuffer buffer = this.free.poll();
+        if (buffer == null) {
+            long start = System.nanoTime();
+            buffer = takeUninterruptibly(this.free);
+            this.stallTime += System.nanoTime() - start;
         }
+        this.checkError();
+        return buffer;
+    }
+
+    /**
+     * Wait until all the data was written to the channel.
+     */
+    private void drain() throws IOException {
+        if (this.current.position() != 0) {
+            this.handOff();
+        }
+        putUninterruptibly(this.full, FLUSH);
+        long start = System.nanoTime();
+        takeUninterruptibly(this.flushed);
+        this.stallTime += System.nanoTime() - start;
+        this.checkError();
+    }
+
+    private void checkError() throws IOException {
+        if (this.error != null) {
+            throw new IOException("Failed to write to " + this.file, this.error);
+        }
+    }
+
+    /**
+     * @return Length of the data in bytes, uncompressed, including the data
+     * which was not written yet.
+     */
+    public long getLength() {
+        return this.length;
+    }
+
+    /**
+     * @return Number of bytes written to the file so far.
+     */
+    public long getBytesWritten() {
+        return this.bytesWritten;
+    }
+
+    /**
+     * @return Time spent waiting for the writer thread, in milliseconds.
+     */
+    public long getStallTime() {
+        return this.stallTime / 1000000;
+    }
+
+    /**
+     * Flush the written data all the way to the disk. A compressed file ends
+     * a block here.
+     *
+     * @return The length of the file, in bytes.
+     * @throws IOException if the data can't be flushed.
+     */
+    public long sync() throws IOException {
+        this.drain();
+        this.channel.force(true);
+        return this.channel.position();
     }
 
     /**
-     * Close the <tt>writer</tt>.
+     * Close the <tt>writer</tt>, after all the data was written.
+     *
+     * @throws IOException if the data can't be written.
      */
-    public void close() {
+    public void close() throws IOException {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
         try {
-            this.bufferWriter.close();
-        } catch (IOException ex) {
-            System.out.println(ex);
-            for (StackTraceElement el : ex.getStackTrace()) {
-                System.out.println(el);
+            this.drain();
+        } finally {
+            putUninterruptibly(this.full, END);
+            boolean interrupted = false;
+            while (this.writerThread.isAlive()) {
+                try {
+                    this.writerThread.join();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (this.gzip != null) {
+                this.gzip.close();
+            }
+            this.randomAccessFile.close();
+        }
+    }
+
+    private static <T> T takeUninterruptibly(BlockingQueue<T> queue) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return queue.take();
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static <T> void putUninterruptibly(BlockingQueue<T> queue, T element) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    queue.put(element);
+                    return;
+                } catch (InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
             }
         }
     }
@@ -1,8 +1,10 @@
 package dbFileBuilder.article;
 
 import dbFileBuilder.RegEx;
+import dbFileBuilder.article.RuleSet.Rule;
 import dbFileBuilder.article.nituachDikduki.NituachDikduki;
-import dbFileBuilder.wiki.Wiki;
+import dbFileBuilder.article.nituachDikduki.Position;
+import dbFileBuilder.utilities.TextSlice;
 import java.util.ArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -13,9 +15,55 @@ import org.json.JSONArray;
  */
 public class Article {
 
-    private static Pattern pattern;
-    private static Matcher matcher;
-    private static Wiki wiki = new Wiki();
+    /**
+     * Receives the articles of a page one at a time, each as soon as it is
+     * made.
+     *
+     * @see Article#getArticles(java.lang.String, java.lang.String,
+     * dbFileBuilder.article.ConversionContext,
+     * dbFileBuilder.article.Article.Receiver)
+     */
+    public interface Receiver {
+
+        /**
+         * @param article The next article of the page. May be empty.
+         */
+        void receive(Article article);
+    }
+
+    /**
+     * The irrelevant parts of a page, and the misspellings to fix.
+     *
+     * @see #removeIrrelevants(String)
+     */
+    private static final RuleSet IRRELEVANTS = new RuleSet(
+            Rule.remove("{{להשלים|כל הערך=כן}}"),
+            // Subheading should be H3 not h2 - fix it
+            Rule.replace("==", Patterns.SEE_ALSO_MISTAKE, "===ראו גם==="),
+            Rule.replace("==", Patterns.SYNONYM_MISTAKE, "===מילים נרדפות==="),
+            Rule.remove("{{פירוש נוסף", Patterns.ANOTHER_MEANING),
+            // Markup say tohen einyanim(index). not needed!
+            Rule.remove("{{תוכן}}"),
+            Rule.remove("{{תוכן|", Pattern.compile("\\{\\{תוכן\\|.*[\\}\\}]")),
+            Rule.remove("{{חסר|", Pattern.compile("\\{\\{חסר\\|.*[\\}\\}]")),
+            // Strange Markup. TODO: what is it for?
+            Rule.remove("{{כ}}"));
+    private static final String STUB = "stub";
+    private static final String IS_COMPLETED = "isCompleted";
+    private static final String ROOT = "root";
+    private static final String REWRITING = "rewriting";
+    private static final String CATEGORY = "category";
+    /**
+     * The simple wiki patterns saved from the content.
+     *
+     * @see PatternFinder
+     */
+    private static final RuleSet PATTERNS = new RuleSet(
+            Rule.record(STUB, "{{קצרמר}}", Patterns.STUB),
+            Rule.record(IS_COMPLETED, "{{להשלים", Patterns.IS_COMPLETED),
+            Rule.record(ROOT, "{{שורש|", Patterns.ROOT),
+            Rule.record(REWRITING, "{{לשכתוב}}", Patterns.REWRITING),
+            Rule.record(CATEGORY, "[[קטגוריה:", Patterns.CATEGORIES));
     /**
      * Text title of the article.
      */
@@ -38,27 +86,26 @@ public class Article {
      * Creates a new <tt>Article</tt>.
      *
      * @param title of the Article.
-     * @param mwContent of the Article in media Wiki markup.
+     * @param content of the Article in media Wiki markup, as a view of the
+     * page. It is first copied where it is changed.
+     * @param context of the conversion.
+     * @param check <tt>true</tt> to check it is not
+     * {@link PageClassifier#acceptsSection(CharSequence) dropped}.
      * @see Article#getArticles
      */
-    private Article(final String title, final String content) {
+    private Article(final String title, CharSequence content, final ConversionContext context, final boolean check) {
+        context.checkTime();
         this.title = title;
-        this.content = content;
 
-        if (NituachDikduki.isNeeded(this.content)) {
-            this.nd = new NituachDikduki(this.content);
-            this.content = this.nd.getWikiEntryWithoutND();
+        Position ndPosition = NituachDikduki.find(content);
+        if (ndPosition != null) {
+            this.nd = new NituachDikduki(content, ndPosition);
+            content = this.nd.getWikiEntryWithoutND();
         }
 
-        if (NSWMP.isAGoodEntry(this.content, this.title)) {
-            this.content = SpecialTreatment.act(this.content);
-            this.content = NSWMP.preprocessor(this.content);
-            this.content = NSWMP.flattenTable(this.content);
-            this.content = NSWMP.flattenIndent(this.content);
-            this.content = NSWMP.convertToWikiIndent(this.content);
-
-            this.findPatterns();
-            this.content = wiki.process(this.content);
+        if (check == false || PageClassifier.acceptsSection(content) == true) {
+            String[] lines = NSWMP.lines(SpecialTreatment.act(content), new PatternFinder());
+            this.content = context.getWiki().process(lines);
         } else {
             this.content = "";
         }
@@ -146,29 +193,67 @@ public class Article {
     }
 
     /**
-     * Get raw text and cut it to separated {@link  Article}s
+     * Get raw text and cut it to separated {@link  Article}s, in a new
+     * {@link ConversionContext}.
      *
      * @param title The title of all the {@link  Article}s
      * @param textToAnalyze raw text which will be the {@link  Article}s
      * @return list of Articles made of <tt>textToAnalyze</tt>.
      */
     public static ArrayList<Article> getArticles(String title, String textToAnalyze) {
-        ArrayList<Article> listToReturn = new ArrayList<Article>();
+        return getArticles(title, textToAnalyze, new ConversionContext());
+    }
+
+    /**
+     * Get raw text and cut it to separated {@link  Article}s
+     *
+     * @param title The title of all the {@link  Article}s
+     * @param textToAnalyze raw text which will be the {@link  Article}s
+     * @param context of the conversion.
+     * @return list of Articles made of <tt>textToAnalyze</tt>.
+     */
+    public static ArrayList<Article> getArticles(String title, String textToAnalyze, ConversionContext context) {
+        final ArrayList<Article> listToReturn = new ArrayList<Article>();
+        getArticles(title, textToAnalyze, context, new Receiver() {
+            @Override
+            public void receive(Article article) {
+                listToReturn.add(article);
+            }
+        });
+
+        for (int i = 0; i < listToReturn.size(); i++) {
+            if (listToReturn.get(i).content.isEmpty()) {
+                listToReturn.remove(i);
+            }
+        }
+        return listToReturn;
+    }
+
+    /**
+     * Get raw text and cut it to separated {@link  Article}s, which are handed
+     * to <tt>receiver</tt> in order, each before the next one is made.
+     *
+     * @param title The title of all the {@link  Article}s
+     * @param textToAnalyze raw text which will be the {@link  Article}s
+     * @param context of the conversion.
+     * @param receiver of the Articles made of <tt>textToAnalyze</tt>.
+     */
+    public static void getArticles(String title, String textToAnalyze, ConversionContext context,
+            Receiver receiver) {
         ArrayList<Integer> pos = new ArrayList<Integer>();
-        String tmp;
+        CharSequence tmp;
 
-        if (RegEx.find(Patterns.WRONG_SPELLING, textToAnalyze) == true) {
-            // Those are not needed.
-            //  Uncomment to watch them
-            // System.out.println(textToAnalyze);
-            return listToReturn;
+        PageClassifier.Verdict verdict = PageClassifier.classify(title, textToAnalyze);
+        if (verdict == PageClassifier.Verdict.REJECT) {
+            return;
         }
+        boolean check = verdict == PageClassifier.Verdict.CHECK_SECTIONS;
 
-        pattern = Patterns.SECTION_HEADING;
+        Pattern pattern = Patterns.SECTION_HEADING;
 
-        textToAnalyze = removeIrrelevants(textToAnalyze);
+        CharSequence text = removeIrrelevants(textToAnalyze);
 
-        matcher = pattern.matcher(textToAnalyze);
+        Matcher matcher = pattern.matcher(text);
         while (matcher.find()) {
             if (matcher.group().contains("קישורים חיצוניים") == true) {
                 continue;
@@ -181,41 +266,34 @@ public class Article {
         }
 
         if (pos.isEmpty() == true) { // Just one dictionary entry in text.
-            if (textToAnalyze.isEmpty()) {
-                return listToReturn;
+            if (text.length() == 0) {
+                return;
             }
-            listToReturn.add(new Article(title, textToAnalyze));
-            return listToReturn;
+            receiver.receive(new Article(title, text, context, check));
+            return;
         }
         if (pos.size() == 1) { // Just one dictionary entry in text.
-            listToReturn.add(new Article(title, textToAnalyze));
-            return listToReturn;
+            receiver.receive(new Article(title, text, context, check));
+            return;
         }
 
         if (pos.get(0) == 0) {
             pos.remove(0);
         }
 
-        tmp = // Geting first article out of textToAnalyze
-                textToAnalyze.substring(0, pos.get(0));
-        listToReturn.add(new Article(title, tmp));
+        tmp = // Geting first article out of text, as a view of it
+                TextSlice.of(text, 0, pos.get(0));
+        receiver.receive(new Article(title, tmp, context, check));
 
         for (int i = 0; i < pos.size() - 1; i++) // Geting articles out of textToAnalyze
         {
-            tmp = textToAnalyze.substring(pos.get(i), pos.get(i + 1));
-            listToReturn.add(new Article(title, tmp));
+            tmp = TextSlice.of(text, pos.get(i), pos.get(i + 1));
+            receiver.receive(new Article(title, tmp, context, check));
         }
 
-        tmp = // Geting last article out of textToAnalyze
-                textToAnalyze.substring(pos.get(pos.size() - 1), textToAnalyze.length());
-        listToReturn.add(new Article(title, tmp));
-
-        for (int i = 0; i < listToReturn.size(); i++) {
-            if (listToReturn.get(i).content.isEmpty()) {
-                listToReturn.remove(i);
-            }
-        }
-        return listToReturn;
+        tmp = // Geting last article out of text
+                TextSlice.of(text, pos.get(pos.size() - 1), text.length());
+        receiver.receive(new Article(title, tmp, context, check));
     }
 
     /**
@@ -254,39 +332,12 @@ public class Article {
      * @param text to remove irrelevant parts from.
      * @return The same as <tt>text</tt> but without irrelevant parts.
      */
-    private static String removeIrrelevants(String text) {
-        text = text.replace("{{להשלים|כל הערך=כן}}", "");
-
-        // Subheading should be H3 not h2 - fix it
-        if (RegEx.find(Patterns.SEE_ALSO_MISTAKE, text) == true) {
-            text = RegEx.replaceAll(text, Patterns.SEE_ALSO_MISTAKE, "===ראו גם===");
-        }
-        if (RegEx.find(Patterns.SYNONYM_MISTAKE, text) == true) {
-            text = RegEx.replaceAll(text, Patterns.SYNONYM_MISTAKE, "===מילים נרדפות===");
-        }
-
-        if (RegEx.find(Patterns.ANOTHER_MEANING, text) == true) {
-            text = RegEx.removeAll(text, Patterns.ANOTHER_MEANING);
-        }
-
-        /*
-         * Markup say tohen einyanim(index). not needed! Chop text to start with
-         * heading.
-         */
-        if (text.contains("{{תוכן}}")) {
-            text = text.substring(8);
-        }
-
-        text = text.replaceAll("\\{\\{תוכן\\|.*[\\}\\}]", "");
-        text = text.replaceAll("\\{\\{חסר\\|.*[\\}\\}]", "");
-
-        text = // Strange Markup. TODO: what is it for?
-                text.replaceAll("\\{\\{כ\\}\\}", "");
+    private static CharSequence removeIrrelevants(String text) {
+        text = IRRELEVANTS.apply(text).getText();
 
+        // Chop text to start with heading, as a view of it.
         if (RegEx.find(Patterns.SECTION_HEADING, text) == true) {
-            while (text.length() != 0 && text.charAt(0) != '=') {
-                text = text.substring(1);
-            }
+            return new TextSlice(text, text.indexOf('='), text.length());
         }
         return text;
     }
@@ -305,44 +356,34 @@ public class Article {
 
     /**
      * Find simple wiki patterns, save them and then remove them from the
-     * {@link Article#content content}.
-     *
-     * @return Nothing. its work on the content of this Article.
+     * {@link Article#content content}, line by line.<br>
+     * None of the patterns goes on over a new line sign, so each line is
+     * looked at on its own, and only if a pattern can start in it.
      */
-    private void findPatterns() {
-        if (RegEx.find(Patterns.STUB, this.content) == true) {
-            this.content = RegEx.removeAll(this.content, Patterns.STUB);
-            this.stub = true;
-        }
+    private final class PatternFinder implements LineProcessor {
 
-        if (RegEx.find(Patterns.IS_COMPLETED, this.content) == true) {
+        private boolean rootFound = false;
 
-            this.content = RegEx.removeAll(this.content, Patterns.IS_COMPLETED);
-            this.isEntryCompleted = false;
-        }
-
-        if (RegEx.find(Patterns.ROOT, this.content) == true) {
-            Pattern rootPattern = Patterns.ROOT;
-            Matcher rootMatcher = rootPattern.matcher(this.content);
-            rootMatcher.find();
-            this.rootWord = rootMatcher.group().substring(7, rootMatcher.group().length() - 2);
-            this.content = RegEx.removeAll(this.content, Patterns.ROOT);
-        }
-
-        if (RegEx.find(Patterns.REWRITING, this.content) == true) {
-            this.content = RegEx.removeAll(this.content, Patterns.REWRITING);
-            this.rewriting = true;
-        }
+        @Override
+        public String process(String line) {
+            if (line.indexOf("{{") == -1 && line.indexOf("[[") == -1) {
+                return line;
+            }
+            RuleSet.Result found = PATTERNS.apply(line);
+            stub = stub || found.has(STUB);
+            isEntryCompleted = isEntryCompleted && found.has(IS_COMPLETED) == false;
+            rewriting = rewriting || found.has(REWRITING);
+            if (found.has(ROOT) == true && this.rootFound == false) {
+                String root = found.get(ROOT).get(0);
+                rootWord = root.substring(7, root.length() - 2);
+                this.rootFound = true;
+            }
 
-        // Find categories
-        Pattern categoriesPattern = Patterns.CATEGORIES;
-        Matcher categoriesMatcher = categoriesPattern.matcher(this.content);
-        while (categoriesMatcher.find()) {
-            String category = categoriesMatcher.group().substring(10, categoriesMatcher.group().length() - 2);
-            categories.put(category);
-        }
-        if (categories.length() > 0) {
-            this.content = RegEx.removeAll(this.content, Patterns.CATEGORIES);
+            // Find categories
+            for (String category : found.get(CATEGORY)) {
+                categories.put(category.substring(10, category.length() - 2));
+            }
+            return found.getText();
         }
     }
 }
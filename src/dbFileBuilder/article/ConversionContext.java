@@ -0,0 +1,116 @@
+package dbFileBuilder.article;
+
+import dbFileBuilder.Settings;
+import dbFileBuilder.wiki.Wiki;
+
+/**
+ * State of one conversion from wiki text to JSON.<br>
+ * The {@link Article} and {@link dbFileBuilder.json.JSON} code keeps no
+ * mutable static state; whatever a conversion needs to keep or count lives
+ * here. A context must not be used by two threads at the same time; the
+ * simplest is to create one for each page.
+ */
+public class ConversionContext {
+
+    private final Wiki wiki = new Wiki(new Wiki.Watch() {
+        @Override
+        public void check() {
+            ConversionContext.this.checkTime();
+        }
+    });
+    private final Settings.Engine engine;
+    /**
+     * count article which can't be process.
+     */
+    private int defects = 0;
+    /**
+     * Seconds a conversion may take, <tt>0</tt> for no limit.
+     */
+    private int timeLimit = 0;
+    /**
+     * When the conversion started, by {@link System#nanoTime()}.
+     */
+    private long startTime;
+
+    /**
+     * Creates a context which reads the HTML of articles with
+     * {@link Settings.Engine#JSOUP Jsoup}.
+     */
+    public ConversionContext() {
+        this(Settings.Engine.JSOUP);
+    }
+
+    /**
+     * @param engine How to read the HTML of the articles for their JSON.
+     */
+    public ConversionContext(Settings.Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * @return The {@link Wiki} to render with.
+     */
+    public Wiki getWiki() {
+        return this.wiki;
+    }
+
+    /**
+     * @return How to read the HTML of the articles for their JSON.
+     */
+    public Settings.Engine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * Count an article which can't be process.
+     */
+    public void addDefect() {
+        this.defects++;
+    }
+
+    /**
+     * @return Number of articles which couldn't be processed.
+     */
+    public int getDefects() {
+        return this.defects;
+    }
+
+    /**
+     * Limit the time of the conversion. It is checked before each article is
+     * rendered and converted to JSON, and by the {@link #getWiki() Wiki}
+     * before each line it renders and within a long line. So a conversion
+     * stops about one line after its limit, unless the limit is passed while
+     * an article is converted to JSON.
+     *
+     * @param seconds The limit, <tt>0</tt> for none.
+     */
+    public void setTimeLimit(int seconds) {
+        this.timeLimit = seconds;
+    }
+
+    /**
+     * Start the clock of the time limit.
+     */
+    public void startClock() {
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * @return Milliseconds since the {@link #startClock() clock started}.
+     */
+    public long getElapsedTime() {
+        return (System.nanoTime() - this.startTime) / 1000000;
+    }
+
+    /**
+     * Stop the conversion if it is past its time limit.
+     *
+     * @throws PageLimitException if it is.
+     */
+    public void checkTime() throws PageLimitException {
+        if (this.timeLimit != 0 && this.getElapsedTime() > this.timeLimit * 1000L) {
+            throw new PageLimitException("Over the time limit of " + this.timeLimit + " s: "
+                    + this.getElapsedTime() + " ms");
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package dbFileBuilder.article;
+
+/**
+ * A stage which changes the text one line after another.<br>
+ * The stages of a text are chained, and each line goes through all of them
+ * before the next line is read, so no stage makes a copy of the whole text.
+ *
+ * @see NSWMP#lines(java.lang.String, dbFileBuilder.article.LineProcessor...)
+ */
+interface LineProcessor {
+
+    /**
+     * Change one line.
+     *
+     * @param line to process, without its new line sign.
+     * @return The line changed, or <tt>null</tt> to omit it.
+     */
+    String process(String line);
+}
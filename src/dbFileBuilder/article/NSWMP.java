@@ -1,7 +1,6 @@
 package dbFileBuilder.article;
 
-import dbFileBuilder.utilities.ArrayUtils;
-import dbFileBuilder.RegEx;
+import java.util.ArrayList;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -10,7 +9,11 @@ import java.util.regex.Pattern;
  * <b>P</b>rocessor.<br>
  * Because the {@link dbFileBuilder.wiki.Wiki} library does not support tables
  * and we don't want to dirty the output, we preprocessing the input in a non
- * structured way.
+ * structured way.<br>
+ * The processing is made of {@link LineProcessor line processors}: the tables
+ * are flattened, the unnecessary indent signs are removed and the numbered
+ * lines are converted, each line through all of them before the next line is
+ * read.
  */
 public final class NSWMP {
 
@@ -19,66 +22,172 @@ public final class NSWMP {
      */
     private static final Pattern tooIndent = Pattern.compile("(^#|^\\*)(:{1,})([^:])", Pattern.UNICODE_CASE);
     /**
-     * Constant indicate open table prefix.<br>
-     * Constant Value : {@value}.
+     * Char of the pair which opens a table.
      */
-    private static final String OPEN_TABLE_PRFX = "{{";
+    private static final char OPEN_TABLE_PRFX = '{';
     /**
-     * Constant indicate close table prefix.<br>
-     * Constant Value : {@value}.
+     * Char of the pair which closes a table.
      */
-    private static final String CLOSE_TABLE_PRFX = "}}";
+    private static final char CLOSE_TABLE_PRFX = '}';
+    /**
+     * Removes unnecessary indent signs.
+     *
+     * @see #isStringTooIndent(String) isStringTooIndent
+     */
+    private static final LineProcessor FLATTEN_INDENT = new LineProcessor() {
+        @Override
+        public String process(String line) {
+            if (isStringTooIndent(line)) {
+                // The indent signs are right after the list sign
+                int end = 1;
+                while (line.charAt(end) == ':') {
+                    end++;
+                }
+                return line.charAt(0) + line.substring(end);
+            }
+            return line;
+        }
+    };
+    /**
+     * Converts the lines which start with a number to Wiki indent.
+     */
+    private static final LineProcessor CONVERT_TO_WIKI_INDENT = new LineProcessor() {
+        @Override
+        public String process(String line) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() == false && Character.isDigit(trimmed.charAt(0))) {
+                return "#" + trimmed.substring(2);
+            }
+            return line;
+        }
+    };
+
+    private NSWMP() {// Don't let anyone instantiate this class.
+    }
 
     /**
-     * Converts all the tables in <tt>wikiText</tt> to non table format.
+     * Process the lines of <tt>wikiText</tt>: flatten its tables, remove its
+     * unnecessary indent signs and convert its numbered lines, and then pass
+     * them through <tt>more</tt> stages.<br>
+     * Each line goes through all the stages before the next one is read, and
+     * the lines are returned as they are, to be rendered without being put
+     * together to one text.
      *
-     * @param wikiText to converts all its tables to non table format.
-     * @return The same text as <tt>wikiText</tt> but with tables as a normal
-     * text.
+     * @param wikiText to process.
+     * @param more The stages to pass the lines through after those of this
+     * processor, in order.
+     * @return The processed lines, without the empty ones at the end of the
+     * text, or one empty line if all of them are.
      */
-    protected static String flattenTable(final String wikiText) {
-        String[] linesArr = wikiText.split("\\n");
-        if (linesArr.length == 1) {
-            return wikiText;
+    protected static String[] lines(final String wikiText, final LineProcessor... more) {
+        int end = wikiText.length();
+        while (end > 0 && wikiText.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end == 0) {
+            return new String[]{""};
+        }
+        LineProcessor[] stages;
+        if (wikiText.lastIndexOf('\n', end - 1) == -1) { // One line, it is not a table
+            stages = new LineProcessor[]{FLATTEN_INDENT, CONVERT_TO_WIKI_INDENT};
+        } else {
+            stages = new LineProcessor[]{new TableFlattener(), FLATTEN_INDENT, CONVERT_TO_WIKI_INDENT};
+        }
+        ArrayList<String> lines = new ArrayList<String>();
+        int emptyLines = 0; // Not passed on yet, they may be at the end of the text
+        int lineStart = 0;
+        while (lineStart <= end) {
+            int lineEnd = wikiText.indexOf('\n', lineStart);
+            if (lineEnd == -1 || lineEnd > end) {
+                lineEnd = end;
+            }
+            String line = pass(wikiText.substring(lineStart, lineEnd), stages);
+            lineStart = lineEnd + 1;
+            if (line == null) {
+                continue;
+            }
+            if (line.isEmpty()) {
+                emptyLines++;
+                continue;
+            }
+            for (; emptyLines > 0; emptyLines--) {
+                add(lines, pass("", more));
+            }
+            add(lines, pass(line, more));
+        }
+        if (lines.isEmpty()) {
+            return new String[]{""};
+        }
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    private static String pass(String line, LineProcessor[] stages) {
+        for (LineProcessor stage : stages) {
+            line = stage.process(line);
+            if (line == null) {
+                return null;
+            }
         }
-        boolean insideTable = false;
-        StringBuilder output = new StringBuilder("");
-        int toggelLine = -1;
+        return line;
+    }
 
-        for (int i = 0; i < linesArr.length; i++) {
-            int match = countMatches(linesArr[i], OPEN_TABLE_PRFX);
+    private static void add(ArrayList<String> lines, String line) {
+        if (line != null) {
+            lines.add(line);
+        }
+    }
+
+    /**
+     * Converts the tables to non table format, as their lines go through it.
+     * The lines of a table are known by the pairs of braces which open and
+     * close it.
+     */
+    private static final class TableFlattener implements LineProcessor {
+
+        private boolean insideTable = false;
+
+        @Override
+        public String process(String line) {
+            int match = count(line, OPEN_TABLE_PRFX);
             match -= // Compare between  open bracket to close bracket
-                    countMatches(linesArr[i], CLOSE_TABLE_PRFX);
+                    count(line, CLOSE_TABLE_PRFX);
+            boolean isALastLine = false;
 
-            if (match == -1 && insideTable == true) {
-                insideTable = false;
-                toggelLine = i;
+            if (match == -1 && this.insideTable == true) {
+                this.insideTable = false;
+                isALastLine = true;
             }
-            if (match == 1 && insideTable == false) {
-                insideTable = true;
+            if (match == 1 && this.insideTable == false) {
+                this.insideTable = true;
             }
 
-            if (linesArr[i].equals("|")) // Omit new row sign - its dirt
+            if (line.equals("|")) // Omit new row sign - its dirt
             {
-                continue;
+                return null;
             }
-
-            if (insideTable == false) {
-                if (toggelLine == i) {
-                    linesArr[i] = lineFlow(linesArr[i], true, true);
-                } else {
-                    linesArr[i] = lineFlow(linesArr[i], true, false);
+            return lineFlow(line, this.insideTable == false, isALastLine);
+        }
+
+        /**
+         * Count the pairs of <tt>kind</tt> in <tt>line</tt>. A run of braces
+         * or brackets is read two by two from its start, so <tt>{{{</tt> is
+         * one pair of <tt>{</tt> and a single brace.
+         */
+        private static int count(String line, char kind) {
+            int count = 0;
+            int length = line.length();
+            for (int i = 0; i < length - 1; i++) {
+                char c = line.charAt(i);
+                if ((c != '{' && c != '}' && c != '[' && c != ']') || line.charAt(i + 1) != c) {
+                    continue;
                 }
-            } else {
-                if (toggelLine == i) {
-                    linesArr[i] = lineFlow(linesArr[i], false, true);
-                } else {
-                    linesArr[i] = lineFlow(linesArr[i], false, false);
+                if (c == kind) {
+                    count++;
                 }
+                i++;
             }
-            output.append(linesArr[i]).append('\n');
+            return count;
         }
-        return output.toString();
     }
 
     /**
@@ -121,59 +230,6 @@ public final class NSWMP {
         return line;
     }
 
-    /**
-     * Counts how many times the substring appears in the larger string.<br>
-     * A {@code null} or empty ("") String input returns {@code 0}.
-     * <blockquote>
-     * <pre>
-     * NSWMP.countMatches(null, *)       = 0
-     * NSWMP.countMatches("", *)         = 0
-     * NSWMP.countMatches("abba", null)  = 0
-     * NSWMP.countMatches("abba", "")    = 0
-     * NSWMP.countMatches("abba", "a")   = 2
-     * NSWMP.countMatches("abba", "ab")  = 1
-     * NSWMP.countMatches("abba", "xxx") = 0
-     * </pre>
-     * </blockquote>
-     *
-     * @param bigString the CharSequence to check, may be null
-     * @param substring the substring to count, may be null
-     * @return The number of occurrences, 0 if either substring is not in
-     * bigString
-     */
-    private static int countMatches(final String bigString, final String substring) {
-        int lastIndex = 0;
-        int count = 0;
-
-        while (lastIndex != -1) {
-            lastIndex = bigString.indexOf(substring, lastIndex);
-            if (lastIndex != -1) {
-                count++;
-                lastIndex += substring.length();
-            }
-        }
-        return count;
-    }
-
-    /**
-     * Remove from <tt>wikiText</tt>.<br>
-     * {@link #isStringTooIndent(String) isStringTooIndent}
-     *
-     * @see dbFileBuilder.article.NSWMP#isStringTooIndent(java.lang.String)
-     * @param wikiText to remove unnecessary indent sign from
-     * @return The same text as <tt>wikiText</tt> but without unnecessary indent
-     * sign.
-     */
-    protected static String flattenIndent(final String wikiText) {
-        String[] linesArr = wikiText.split("\\n");
-        for (int i = 0; i < linesArr.length; i++) {
-            if (isStringTooIndent(linesArr[i])) {
-                linesArr[i] = linesArr[i].replaceFirst(":{1,}", "");
-            }
-        }
-        return ArrayUtils.join(linesArr, "\n");
-    }
-
     /**
      * Returns true if <tt>text</tt> is too indent.<br>
      * Too indent text is text with unnecessary indent sign.<br>
@@ -191,112 +247,4 @@ public final class NSWMP {
         Matcher m = p.matcher(text);
         return m.find();
     }
-
-    /**
-     * Convert To Wiki Indent looks for numbers at the start of the line
-     *
-     * @param wikiText
-     * @return TODO: complete
-     */
-    protected static String convertToWikiIndent(String wikiText) {
-        String[] linesArr = wikiText.split("\\n");
-
-        for (int i = 0; i < linesArr.length; i++) {
-            if (linesArr[i].trim().isEmpty() == false) {
-                char firstChar = linesArr[i].trim().charAt(0);
-                if (Character.isDigit(firstChar)) {
-                    linesArr[i] = "#" + linesArr[i].trim().substring(2);
-                }
-            }
-        }
-        return ArrayUtils.join(linesArr, "\n");
-    }
-
-    /**
-     * Check whether wikiText is a good entry or not.
-     *
-     * @param wikiText of the entry.
-     * @param title of the entry.
-     * @return <tt>true</tt> if wikiText is good entry, otherwise
-     * <tt>false</tt>.
-     */
-    protected static boolean isAGoodEntry(String wikiText, String title) {
-        if (title.contains("(שורש)") == true) {// Shoresh pages
-            return false;
-        }
-
-        if (wikiText.contains("מה ההבדל בין רצ\"ב למצ\"ב?") == true) {
-            return false;
-        }
-        if (title.contains("ניטים") == true) {
-            return false;
-        }
-
-        if (wikiText.contains("{{שהות}}") == true) {
-            //int lines = StringUtility.countOccurrences(wikiText, '\n');
-            return false;
-        }
-
-        if (RegEx.find(Patterns.ARAMAIC_FIX, wikiText) == true) {
-            return false;
-        }
-        if (RegEx.find(Patterns.GREEK_FIX, wikiText) == true) {
-            return false;
-        }
-
-        if (title.length() <= 1) {
-            /**
-             * Each hebrew alphabet letter get its one entry. as well as some of
-             * the English, Chinese/Japanese pictogram..
-             *
-             * The processing overhead is greater than the outcome.
-             */
-            return false;
-        }
-        if (wikiText.contains("==אֲחָד==") == true) {
-            return false; // We do not want these value // in othere release it  it could be a good entry
-        }
-
-        if (dbFileBuilder.RegEx.find(Patterns.GERMAN, wikiText) == true) {
-            return false; // We do not want these values
-        }
-        if (dbFileBuilder.RegEx.find(Patterns.GERMANIT, wikiText) == true) {
-            return false; // We do not want these values
-        }
-        if (wikiText.contains("== אנגלית: Berg ==") == true) {
-            return false; // We do not want these values
-        }
-        if (wikiText.contains("==איסלנדית==") == true) {
-            return false; // We do not want these values
-        }
-        if (wikiText.contains("עבירה") == true) {
-//            return false; // We do not want these values
-        }
-        if (title.contains("אוקריוטי") == true) {
-            return false; // We do not want these values
-        }
-
-        return true;
-    }
-
-    /**
-     * Remove images from wikiText - don't need them.
-     *
-     * @param wikiText
-     * @return text without images.
-     */
-    protected static String preprocessor(String wikiText) {
-
-        if (RegEx.find(Patterns.IMAGE_OTHER_VARIANT, wikiText) == true) {
-            wikiText = RegEx.removeAll(wikiText, Patterns.IMAGE_OTHER_VARIANT);
-        }
-
-        if (RegEx.find(Patterns.IMAGE_CURLY, wikiText) == true) {
-            wikiText = RegEx.removeAll(wikiText, Patterns.IMAGE_CURLY);
-        }
-
-        wikiText = RegEx.removeAll(wikiText, Patterns.IMAGE);
-
-        return wikiText;
-    }
 }
@@ -0,0 +1,287 @@
+package dbFileBuilder.article;
+
+import dbFileBuilder.utilities.StringUtility;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Decide which pages, and which articles of them, are not wanted in the
+ * output, before any work is done on them.<br>
+ * A page is classified by its title and by one pass over its text, in which
+ * all the rules are looked for at once: at each char only the rules whose
+ * trigger starts with that char are tried. A page rule drops the whole page; a
+ * section rule drops only the articles which have it, so a page with one is
+ * left to check them.
+ * <br><br>
+ * Each rule counts how many times it was tried on a text, and how many pages,
+ * or articles, it dropped.
+ */
+public final class PageClassifier {
+
+    /**
+     * What to do with a page.
+     */
+    public enum Verdict {
+
+        /**
+         * Convert all of it.
+         */
+        ACCEPT,
+        /**
+         * Convert it, and {@link #acceptsSection(String) check} each of its
+         * articles.
+         */
+        CHECK_SECTIONS,
+        /**
+         * Drop it.
+         */
+        REJECT
+    }
+
+    /**
+     * One rule of the classifier.
+     */
+    private static final class Rule {
+
+        /**
+         * What the rule is called in the {@link #getCounters() counters}.
+         */
+        private final String name;
+        /**
+         * <tt>true</tt> if it drops the whole page, <tt>false</tt> if only the
+         * articles which have it.
+         */
+        private final boolean page;
+        /**
+         * <tt>true</tt> if it is looked for in the title, <tt>false</tt> if in
+         * the text.
+         */
+        private final boolean inTitle;
+        /**
+         * The fixed text every match starts with.
+         */
+        private final String trigger;
+        /**
+         * <tt>null</tt> if the trigger is all the match.
+         */
+        private final Pattern pattern;
+
+        private Rule(String name, boolean page, boolean inTitle, String trigger, Pattern pattern) {
+            this.name = name;
+            this.page = page;
+            this.inTitle = inTitle;
+            this.trigger = trigger;
+            this.pattern = pattern;
+        }
+
+        static Rule title(String name, String text) {
+            return new Rule(name, true, true, text, null);
+        }
+
+        static Rule page(String name, String trigger, Pattern pattern) {
+            return new Rule(name, true, false, trigger, pattern);
+        }
+
+        static Rule section(String name, String text) {
+            return new Rule(name, false, false, text, null);
+        }
+
+        static Rule section(String name, String trigger, Pattern pattern) {
+            return new Rule(name, false, false, trigger, pattern);
+        }
+    }
+    /**
+     * Name of the rule for the titles of one char.
+     */
+    private static final String SHORT_TITLE = "title of one char";
+    private static final Rule[] RULES = {
+        Rule.title("שורש title", "(שורש)"), // Shoresh pages
+        Rule.title("ניטים title", "ניטים"),
+        Rule.title("אוקריוטי title", "אוקריוטי"), // We do not want these values
+        // Those are not needed.
+        Rule.page("איות שגוי template", "{{איות שגוי", Patterns.WRONG_SPELLING),
+        Rule.section("רצ\"ב or מצ\"ב question", "מה ההבדל בין רצ\"ב למצ\"ב?"),
+        Rule.section("שהות template", "{{שהות}}"),
+        Rule.section("Aramaic fix template", "{{תיקון מילים מארמית", Patterns.ARAMAIC_FIX),
+        Rule.section("Greek fix template", "{{תיקון מילים מיוונית", Patterns.GREEK_FIX),
+        // in othere release it  it could be a good entry
+        Rule.section("אֲחָד section", "==אֲחָד=="),
+        // We do not want these values
+        Rule.section("German heading", "==", Patterns.GERMAN),
+        Rule.section("גרמנית section", "==גרמנית=="),
+        Rule.section("Berg section", "== אנגלית: Berg =="),
+        Rule.section("איסלנדית section", "==איסלנדית==")
+        // Rule.section("עבירה", "עבירה"), // We do not want these values
+    };
+    /**
+     * The numbers of the text rules, by the first char of their trigger, for
+     * the chars which start one.
+     */
+    private static final char[] FIRST_CHARS;
+    private static final int[][] BY_FIRST_CHAR;
+    /**
+     * How many times each rule was tried, with {@link #SHORT_TITLE} last.
+     */
+    private static final AtomicIntegerArray TRIED = new AtomicIntegerArray(RULES.length + 1);
+    /**
+     * How many pages, or articles, each rule dropped, with
+     * {@link #SHORT_TITLE} last.
+     */
+    private static final AtomicIntegerArray REJECTED = new AtomicIntegerArray(RULES.length + 1);
+
+    static {
+        StringBuilder firstChars = new StringBuilder();
+        ArrayList<int[]> byFirstChar = new ArrayList<int[]>();
+        for (int i = 0; i < RULES.length; i++) {
+            if (RULES[i].inTitle == true) {
+                continue;
+            }
+            char first = RULES[i].trigger.charAt(0);
+            int index = firstChars.indexOf(String.valueOf(first));
+            if (index == -1) {
+                firstChars.append(first);
+                byFirstChar.add(new int[]{i});
+            } else {
+                int[] numbers = byFirstChar.get(index);
+                int[] more = new int[numbers.length + 1];
+                System.arraycopy(numbers, 0, more, 0, numbers.length);
+                more[numbers.length] = i;
+                byFirstChar.set(index, more);
+            }
+        }
+        FIRST_CHARS = firstChars.toString().toCharArray();
+        BY_FIRST_CHAR = byFirstChar.toArray(new int[byFirstChar.size()][]);
+    }
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private PageClassifier() {
+    }
+
+    /**
+     * Classify a page.
+     *
+     * @param title The title of the page.
+     * @param text The wiki text of the page.
+     * @return What to do with the page.
+     */
+    public static Verdict classify(String title, String text) {
+        if (title.length() <= 1) {
+            /**
+             * Each hebrew alphabet letter get its one entry. as well as some of
+             * the English, Chinese/Japanese pictogram..
+             *
+             * The processing overhead is greater than the outcome.
+             */
+            TRIED.incrementAndGet(RULES.length);
+            REJECTED.incrementAndGet(RULES.length);
+            return Verdict.REJECT;
+        }
+        for (int i = 0; i < RULES.length; i++) {
+            if (RULES[i].inTitle == true) {
+                TRIED.incrementAndGet(i);
+                if (title.contains(RULES[i].trigger) == true) {
+                    REJECTED.incrementAndGet(i);
+                    return Verdict.REJECT;
+                }
+            }
+        }
+        long found = scan(text, true);
+        for (int i = 0; i < RULES.length; i++) {
+            if ((found & 1L << i) != 0 && RULES[i].page == true) {
+                REJECTED.incrementAndGet(i);
+                return Verdict.REJECT;
+            }
+        }
+        return found == 0 ? Verdict.ACCEPT : Verdict.CHECK_SECTIONS;
+    }
+
+    /**
+     * Check an article of a page which was classified
+     * {@link Verdict#CHECK_SECTIONS}.
+     *
+     * @param wikiText The text of the article, or a view of it.
+     * @return <tt>false</tt> if a section rule drops it.
+     */
+    public static boolean acceptsSection(CharSequence wikiText) {
+        long found = scan(wikiText, false);
+        for (int i = 0; i < RULES.length; i++) {
+            if ((found & 1L << i) != 0) {
+                REJECTED.incrementAndGet(i);
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Look for the text rules in one pass over <tt>text</tt>.
+     *
+     * @param pageRules <tt>true</tt> to look for the page rules too, and stop
+     * at the first one found.
+     * @return A bit for each rule found, by its number.
+     */
+    private static long scan(CharSequence text, boolean pageRules) {
+        long found = 0;
+        Matcher[] matchers = null;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            int first = -1;
+            for (int j = 0; j < FIRST_CHARS.length; j++) {
+                if (FIRST_CHARS[j] == c) {
+                    first = j;
+                    break;
+                }
+            }
+            if (first == -1) {
+                continue;
+            }
+            for (int number : BY_FIRST_CHAR[first]) {
+                Rule rule = RULES[number];
+                if ((found & 1L << number) != 0 || (rule.page == true && pageRules == false)
+                        || StringUtility.startsWith(text, rule.trigger, i) == false) {
+                    continue;
+                }
+                TRIED.incrementAndGet(number);
+                if (rule.pattern != null) {
+                    if (matchers == null) {
+                        matchers = new Matcher[RULES.length];
+                    }
+                    if (matchers[number] == null) {
+                        matchers[number] = rule.pattern.matcher(text);
+                    }
+                    if (matchers[number].region(i, length).lookingAt() == false) {
+                        continue;
+                    }
+                }
+                found |= 1L << number;
+                if (rule.page == true) {
+                    return found;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return A line for each rule which was tried: how many times, and how
+     * many pages or articles it dropped.
+     */
+    public static ArrayList<String> getCounters() {
+        ArrayList<String> lines = new ArrayList<String>();
+        for (int i = 0; i <= RULES.length; i++) {
+            if (TRIED.get(i) == 0) {
+                continue;
+            }
+            String name = i == RULES.length ? SHORT_TITLE : RULES[i].name;
+            boolean page = i == RULES.length || RULES[i].page;
+            lines.add(name + " : " + REJECTED.get(i) + (page ? " pages" : " articles")
+                    + ", tried " + TRIED.get(i) + " times");
+        }
+        return lines;
+    }
+}
@@ -0,0 +1,19 @@
+package dbFileBuilder.article;
+
+/**
+ * Thrown when a page is over a limit: when its conversion goes on past the
+ * {@link ConversionContext#setTimeLimit(int) time limit} of its context, or
+ * when its text is over the size limit and oversized pages are skipped. The
+ * page is left out of the output.
+ */
+public class PageLimitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message What limit was passed, and by how much.
+     */
+    public PageLimitException(String message) {
+        super(message);
+    }
+}
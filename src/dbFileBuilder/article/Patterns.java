@@ -75,17 +75,17 @@ public final class Patterns {
     /**
      * Pattern to detect curly brackets image syntax.
      */
-    protected static final Pattern IMAGE_CURLY = Pattern.compile("\\{\\{[^\\}]+(\\.png|\\.jpg|\\.bmp|\\.svg|\\.gif){1}[^\\}]+\\}\\}", Pattern.UNICODE_CASE + Pattern.CASE_INSENSITIVE);
+    protected static final Pattern IMAGE_CURLY = Pattern.compile("\\{\\{[^\\}]+\\.(?:png|jpg|bmp|svg|gif)[^\\}]+\\}\\}", Pattern.CASE_INSENSITIVE);
     /**
      * Pattern to detect square brackets image syntax.
      */
-    protected static final Pattern IMAGE = Pattern.compile("\\[\\[[^\\]]+(\\.png|\\.jpg|\\.bmp|\\.svg){1}[^\\]]+\\]\\]", Pattern.UNICODE_CASE + Pattern.CASE_INSENSITIVE);
+    protected static final Pattern IMAGE = Pattern.compile("\\[\\[[^\\]]+\\.(?:png|jpg|bmp|svg)[^\\]]+\\]\\]", Pattern.CASE_INSENSITIVE);
     /**
      * Pattern to detect square brackets image syntax.<br><br>
      * <b>NOTE</b>:<br>
      * Can be combined with {@link Patterns#IMAGE IMAGE}, but keep it simple.
      */
-    protected static final Pattern IMAGE_OTHER_VARIANT = Pattern.compile("\\[\\[[^\\]]+(\\.png|\\.jpg|\\.bmp|\\.svg|\\.gif){1}\\]\\]", Pattern.UNICODE_CASE + Pattern.CASE_INSENSITIVE);
+    protected static final Pattern IMAGE_OTHER_VARIANT = Pattern.compile("\\[\\[[^\\]]+\\.(?:png|jpg|bmp|svg|gif)\\]\\]", Pattern.CASE_INSENSITIVE);
     /**
      * @see <a
      * href="https://he.wiktionary.org/wiki/%D7%AA%D7%91%D7%A0%D7%99%D7%AA:%D7%90%D7%99%D7%95%D7%AA_%D7%A9%D7%92%D7%95%D7%99">תבנית:איות
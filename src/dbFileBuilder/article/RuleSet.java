@@ -0,0 +1,384 @@
+package dbFileBuilder.article;
+
+import dbFileBuilder.utilities.StringUtility;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A table of {@link Rule rules} which remove, replace or record parts of a
+ * wiki text, made to run in one pass over it.<br>
+ * Each rule starts with a fixed trigger, so at each char of the text only the
+ * rules whose trigger starts with that char are tried, and of them only those
+ * whose whole trigger is there; a rule with a pattern is then matched at that
+ * place. The first rule of the table which matches wins.
+ * <br><br>
+ * The text is read from its end to its start, so the rules are matched against
+ * the text after them with the rules already done: a template in a template is
+ * handled before the template it is in, as it was when each rule ran over the
+ * whole text, one after another. What a rule puts in the text is not matched
+ * again.
+ * <br><br>
+ * A table is made once, and can be used by many threads at once.
+ */
+final class RuleSet {
+
+    /**
+     * One rule of a {@link RuleSet}.
+     */
+    static final class Rule {
+
+        /**
+         * The fixed text every match of the rule starts with.
+         */
+        private final String trigger;
+        /**
+         * <tt>null</tt> if the trigger is all the match.
+         */
+        private final Pattern pattern;
+        private final String replacement;
+        /**
+         * The key its matches are recorded by, <tt>null</tt> if they are not
+         * recorded.
+         */
+        private final String key;
+        /**
+         * Text the text has to have somewhere for the rule to be tried,
+         * <tt>null</tt> if it is always tried.
+         */
+        private final String guard;
+
+        private Rule(String trigger, Pattern pattern, String replacement, String key, String guard) {
+            this.trigger = trigger;
+            this.pattern = pattern;
+            this.replacement = replacement;
+            this.key = key;
+            this.guard = guard;
+        }
+
+        private Rule(String trigger, Pattern pattern, String replacement, String key) {
+            this(trigger, pattern, replacement, key, null);
+        }
+
+        /**
+         * @return The same rule, tried only on texts which have <tt>text</tt>
+         * somewhere. For a pattern too slow to try at each trigger.
+         */
+        Rule onlyIfContains(String text) {
+            return new Rule(this.trigger, this.pattern, this.replacement, this.key, text);
+        }
+
+        /**
+         * @return A rule which removes <tt>text</tt>.
+         */
+        static Rule remove(String text) {
+            return new Rule(text, null, "", null);
+        }
+
+        /**
+         * @param trigger The fixed text every match of <tt>pattern</tt> starts
+         * with.
+         * @return A rule which removes the matches of <tt>pattern</tt>.
+         */
+        static Rule remove(String trigger, Pattern pattern) {
+            return new Rule(trigger, pattern, "", null);
+        }
+
+        /**
+         * @param trigger The fixed text every match of <tt>pattern</tt> starts
+         * with.
+         * @return A rule which replaces the matches of <tt>pattern</tt> with
+         * <tt>replacement</tt>, as it is.
+         */
+        static Rule replace(String trigger, Pattern pattern, String replacement) {
+            return new Rule(trigger, pattern, replacement, null);
+        }
+
+        /**
+         * @return A rule which removes <tt>text</tt>, and records it by
+         * <tt>key</tt>.
+         */
+        static Rule record(String key, String text) {
+            return new Rule(text, null, "", key);
+        }
+
+        /**
+         * @param trigger The fixed text every match of <tt>pattern</tt> starts
+         * with.
+         * @return A rule which removes the matches of <tt>pattern</tt>, and
+         * records them by <tt>key</tt>.
+         */
+        static Rule record(String key, String trigger, Pattern pattern) {
+            return new Rule(trigger, pattern, "", key);
+        }
+
+        /**
+         * @return A mark, not a rule: every run of new lines which the text
+         * has after the rules before the mark are done is squeezed into one new
+         * line. The rules after the mark may remove only what starts with a
+         * trigger of other than a new line, and the new lines their removal
+         * brings together are left as they are.
+         */
+        static Rule squeezeNewLines() {
+            return new Rule(null, null, null, null);
+        }
+    }
+
+    /**
+     * The text after a {@link RuleSet} is run on it, and the matches it
+     * recorded.
+     */
+    static final class Result {
+
+        private final String text;
+        private final HashMap<String, ArrayList<String>> records;
+
+        private Result(String text, HashMap<String, ArrayList<String>> records) {
+            this.text = text;
+            this.records = records;
+        }
+
+        String getText() {
+            return this.text;
+        }
+
+        /**
+         * @return <tt>true</tt> if anything was recorded by <tt>key</tt>.
+         */
+        boolean has(String key) {
+            return this.records.containsKey(key);
+        }
+
+        /**
+         * @return What was recorded by <tt>key</tt>, in the order of the text;
+         * empty if nothing was.
+         */
+        ArrayList<String> get(String key) {
+            ArrayList<String> records = this.records.get(key);
+            return records == null ? new ArrayList<String>() : records;
+        }
+    }
+    private final Rule[] rules;
+    /**
+     * The number of the rules before the
+     * {@link Rule#squeezeNewLines() squeeze}, <tt>-1</tt> if there is none.
+     */
+    private final int squeeze;
+    /**
+     * The numbers of the rules, by the first char of their trigger. All
+     * triggers start with an ASCII char.
+     */
+    private final int[][] byFirstChar = new int[128][];
+
+    /**
+     * Make a table of rules.
+     *
+     * @param rules In the order they are tried where more than one matches.
+     */
+    RuleSet(Rule... rules) {
+        ArrayList<Rule> table = new ArrayList<Rule>();
+        int squeezeAt = -1;
+        for (Rule rule : rules) {
+            if (rule.trigger == null) {
+                squeezeAt = table.size();
+            } else {
+                table.add(rule);
+            }
+        }
+        this.rules = table.toArray(new Rule[table.size()]);
+        this.squeeze = squeezeAt;
+        for (int i = 0; i < this.rules.length; i++) {
+            char first = this.rules[i].trigger.charAt(0);
+            if (first >= 128) {
+                throw new IllegalArgumentException("Trigger starts with other than ASCII: " + this.rules[i].trigger);
+            }
+            int[] numbers = this.byFirstChar[first];
+            numbers = numbers == null ? new int[1] : Arrays.copyOf(numbers, numbers.length + 1);
+            numbers[numbers.length - 1] = i;
+            this.byFirstChar[first] = numbers;
+        }
+    }
+
+    /**
+     * Run the rules on a text.
+     *
+     * @param text Wiki text, or a view of it.
+     * @return The text after the rules, and what they recorded.
+     */
+    Result apply(CharSequence text) {
+        HashMap<String, ArrayList<String>> records = new HashMap<String, ArrayList<String>>();
+        Output out = new Output(text.length() + 16, this.squeeze != -1);
+        Matcher[] matchers = new Matcher[this.rules.length];
+        boolean[] skipped = new boolean[this.rules.length];
+        for (int i = 0; i < this.rules.length; i++) {
+            skipped[i] = this.rules[i].guard != null && StringUtility.indexOf(text, this.rules[i].guard, 0) == -1;
+        }
+        for (int i = text.length() - 1; i >= 0; i--) {
+            char c = text.charAt(i);
+            if (c == '\n' && this.squeeze != -1 && out.startsWithNewLine() == true) {
+                continue;
+            }
+            if (out.push(c) == true) {
+                Arrays.fill(matchers, null);
+            }
+            int[] candidates = c < 128 ? this.byFirstChar[c] : null;
+            if (candidates == null) {
+                continue;
+            }
+            for (int number : candidates) {
+                Rule rule = this.rules[number];
+                if (skipped[number] == true || out.startsWith(rule.trigger) == false) {
+                    continue;
+                }
+                int end;
+                if (rule.pattern == null) {
+                    end = out.start + rule.trigger.length();
+                } else {
+                    if (matchers[number] == null) {
+                        matchers[number] = rule.pattern.matcher(out.view).useAnchoringBounds(false);
+                    }
+                    Matcher matcher = matchers[number].region(out.start, out.chars.length);
+                    if (matcher.lookingAt() == false) {
+                        continue;
+                    }
+                    end = matcher.end();
+                }
+                if (rule.key != null) {
+                    ArrayList<String> recorded = records.get(rule.key);
+                    if (recorded == null) {
+                        recorded = new ArrayList<String>();
+                        records.put(rule.key, recorded);
+                    }
+                    recorded.add(new String(out.chars, out.start, end - out.start));
+                }
+                if (out.replace(end, rule.replacement, this.squeeze != -1 && number >= this.squeeze) == true) {
+                    Arrays.fill(matchers, null);
+                }
+                break;
+            }
+        }
+        for (ArrayList<String> recorded : records.values()) {
+            Collections.reverse(recorded);
+        }
+        return new Result(out.toString(), records);
+    }
+
+    /**
+     * The text after the rules, made from its end to its start.
+     */
+    private static final class Output {
+
+        private char[] chars;
+        /**
+         * The text is <tt>chars[start..]</tt>.
+         */
+        private int start;
+        /**
+         * Where a rule after the squeeze took out text which was there when
+         * the new lines were squeezed, just before the char.
+         */
+        private boolean[] removed;
+        /**
+         * The chars, for the matchers.
+         */
+        private CharBuffer view;
+
+        Output(int capacity, boolean squeeze) {
+            this.chars = new char[capacity];
+            this.start = capacity;
+            this.removed = squeeze ? new boolean[capacity] : null;
+            this.view = CharBuffer.wrap(this.chars);
+        }
+
+        /**
+         * Put a char before the text.
+         *
+         * @return <tt>true</tt> if the text was moved, so it has a new
+         * {@link #view}.
+         */
+        boolean push(char c) {
+            boolean moved = this.ensure(1);
+            this.chars[--this.start] = c;
+            if (this.removed != null) {
+                this.removed[this.start] = false;
+            }
+            return moved;
+        }
+
+        /**
+         * Replace the start of the text, up to <tt>end</tt>, with
+         * <tt>replacement</tt>.
+         *
+         * @param afterSqueeze <tt>true</tt> if it is replaced by a rule after
+         * the squeeze.
+         * @return <tt>true</tt> if the text was moved, so it has a new
+         * {@link #view}.
+         */
+        boolean replace(int end, String replacement, boolean afterSqueeze) {
+            this.start = end;
+            boolean moved = this.ensure(replacement.length());
+            for (int i = replacement.length() - 1; i >= 0; i--) {
+                this.chars[--this.start] = replacement.charAt(i);
+                if (this.removed != null) {
+                    this.removed[this.start] = false;
+                }
+            }
+            if (afterSqueeze == true && this.start < this.chars.length) {
+                this.removed[this.start] = true;
+            }
+            return moved;
+        }
+
+        /**
+         * Make room for <tt>count</tt> more chars before the text.
+         */
+        private boolean ensure(int count) {
+            if (this.start >= count) {
+                return false;
+            }
+            int length = this.chars.length - this.start;
+            int capacity = this.chars.length * 2 + count;
+            char[] chars = new char[capacity];
+            System.arraycopy(this.chars, this.start, chars, capacity - length, length);
+            if (this.removed != null) {
+                boolean[] removed = new boolean[capacity];
+                System.arraycopy(this.removed, this.start, removed, capacity - length, length);
+                this.removed = removed;
+            }
+            this.chars = chars;
+            this.start = capacity - length;
+            this.view = CharBuffer.wrap(chars);
+            return true;
+        }
+
+        /**
+         * @return <tt>true</tt> if the text starts with a new line, which was
+         * there when the new lines were squeezed.
+         */
+        boolean startsWithNewLine() {
+            return this.start < this.chars.length && this.chars[this.start] == '\n'
+                    && this.removed[this.start] == false;
+        }
+
+        boolean startsWith(String trigger) {
+            if (this.chars.length - this.start < trigger.length()) {
+                return false;
+            }
+            for (int i = 0; i < trigger.length(); i++) {
+                if (this.chars[this.start + i] != trigger.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public String toString() {
+            return new String(this.chars, this.start, this.chars.length - this.start);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package dbFileBuilder.article;
 
-import dbFileBuilder.RegEx;
+import dbFileBuilder.article.RuleSet.Rule;
 import java.util.regex.Pattern;
 
 /**
@@ -13,48 +13,40 @@ public final class SpecialTreatment {
      */
     private SpecialTreatment() {
     }
+    private static final RuleSet RULES = new RuleSet(
+            Rule.remove("{{עשר המכות}}"),
+            Rule.remove("{{אבני החושן}}"),
+            Rule.remove("{{פירוש לקוי}}"),
+            Rule.remove("{{תחבורה ציבורית}}"),
+            // line break - we dont need them
+            Rule.remove("{{ש}}"),
+            Rule.remove("<br>"),
+            Rule.remove("<BR>"),
+            Rule.remove("<br", Pattern.compile("<br\\s*/>")),
+            // Remove all the references to footnotes.
+            Rule.remove("{{הפניה", Pattern.compile("\\{\\{הפניה[^\\}]+\\}\\}")),
+            // Footnotes to web site
+            Rule.remove("[", Pattern.compile("\\[((([A-Za-z]{3,9}:(?:\\/\\/)?)(?:[-;:&=\\+\\$,\\w]+@)?[A-Za-z0-9.-]+|(?:www.|[-;:&=\\+\\$,\\w]+@)[A-Za-z0-9.-]+)((?:\\/[\\+~%\\/.\\w-_]*)?\\??(?:[-\\+=&;%@.\\w_]*)#?(?:[\\w]*))?)\\]")),
+            // Remove images
+            Rule.remove("[[קובץ:", Pattern.compile("\\[\\[קובץ:[^\\]]*\\]\\]")),
+            Rule.remove("{{", Pattern.compile("\\{\\{[^\\}]+(תמונה=){1}[^\\}]+\\}\\}", Pattern.MULTILINE)).onlyIfContains("תמונה="),
+            Rule.remove("{{מקור}}"),
+            Rule.remove("{{מספרים|", Pattern.compile("\\{\\{מספרים\\|[^}]*\\}\\}")),
+            // make it easier to run on the DOM
+            Rule.squeezeNewLines(),
+            // Images don't need them either
+            Rule.remove("[[", Patterns.IMAGE_OTHER_VARIANT),
+            Rule.remove("{{", Patterns.IMAGE_CURLY),
+            Rule.remove("[[", Patterns.IMAGE));
 
     /**
+     * Remove the templates, tags and images which are not needed, in one pass
+     * over the text.
      *
-     * @param text
+     * @param text Wiki text, or a view of it.
      * @return same as text Special Treatment
      */
-    public static String act(String text) {
-        text = text.replace("{{עשר המכות}}", "");
-        text = text.replace("{{אבני החושן}}", "");
-        text = text.replace("{{פירוש לקוי}}", "");
-
-        text = text.replace("{{תחבורה ציבורית}}", "");
-
-        // line break - we dont need them
-        text = text.replaceAll("\\{\\{ש\\}\\}", "");
-        text = text.replaceAll("\\<br\\>", "");
-        text = text.replaceAll("\\<BR\\>", "");
-        text = text.replaceAll("<br\\s*/>", "");
-
-        /**
-         * Remove all the references to footnotes.
-         */
-        text = text.replaceAll("\\{\\{הפניה[^\\}]+\\}\\}", "");
-        // Footnotes to web site
-        text = text.replaceAll("\\[((([A-Za-z]{3,9}:(?:\\/\\/)?)(?:[-;:&=\\+\\$,\\w]+@)?[A-Za-z0-9.-]+|(?:www.|[-;:&=\\+\\$,\\w]+@)[A-Za-z0-9.-]+)((?:\\/[\\+~%\\/.\\w-_]*)?\\??(?:[-\\+=&;%@.\\w_]*)#?(?:[\\w]*))?)\\]", "");
-
-        // Remove images
-        text = text.replaceAll("\\[\\[קובץ:[^\\]]*\\]\\]", "");
-
-        if (text.contains("תמונה=")) {
-            text = RegEx.removeAll(text, Pattern.compile("\\{\\{[^\\}]+(תמונה=){1}[^\\}]+\\}\\}", Pattern.MULTILINE));
-        }
-
-        text = text.replaceAll("\\{\\{מקור\\}\\}", "");
-
-        text = RegEx.removeAll(text, Pattern.compile("\\{\\{מספרים\\|[^}]*\\}\\}"));
-
-        // make it easier to run on the DOM
-        do {
-            text = text.replaceAll("\n\n", "\n");
-        } while (text.contains("\n\n"));
-
-        return text;
+    public static String act(CharSequence text) {
+        return RULES.apply(text).getText();
     }
 }
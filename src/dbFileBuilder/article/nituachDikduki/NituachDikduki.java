@@ -5,11 +5,12 @@ import dbFileBuilder.article.nituachDikduki.finders.BuildingFinder;
 import dbFileBuilder.article.nituachDikduki.finders.GenderFinder;
 import dbFileBuilder.article.nituachDikduki.finders.RootFinder;
 import dbFileBuilder.article.nituachDikduki.finders.DerechTatzuraFinder;
-import dbFileBuilder.RegEx;
+import dbFileBuilder.utilities.BracketIndex;
+import dbFileBuilder.utilities.StringUtility;
+import dbFileBuilder.utilities.TextSlice;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.regex.Matcher;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.regex.Pattern;
 import org.json.JSONObject;
 
@@ -24,15 +25,11 @@ import org.json.JSONObject;
  * <br>
  * Usage:<br>
  * Before creating an instance of the class the static
- * {@link  #isNeeded isNeeded} method should be called.
+ * {@link  #find find} method should be called, and its result passed to the
+ * constructor.
  */
 public class NituachDikduki {
 
-    /**
-     *
-     * See {@link  #isNeeded isNeeded} method documentation.
-     */
-    private static Position lastTime = new Position();
     /**
      * Holds the Ktiv hasar niqqud (כתיב מלא) if exists
      *
@@ -81,15 +78,52 @@ public class NituachDikduki {
      * Holds the derech Tatzura (דרך תצורה) if exists
      */
     private String derechTatzura = "";
-    private Pattern pattern;
-    private Matcher matcher;
-    private String wikiEntryWithoutND;
-    private static boolean isNeeded;
+    private CharSequence wikiEntryWithoutND;
+
     /**
-     * Constant Value : {@value}.
+     * The fields of the Nituach Dikduki section which are read.
      */
-    private final static String splitter = "\\|(?!(?:(?![\\{\\[]|[\\]\\}]).)*[\\}\\]])";
-    private Iterator<String> iterator;
+    private enum Field {
+
+        KTIV_MALE, PRONUNCIATION, GENDER, ROOT, BUILDING, NETIYOT, DERECH_TATZURA
+    }
+    /**
+     * The fields, by the names of their parameters.
+     */
+    private static final HashMap<String, Field> FIELDS = new HashMap<String, Field>();
+
+    static {
+        FIELDS.put("כתיב מלא", Field.KTIV_MALE);
+        FIELDS.put("הגייה", Field.PRONUNCIATION);
+        FIELDS.put("מין", Field.GENDER);
+        FIELDS.put("שורש", Field.ROOT);
+        FIELDS.put("שורש וגזרה", Field.ROOT);
+        FIELDS.put("בניין", Field.BUILDING);
+        FIELDS.put("נטיות", Field.NETIYOT);
+        FIELDS.put("דרך תצורה", Field.DERECH_TATZURA);
+    }
+    /**
+     * Look for: <tt>{{הפניה|...}}</tt>
+     */
+    private static final Pattern REDIRECT = Pattern.compile("\\{\\{הפניה\\|[^\\}.]*\\}\\}", Pattern.UNICODE_CASE);
+    /**
+     * What separates one netiya (נטיה) from another, in the order they were
+     * replaced.
+     */
+    private static final Separators NETIYOT_SEPARATORS = new Separators(new String[][]{
+        {",", ";", "ר\"ז", "ר\"נ", "ר\"י", "ר\"'", "ר'", "נ\"ר", "נ\"י", "נ'", "ס\"ר", "ס\"ז"},
+        {"או\u05B9 "}, // With HEBREW POINT HOLAM
+        {" או "},
+        {"\u05BE"}, // HEBREW PUNCTUATION MAQAF
+        {"ר\u05F3"}, // RESH follow by HEBREW PUNCTUATION GERESH
+        {"נ\u05F3 "}, // NUN follow by HEBREW PUNCTUATION GERESH
+        {"-"},
+        {"נ\u05F4ר"}, // With HEBREW PUNCTUATION GERSHAYIM
+        {"ס\"נ"},
+        {"ס\u05F4ר "},
+        {"ס' "},
+        {" גם "}
+    });
 
     /**
      * //TODO: complete NituachDikduki constructor.
@@ -98,55 +132,89 @@ public class NituachDikduki {
      * <a
      * href="http://he.wiktionary.org/wiki/%D7%95%D7%99%D7%A7%D7%99%D7%9E%D7%99%D7%9C%D7%95%D7%9F:%D7%90%D7%99%D7%9A_%D7%9C%D7%9B%D7%AA%D7%95%D7%91_%D7%A0%D7%99%D7%AA%D7%95%D7%97_%D7%93%D7%A7%D7%93%D7%95%D7%A7%D7%99">ויקימילון:איך
      * לכתוב ניתוח דקדוקי</a>
-     * @param hebWikiEntry hebrew Wiktionary entry.
+     * @param hebWikiEntry hebrew Wiktionary entry, or a view of it.
+     * @param position of the Nituach Dikduki section in <tt>hebWikiEntry</tt>,
+     * as returned by {@link #find find}.
      */
-    public NituachDikduki(final String hebWikiEntry) {
-
-        if (isNeeded == false) {
-            System.err.println("isNeeded is false.\nCanot initiate instance.\n");
-            return;
+    public NituachDikduki(final CharSequence hebWikiEntry, final Position position) {
+        this.wikiEntryWithoutND = // A view of the entry, the section left out
+                TextSlice.of(hebWikiEntry, 0, hebWikiEntry.length()).without(position.start, position.end + 1);
+
+        EnumSet<Field> read = EnumSet.noneOf(Field.class);
+        for (String parameter : parameters(hebWikiEntry, position.start, position.end - 1)) {
+            int equals = parameter.indexOf('=');
+            if (equals == -1) {
+                continue;
+            }
+            Field field = FIELDS.get(parameter.substring(0, equals).trim());
+            if (field == null || read.add(field) == false) { // Only the first of a field is read
+                continue;
+            }
+            this.read(field, parameter, parameter.substring(equals + 1));
         }
+    }
 
-        String beforeND = hebWikiEntry.substring(0, NituachDikduki.lastTime.start);
-        String afterND = hebWikiEntry.substring(NituachDikduki.lastTime.end + 1);
-
-        this.wikiEntryWithoutND = beforeND + afterND;
-
-        String ndSection = // Trim the entry to be just the Nituach Dikduki section
-                hebWikiEntry.substring(NituachDikduki.lastTime.start, NituachDikduki.lastTime.end);
-
-        ArrayList<String> section
-                = new ArrayList<String>(Arrays.asList(ndSection.split(splitter)));
-
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-            if (!str.contains("=") || str.length() < 2 || str.equals("\n")) {
-                iterator.remove();
+    /**
+     * Split the text of a template to its parameters, in one pass over it: at
+     * each <tt>|</tt> which is not in a template or a link in the template.
+     * The braces and the brackets are counted as {@link BracketIndex} pairs
+     * them.
+     *
+     * @param text The text the template is in.
+     * @param open Where the <tt>{{</tt> of the template starts.
+     * @param close Where the <tt>}}</tt> which closes it starts.
+     * @return The parameters, as they are written, without the name of the
+     * template.
+     */
+    private static ArrayList<String> parameters(CharSequence text, int open, int close) {
+        ArrayList<String> parameters = new ArrayList<String>();
+        int braces = 0;
+        int brackets = 0;
+        int start = -1; // The name of the template is not a parameter
+        for (int i = open + 2; i < close; i++) {
+            char c = text.charAt(i);
+            if (c == '|' && braces == 0 && brackets == 0) {
+                if (start != -1) {
+                    parameters.add(text.subSequence(start, i).toString());
+                }
+                start = i + 1;
+            } else if ((c == '{' || c == '}' || c == '[' || c == ']')
+                    && i + 1 < close && text.charAt(i + 1) == c) {
+                switch (c) {
+                    case '{':
+                        braces++;
+                        break;
+                    case '[':
+                        brackets++;
+                        break;
+                    case '}':
+                        braces = Math.max(braces - 1, 0);
+                        break;
+                    case ']':
+                        brackets = Math.max(brackets - 1, 0);
+                        break;
+                }
+                i++;
             }
         }
-        String last = section.get(section.size() - 1);
-        section.remove(section.size() - 1);
-        if (Util.count(last, "}}") == 1) {
-            last = last.substring(0, last.length() - 2);
-        } else if (Util.count(last, "}}") == 2) {
-            if (Util.count(last, "{{") == 1) {
-                last = last.substring(0, last.length() - 2);
-            }
+        if (start != -1) {
+            parameters.add(text.subSequence(start, close).toString());
         }
-        section.add(last);
-
-        // Look for Ktiv Male
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("כתיב מלא=")) {
-                pattern = Pattern.compile("כתיב מלא=", Pattern.UNICODE_CASE);
-                matcher = pattern.matcher(str);
-                matcher.find();
+        return parameters;
+    }
 
-                String tmp = str.substring(matcher.end(), str.length() - 1);
-                tmp = tmp.trim();
-                tmp = tmp.replaceAll("\\{\\{הפניה\\|[^\\}.]*\\}\\}", "");
+    /**
+     * Read one field of the template.
+     *
+     * @param field to read.
+     * @param str The parameter of the field, as it is written.
+     * @param value What is after the <tt>=</tt> of the parameter.
+     */
+    private void read(Field field, String str, String value) {
+        switch (field) {
+            case KTIV_MALE:
+                String tmp = value.trim();
+                tmp = REDIRECT.matcher(tmp).replaceAll("");
                 tmp = Util.toPlain(tmp);
                 //  String[] ktivMaleArr = tmp.split("([']*|[\\(]*)[^\\u05D0-\\u05EA](וגם|גם|או|ואו)[^\\u05D0-\\u05EA][\\:'\\ ]*");
 
@@ -154,131 +222,68 @@ public class NituachDikduki {
                     tmp = "";
                 }
                 ktivMale = tmp;
-
-                iterator.remove();
                 break;
-            }
-        }
-
-        // Look for hagaya
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("הגייה=")) {
+            case PRONUNCIATION:
                 str = str.replace("הגייה=", "");
                 str = Util.toHtml(str);
                 if (!str.isEmpty()) {
                     pronunciation = str;
                 }
-                iterator.remove();
                 break;
-            }
-        }
-
-        // Look for gender
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-            if (str.contains("מין=")) {
+            case GENDER:
                 gender = GenderFinder.find(str);
-                iterator.remove();
                 break;
-            }
-        }
-
-        // Look for Root word
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("שורש=") || str.contains("שורש וגזרה=")) {
+            case ROOT:
                 RootFinder rootFinder = new RootFinder(str);
                 rootWord = rootFinder.getRoot();
                 form = rootFinder.getGizra();
-                iterator.remove();
                 break;
-            }
-        }
-
-        // Look for Building 
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("בניין=")) {
+            case BUILDING:
                 building = BuildingFinder.find(str);
-                iterator.remove();
                 break;
-            }
-        }
-
-        // Look for Netyot 
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("נטיות=")) {
+            case NETIYOT:
                 netiyot = NetiyotFinder.find(str);
                 //if (!netiyot.isEmpty()) //Uncomment to find problems
                 //    System.out.println(netiyot);
-                //  iterator.remove();
                 break;
-            }
-        }
-
-        // Look for tatzura
-        for (iterator = section.iterator(); iterator.hasNext();) {
-            String str = iterator.next();
-
-            if (str.contains("דרך תצורה=")) {
+            case DERECH_TATZURA:
                 derechTatzura = DerechTatzuraFinder.find(str);
-
-                iterator.remove();
                 break;
-            }
         }
     }
 
     /**
      * Check whether Nituach Dikduki section is exists.<br>
-     * If so, an {@link Position#end end} and {@link Position#start start}
-     * positions of the <i>Nituach Dikduki</i>
-     * section are assign to {@link  NituachDikduki#lastTime <tt>lastTime</tt>}
-     * to be used by {@link NituachDikduki} constructor.
+     * If so, returns the {@link Position#start start} and
+     * {@link Position#end end} positions of the <i>Nituach Dikduki</i>
+     * section, to be used by {@link NituachDikduki} constructor.<br>
+     * The section is the first template whose name starts with
+     * <tt>ניתוח דקדוקי</tt>, up to the braces which close it, templates in it
+     * included.
      *
-     * @param entryText String with the contents of the entry.
-     * @return <tt>true</tt> if Nituach Dikduki section is exists, otherwise
-     * <tt>false</tt>.
+     * @param entryText The contents of the entry, or a view of them.
+     * @return The position of the Nituach Dikduki section, or <tt>null</tt> if
+     * it doesn't exist.
+     * @throws IllegalArgumentException if the section is not closed.
      */
-    public static boolean isNeeded(String entryText) {
-        /*
-         * If 'stack' is zero at the end of the method: * The lastTime point to
-         * the end of "Nituach Dikduki" section. * The open curly bracket equals
-         * to the close curly bracket.
-         */
-        int stack = 0;
-        NituachDikduki.lastTime.start = 0;
-        NituachDikduki.lastTime.end = 0;
-        int index;
-        if (!entryText.contains("ניתוח דקדוקי")) { // No Nituach Dikduki found.
-            NituachDikduki.isNeeded = false;
-            return false;
-        } else {
-            NituachDikduki.lastTime.start = entryText.indexOf("{{ניתוח דקדוקי", 0);
-            NituachDikduki.lastTime.end = NituachDikduki.lastTime.start;
-            index = NituachDikduki.lastTime.end;
-            NituachDikduki.isNeeded = true;
+    public static Position find(CharSequence entryText) {
+        if (StringUtility.indexOf(entryText, "ניתוח דקדוקי", 0) == -1) { // No Nituach Dikduki found.
+            return null;
         }
-        do {
-            if (Util.stringAt(entryText, index).equals("{{")) {// Push stack
-                stack++;
-            } else if (Util.stringAt(entryText, index).equals("}}")) { // Pop stack
-                stack--;
-            }
-            if (stack == 0) {// The stack is empty
-                break;
+        BracketIndex brackets = new BracketIndex(entryText);
+        for (int open = brackets.next('{', 0); open != -1; open = brackets.next('{', open + 2)) {
+            if (brackets.templateName(open).startsWith("ניתוח דקדוקי")) {
+                int close = brackets.closing(open);
+                if (close == -1) {
+                    throw new IllegalArgumentException("The Nituach Dikduki section is not closed");
+                }
+                Position position = new Position();
+                position.start = open;
+                position.end = close + 1; // The last brace is left out of the section
+                return position;
             }
-            index++;
-        } while (index < entryText.length());
-        index++;
-        NituachDikduki.lastTime.end = index;
-        return true;
+        }
+        return null;
     }
 
     @Override
@@ -300,9 +305,10 @@ public class NituachDikduki {
      * Return the Wiki entry construct this {@link NituachDikduki} object
      * without the text of the nituach dikduki.
      *
-     * @return Text of wiki entry without the text of the nituach dikduki.
+     * @return Text of wiki entry without the text of the nituach dikduki, as a
+     * view of the entry.
      */
-    public String getWikiEntryWithoutND() {
+    public CharSequence getWikiEntryWithoutND() {
         return this.wikiEntryWithoutND;
     }
 
@@ -416,38 +422,6 @@ public class NituachDikduki {
          * //TODO: replace the Nikudd with ktiv male as describe here:
          * http://hebrew-academy.huji.ac.il/hahlatot/MissingVocalizationSpelling/Pages/ikkar.aspx
          */
-        String separator = "@";// just a sing
-        String tmp = this.netiyot;
-        int UC = Pattern.UNICODE_CASE;
-
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("[,;]{1}|(ר\"[זני'])|ר'|(נ\"[רי])|נ'|ס\"ר|ס\"ז", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("אוֹ ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile(" או ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("\u05BE", UC), separator);// \u05BE is HEBREW PUNCTUATION MAQAF
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("ר׳", UC), separator);//  RESH follow by HEBREW PUNCTUATION GERESH(\u05F3)
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("נ׳ ", UC), separator);//  NUN follow by HEBREW PUNCTUATION GERESH(\u05F3)
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("\\-", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("נ״ר", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("ס\"נ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("ס״ר ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile("ס' ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile(" גם ", UC), separator);
-        tmp = RegEx.replaceAll(tmp, Pattern.compile(separator + "[\\ ]*", UC), separator);
-
-        ArrayList<String> arr = new ArrayList<String>(Arrays.asList(tmp.split(separator)));
-
-        for (Iterator<String> it = arr.iterator(); it.hasNext();) {
-            String b = it.next().trim();
-            if (b.isEmpty()) {
-                it.remove();
-            }
-        }
-        for (String netiya : arr) {
-            netiya = netiya.trim();
-            //Uncomment to find problems
-            // System.out.println(netiya);
-        }
-
-        return arr;
+        return NETIYOT_SEPARATORS.split(this.netiyot);
     }
 }
@@ -0,0 +1,122 @@
+package dbFileBuilder.article.nituachDikduki;
+
+import dbFileBuilder.utilities.CharTrie;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * The separators of a list written in free text, such as the netiyot (נטיות),
+ * kept in a {@link CharTrie} so all of them are looked for in one pass over the text.<br>
+ * The separators are given in tiers, as if each tier was cut out of the text
+ * after the tiers before it: where separators of different tiers overlap, the
+ * one of the first tier wins, and in a tier the first one from the start of
+ * the text wins, the shorter of those which start at the same char.
+ * <br><br>
+ * The spaces after a separator are not part of the item after it.
+ */
+final class Separators {
+
+    /**
+     * The separators, each mapped to its tier.
+     */
+    private final CharTrie separators = new CharTrie();
+    private final int tierCount;
+
+    /**
+     * Make the separators of a table.
+     *
+     * @param table The separators, by their tiers, first tier first.
+     */
+    Separators(String[][] table) {
+        this.tierCount = table.length;
+        for (int tier = 0; tier < table.length; tier++) {
+            for (String separator : table[tier]) {
+                this.separators.add(separator, tier);
+            }
+        }
+    }
+
+    /**
+     * Split a text at the separators.
+     *
+     * @param text to split.
+     * @return The items between the separators, as they are written, without
+     * those which are only white spaces.
+     */
+    ArrayList<String> split(String text) {
+        int length = text.length();
+        /*
+         * The separators found from each char, by their tiers: the length of
+         * the first one of the tier, 0 if none.
+         */
+        int[][] found = new int[this.tierCount][];
+        for (int i = 0; i < length; i++) {
+            int node = CharTrie.ROOT;
+            for (int j = i; j < length; j++) {
+                node = this.separators.next(node, text.charAt(j));
+                if (node == -1) {
+                    break;
+                }
+                int tier = this.separators.value(node);
+                if (tier != -1) {
+                    if (found[tier] == null) {
+                        found[tier] = new int[length];
+                    }
+                    if (found[tier][i] == 0) {
+                        found[tier][i] = j + 1 - i;
+                    }
+                }
+            }
+        }
+        /*
+         * Where the separators which are cut out end, by where they start, 0
+         * where none starts; and each char they have.
+         */
+        int[] ends = new int[length];
+        boolean[] taken = new boolean[length];
+        for (int[] separators : found) {
+            if (separators == null) {
+                continue;
+            }
+            for (int i = 0; i < length; i++) {
+                int end = i + separators[i];
+                if (separators[i] == 0 || isFree(taken, i, end) == false) {
+                    continue;
+                }
+                ends[i] = end;
+                Arrays.fill(taken, i, end, true);
+                i = end - 1;
+            }
+        }
+        ArrayList<String> items = new ArrayList<String>();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            if (ends[i] == 0) {
+                continue;
+            }
+            add(items, text.substring(start, i));
+            start = ends[i];
+            while (start < length && text.charAt(start) == ' ' && ends[start] == 0) {
+                start++;
+            }
+            i = start - 1;
+        }
+        add(items, text.substring(start));
+        return items;
+    }
+
+    private static boolean isFree(boolean[] taken, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (taken[i] == true) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void add(ArrayList<String> items, String item) {
+        if (item.trim().isEmpty() == false) {
+            items.add(item);
+        }
+    }
+}
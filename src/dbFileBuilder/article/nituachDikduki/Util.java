@@ -8,9 +8,6 @@ import java.util.regex.Pattern;
  */
 public final class Util {
 
-    private static Pattern pattern;
-    private static Matcher matcher;
-
     private Util() {// Don't let anyone instantiate this class.
     }
     /**
@@ -35,7 +32,8 @@ public final class Util {
      * @return Same as text but with bold tag instead of apostrophes.
      */
     protected static String apostrophesToBoldTag(String text) {
-        pattern = Util.WIKI_BOLD;
+        Pattern pattern = Util.WIKI_BOLD;
+        Matcher matcher;
         do {
             matcher = pattern.matcher(text);
             text = matcher.replaceFirst("<b>");
@@ -165,15 +163,4 @@ public final class Util {
         }
         return i;
     }
-
-    /**
-     * Returns 2 characters length string at the specified <tt>index</tt>.
-     *
-     * @param str String to retrieve from.
-     * @param index the index of the string value.
-     * @return The String at the specified index of <tt>str</tt>.
-     */
-    protected static String stringAt(String str, int index) {
-        return str.substring(index, index + 2);
-    }
 }
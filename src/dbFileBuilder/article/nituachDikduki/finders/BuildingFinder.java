@@ -1,8 +1,5 @@
 package dbFileBuilder.article.nituachDikduki.finders;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * Class to extract root(בניין) from
  * {@link  dbFileBuilder.article.nituachDikduki.NituachDikduki} entry.
@@ -33,12 +30,41 @@ public final class BuildingFinder {
      * פֻּעַל {@value }
      */
     private final static String PUAL = "פֻּעַל";
-    private static Matcher matcher;
-    private static Pattern pattern;
+
     /**
-     * Current value to process.
+     * The spellings of the buildings, with and without niqqud, in the order
+     * they are looked for.
      */
-    private static String currentValue;
+    private static final Lexicon BUILDINGS = new Lexicon(new String[][]{
+        {HITPAEL, HITPAEL},
+        {HEFEEL, HEFEEL},
+        {NIFAAL, NIFAAL},
+        {HUFAL, HUFAL},
+        {PIEL, PIEL},
+        {PUAL, PUAL},
+        {"נפעל", NIFAAL},
+        {"קל", PUAL},
+        {"פיעל", PIEL},
+        {"התפעל", HITPAEL},
+        {"הפעיל", HEFEEL},
+        {"הופעל", HUFAL},
+        {"פֻּעַל", PUAL}, // The dagesh after the vowel
+        {"פָּעַל", PUAL}, // Not sure
+        {"פִּעֵל", PIEL}, // The dagesh after the vowel
+        {"הִתְפַּעֵל", HITPAEL}, // The dagesh after the vowel
+        {"פּעֵל", PUAL},
+        {"פֻעַל", PUAL},
+        {"פֻּעל", PUAL},
+        {"פַּעל", PUAL},
+        {"פִעֵל", PIEL},
+        {"פִּיעַל", PIEL},
+        {"התפועל", "התפועל"},
+        {"התפּעל", HITPAEL},
+        {"פָעַל", PUAL},
+        {"פעל", PUAL},
+        {"פועל", PUAL},
+        {"פָּעֵל", PUAL}
+    });
 
     private BuildingFinder() {// Don't let anyone instantiate this class.
     }
@@ -61,93 +87,12 @@ public final class BuildingFinder {
      * @return Building value.
      */
     public static String find(String line) {
-        currentValue = line;
-
-        if (contains(HITPAEL)) {
-            return HITPAEL;
-        }
-        if (contains(HEFEEL)) {
-            return HEFEEL;
-        }
-        if (contains(NIFAAL)) {
-            return NIFAAL;
-        }
-        if (contains(HUFAL)) {
-            return HUFAL;
-        }
-        if (contains(PIEL)) {
-            return PIEL;
-        }
-        if (contains(PUAL)) {
-            return PUAL;
-        }
-
-        if (contains("נפעל")) {
-            return NIFAAL;
-        } else if (contains("קל")) {
-            return PUAL;
-        } else if (contains("נפעל")) {
-            return NIFAAL;
-        } else if (contains("פיעל")) {
-            return PIEL;
-        } else if (contains("התפעל")) {
-            return HITPAEL;
-        } else if (contains("הפעיל")) {
-            return HEFEEL;
-        } else if (contains("הופעל")) {
-            return HUFAL;
-        } else if (contains("פֻּעַל")) {
-            return PUAL;
-        } else if (contains("פָּעַל"))// Not sure
-        {
-            return PUAL;
-        } else if (contains("פִּעֵל")) {
-            return PIEL;
-        } else if (contains("הִתְפַּעֵל")) {
-            return HITPAEL;
-        } else if (contains("פּעֵל")) {
-            return PUAL;
-        } else if (contains("פֻעַל")) {
-            return PUAL;
-        } else if (contains("פֻּעל")) {
-            return PUAL;
-        } else if (contains("פַּעל")) {
-            return PUAL;
-        } else if (contains("פִעֵל")) {
-            return PIEL;
-        } else if (contains("פִּיעַל")) {
-            return PIEL;
-        } else if (contains("התפועל")) {
-            return "התפועל";
-        } else if (contains("התפועל")) {
-            return "התפועל";
-        } else if (contains("התפּעל")) {
-            return HITPAEL;
-        } else if (contains("פָעַל")) {
-            return PUAL;
-        } else if (contains("פעל")) {
-            return PUAL;
-        } else if (contains("פועל")) {
-            return PUAL;
-        } else if (contains("פָּעֵל")) {
-            return PUAL;
+        String building = BUILDINGS.find(line);
+        if (building != null) {
+            return building;
         }
 
         //System.out.println(line.trim());  //Uncomment to find problems
         return "";
     }
-
-    /**
-     * Returns true if and only if <tt>{@link  #currentValue currentValue}</tt>
-     * contains <tt>toLookFor</tt>.
-     *
-     * @param text to search for.
-     * @return true if <tt>{@link  #currentValue currentValue}</tt> string
-     * contains <code>text</code>, false otherwise
-     */
-    private static boolean contains(String text) {
-        pattern = Pattern.compile(text, Pattern.UNICODE_CASE);
-        matcher = pattern.matcher(currentValue);
-        return matcher.find();
-    }
 }
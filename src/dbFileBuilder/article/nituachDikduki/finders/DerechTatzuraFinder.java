@@ -9,8 +9,11 @@ import java.util.regex.Pattern;
  */
 public final class DerechTatzuraFinder {
 
-    private static Matcher matcher;
-    private static Pattern pattern;
+    private static final Pattern WEIGHT = Pattern.compile("\\{\\{משקל\\|[^\\}]*\\}\\}", Pattern.UNICODE_CASE);
+    private static final Pattern LINK = Pattern.compile("(\\[\\[[^\\|]*\\|)([^\\]]*)(\\]\\])", Pattern.UNICODE_CASE);
+    private static final Pattern TAG = Pattern.compile("<[^>]*>");
+    private static final Pattern BRACKETS = Pattern.compile("[\\[\\]\\{\\}]");
+    private static final Pattern APOSTROPHES = Pattern.compile("'''|''");
 
     private DerechTatzuraFinder() {//  Don't let anyone instantiate this class.
     }
@@ -29,8 +32,7 @@ public final class DerechTatzuraFinder {
         line = line.replace("דרך תצורה=", "");
         line = line.trim();
 
-        pattern = Pattern.compile("\\{\\{משקל\\|[^\\}]*\\}\\}", Pattern.UNICODE_CASE);
-        matcher = pattern.matcher(line);
+        Matcher matcher = WEIGHT.matcher(line);
         if (matcher.find()) {
             String weight = matcher.group();
             weight = weight.substring(weight.indexOf("|") + 1, weight.indexOf("}"));
@@ -49,14 +51,13 @@ public final class DerechTatzuraFinder {
      */
     private static String normalize(String wiki) {
 
-        pattern = Pattern.compile("(\\[\\[[^\\|]*\\|)([^\\]]*)(\\]\\])", Pattern.UNICODE_CASE);
-        matcher = pattern.matcher(wiki);
+        Matcher matcher = LINK.matcher(wiki);
         while (matcher.find()) {
-            wiki = wiki.replaceFirst("(\\[\\[[^\\|]*\\|)([^\\]]*)(\\]\\])", matcher.group(2));
+            wiki = LINK.matcher(wiki).replaceFirst(matcher.group(2));
         }
-        wiki = wiki.replaceAll("<[^>]*>", "");
-        wiki = wiki.replaceAll("[\\[\\]\\{\\}]", "");
-        wiki = wiki.replaceAll("'''|''", "");
+        wiki = TAG.matcher(wiki).replaceAll("");
+        wiki = BRACKETS.matcher(wiki).replaceAll("");
+        wiki = APOSTROPHES.matcher(wiki).replaceAll("");
 
         return wiki.trim();
     }
@@ -8,6 +8,38 @@ import dbFileBuilder.utilities.StringUtility;
  */
 public final class GenderFinder {
 
+    /**
+     * The gender values, as they are written without quotes, brackets and
+     * commas, and the value each is clustered to.
+     */
+    private static final Lexicon VALUES = new Lexicon(new String[][]{
+        {"ז", "זכר"},
+        {"זכר", "זכר"},
+        {"זר", "זכר רבים"},
+        {"נ", "נקבה"},
+        {"נקבה", "נקבה"},
+        {"נקבה רבים", "נקבה רבות"},
+        {"זונ", "זכר ונקבה"}
+    });
+    /**
+     * The gender values which are clustered only as they are written, quotes
+     * and all.
+     */
+    private static final Lexicon AS_WRITTEN = new Lexicon(new String[][]{
+        {"זכר ריבוי", "זכר רבים"},
+        {"זכר רבים", "זכר רבים"}
+    });
+    /**
+     * What a gender value is guessed to be by what it has in it, in the order
+     * it is guessed.
+     */
+    private static final Lexicon GUESSES = new Lexicon(new String[][]{
+        {"ז", "זכר"},
+        {"נ", "נקבה"},
+        {"רבות", "נקבה רבות"},
+        {"רבים", "זכר רבים"}
+    });
+
     private GenderFinder() {// Don't let anyone instantiate this class.
     }
 
@@ -23,32 +55,18 @@ public final class GenderFinder {
         line = line.replace("מין=", "");
         line = StringUtility.removeNewLine(line);
 
-        String tmp = line.replaceAll("\"", "");
-        tmp = tmp.replaceAll("'", "");
-        tmp = tmp.replaceAll("\\(|\\)", "");
-        tmp = tmp.replaceAll(",", "");
-        tmp = tmp.replaceAll("  ", " ");
+        String tmp = normalize(line);
 
         // Clustering the gender values
-        if (tmp.equals("ז") || tmp.equals("זכר")) {
-            line = "זכר";
-        } else if (tmp.equals("זר") || line.equals("זכר ריבוי") || line.equals("זכר רבים")) {
-            line = "זכר רבים";
-        } else if (tmp.equals("נ") || tmp.equals("נקבה")) {
-            line = "נקבה";
-        } else if (tmp.equals("נקבה רבים")) {
-            line = "נקבה רבות";
-        } else if (tmp.equals("זונ")) {
-            line = "זכר ונקבה";
-        } // Starting to guess
-        else if (tmp.contains("ז")) {
-            line = "זכר";
-        } else if (tmp.contains("נ")) {
-            line = "נקבה";
-        } else if (tmp.contains("רבות")) {
-            line = "נקבה רבות";
-        } else if (tmp.contains("רבים")) {
-            line = "זכר רבים";
+        String gender = VALUES.get(tmp);
+        if (gender == null) {
+            gender = AS_WRITTEN.get(line);
+        }
+        if (gender == null) { // Starting to guess
+            gender = GUESSES.find(tmp);
+        }
+        if (gender != null) {
+            line = gender;
         }
 
         //Uncomment to find problems
@@ -57,4 +75,41 @@ public final class GenderFinder {
         //   }
         return line;
     }
+
+    /**
+     * Remove quotes, brackets and commas from <tt>line</tt>, and make each two
+     * spaces in a row one.
+     */
+    private static String normalize(String line) {
+        StringBuilder normalized = new StringBuilder(line.length());
+        int spaces = 0;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            switch (c) {
+                case '"':
+                case '\'':
+                case '(':
+                case ')':
+                case ',':
+                    continue;
+                case ' ':
+                    spaces++;
+                    continue;
+            }
+            appendSpaces(normalized, spaces);
+            spaces = 0;
+            normalized.append(c);
+        }
+        appendSpaces(normalized, spaces);
+        return normalized.toString();
+    }
+
+    /**
+     * Append a run of <tt>count</tt> spaces with each two of them made one.
+     */
+    private static void appendSpaces(StringBuilder normalized, int count) {
+        for (int i = 0; i < (count + 1) / 2; i++) {
+            normalized.append(' ');
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package dbFileBuilder.article.nituachDikduki.finders;
+
+import dbFileBuilder.utilities.CharTrie;
+
+/**
+ * The known spellings of values, each mapped to the value it is clustered
+ * to.<br>
+ * The spellings, with niqqud and without, are kept in a {@link CharTrie}, so
+ * all of them are looked for in one pass over a line.
+ */
+final class Lexicon {
+
+    /**
+     * The spellings, each mapped to the number of its row.
+     */
+    private final CharTrie spellings = new CharTrie();
+    private final String[] values;
+
+    /**
+     * Make a lexicon of a table.
+     *
+     * @param table Rows of a spelling and the value it is clustered to. Where
+     * a line has more than one spelling, the first row of them wins.
+     */
+    Lexicon(String[][] table) {
+        this.values = new String[table.length];
+        for (int i = 0; i < table.length; i++) {
+            this.values[i] = table[i][1];
+            this.spellings.add(table[i][0], i);
+        }
+    }
+
+    /**
+     * Look for the spellings in <tt>line</tt>.
+     *
+     * @param line of text to process.
+     * @return The value of the first row whose spelling is in <tt>line</tt>,
+     * or <tt>null</tt> if none is.
+     */
+    String find(String line) {
+        int first = -1;
+        int length = line.length();
+        for (int i = 0; i < length && first != 0; i++) {
+            int node = CharTrie.ROOT;
+            for (int j = i; j < length; j++) {
+                node = this.spellings.next(node, line.charAt(j));
+                if (node == -1) {
+                    break;
+                }
+                int end = this.spellings.value(node);
+                if (end != -1 && (first == -1 || end < first)) {
+                    first = end;
+                }
+            }
+        }
+        return first == -1 ? null : this.values[first];
+    }
+
+    /**
+     * @return The value of the row whose spelling is all of <tt>text</tt>, or
+     * <tt>null</tt> if none is.
+     */
+    String get(String text) {
+        int row = this.spellings.get(text);
+        return row == -1 ? null : this.values[row];
+    }
+}
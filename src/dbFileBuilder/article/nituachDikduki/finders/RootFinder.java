@@ -11,8 +11,46 @@ import java.util.regex.Pattern;
  */
 public final class RootFinder {
 
-    private static Matcher matcher;
-    private static Pattern pattern;
+    /**
+     * What separates the roots of a line.
+     */
+    private static final Pattern SEPARATOR = Pattern.compile(",|או");
+    private static final Pattern SMALL = Pattern.compile("<small>[^<]*</small>");
+    /**
+     * What separates the letters of a three letters root.
+     */
+    private static final Pattern LETTER_SEPARATOR = Pattern.compile("\\||-");
+    private static final Pattern BRACES = Pattern.compile("\\{|\\}");
+    /**
+     * What follows a three letters root which is not needed.
+     */
+    private static final Pattern UNNECESSARY = Pattern.compile("[\\ ;][^\\(\\)]*(?![^[(]+|\\(([^)]*)\\)|\\[[^]]*])");
+    /**
+     * Additional information about a root.
+     */
+    private static final Pattern ADDITIONAL_INFO = Pattern.compile("\\([^\\(]*\\)", Pattern.UNICODE_CASE);
+    private static final Pattern BRACKETS = Pattern.compile("\\[|\\]");
+    private static final Pattern LAST_LETTER = Pattern.compile("[\\ ][^\\ \\)\\(]{1}$");
+    private static final Pattern GIZRA = Pattern.compile("(גזרת[^\\[\\|]+(\\{\\[|\\|))", Pattern.UNICODE_CASE);
+    /**
+     * Match what inside the <tt>[[ ]]</tt>.
+     */
+    private static final Pattern LINK = Pattern.compile("\\[\\[[^\\]]*\\]\\]", Pattern.UNICODE_CASE);
+    private static final Pattern LINK_BRACKETS = Pattern.compile("\\[\\[|\\]\\]");
+    /**
+     * What a gizra is guessed to be by what the line has in it, in the order
+     * it is guessed.
+     */
+    private static final Lexicon GIZRA_GUESSES = new Lexicon(new String[][]{
+        {"השלמים", "גזרת השלמים"},
+        {"כפולים", "כפולים"},
+        {"מרובעים", "מרובעים"},
+        {"מחומשים", "מחומשים"},
+        {"משושים", "משושים"},
+        {"חסרי פ\"נ", "חסרי פ\"נ"},
+        {"נחי ע\"ו", "נחי ע\"ו"},
+        {"חפ\"נ", "חפ\"נ"}
+    });
     /**
      * Hold the gizra(גיזרה)
      *
@@ -39,17 +77,17 @@ public final class RootFinder {
             findGizra(line);
         }
 
-        str = str.replaceAll("שורש וגזרה=", "");
-        str = str.replaceAll("שורש=", "");
-        str = str.replaceAll("  ", " ");
+        str = str.replace("שורש וגזרה=", "");
+        str = str.replace("שורש=", "");
+        str = str.replace("  ", " ");
 
-        String[] arr = str.split(",|או");
+        String[] arr = SEPARATOR.split(str);
 
         for (String s : arr) {
-            s = s.replaceAll("<small>[^<]*</small>", "");
+            s = SMALL.matcher(s).replaceAll("");
             if (s.contains("3"))// Three letters root 
             {
-                String[] rootArr = s.split("\\||-");
+                String[] rootArr = LETTER_SEPARATOR.split(s);
                 rootArr // remove  the  {{שרש3
                         = ArrayUtils.removeEltement(rootArr, 0);
                 if (rootArr.length >= 4)// too long
@@ -57,26 +95,25 @@ public final class RootFinder {
                     rootArr = ArrayUtils.removeEltement(rootArr, rootArr.length - 1);
                 }
                 String thirdRootPhrase = ArrayUtils.join(rootArr, "-");
-                thirdRootPhrase = thirdRootPhrase.replaceAll("\\{|\\}", "");
+                thirdRootPhrase = BRACES.matcher(thirdRootPhrase).replaceAll("");
 
                 thirdRootPhrase =// remove unnecessary data
-                        thirdRootPhrase.replaceAll("[\\ ;][^\\(\\)]*(?![^[(]+|\\(([^)]*)\\)|\\[[^]]*])", " ");
+                        UNNECESSARY.matcher(thirdRootPhrase).replaceAll(" ");
 
                 rootWord += " " + thirdRootPhrase;
 
             } else if (s.contains("4")) // Four letters root 
             {
-                String fourthRootPhrase = s.replaceAll("\\{\\{שרש4\\|", "");
-                fourthRootPhrase = fourthRootPhrase.replaceAll("\\}\\}", "");
-                fourthRootPhrase = fourthRootPhrase.replaceAll("\\|", "-");
+                String fourthRootPhrase = s.replace("{{שרש4|", "");
+                fourthRootPhrase = fourthRootPhrase.replace("}}", "");
+                fourthRootPhrase = fourthRootPhrase.replace('|', '-');
 
                 rootWord += " " + fourthRootPhrase;
             } else {
                 String root = s;
                 String additionalInfo = "";
-                pattern = // Trying to retrieve additional information
-                        Pattern.compile("\\([^\\(]*\\)", Pattern.UNICODE_CASE);
-                matcher = pattern.matcher(root);
+                // Trying to retrieve additional information
+                Matcher matcher = ADDITIONAL_INFO.matcher(root);
                 if (matcher.find()) {
                     additionalInfo = matcher.group();
                 }
@@ -87,7 +124,7 @@ public final class RootFinder {
                         int endIndex = r.indexOf("}}");
                         endIndex = (endIndex == -1) ? r.indexOf("]]") : endIndex;
                         root = r.substring(0, endIndex);
-                        root = root.replaceAll("\\[|\\]", "");
+                        root = BRACKETS.matcher(root).replaceAll("");
                         root += additionalInfo;
 
                         rootWord += " " + root;
@@ -97,8 +134,8 @@ public final class RootFinder {
             }
         }
 
-        rootWord = rootWord.replaceAll("[\\ ][^\\ \\)\\(]{1}$", "");
-        rootWord = rootWord.replaceAll("\\\\ \\\\ ", " ");
+        rootWord = LAST_LETTER.matcher(rootWord).replaceAll("");
+        rootWord = rootWord.replace("\\ \\ ", " ");
         rootWord = StringUtility.removeNewLine(rootWord);
 
         rootWord = rootWord.trim();
@@ -113,24 +150,20 @@ public final class RootFinder {
      * @see #gizra
      */
     private void findGizra(String line) {
-        pattern
-                = Pattern.compile("(גזרת[^\\[\\|]+(\\{\\[|\\|))", Pattern.UNICODE_CASE);
-        matcher = pattern.matcher(line);
+        Matcher matcher = GIZRA.matcher(line);
 
         if (matcher.find()) { // First attempt 
             gizra = matcher.group();
-            gizra = gizra.replaceAll("\\|", "");
-            gizra = gizra.replaceAll("\\[\\[|\\]\\]", "");
+            gizra = gizra.replace("|", "");
+            gizra = LINK_BRACKETS.matcher(gizra).replaceAll("");
             gizra = gizra.trim();
             return;
         } else { // Second attempt 
-            pattern = // match waht inside the [[ ]]
-                    Pattern.compile("\\[\\[[^\\]]*\\]\\]", Pattern.UNICODE_CASE);
-            matcher = pattern.matcher(line);
+            matcher = LINK.matcher(line);
             if (matcher.find()) {
                 gizra = matcher.group();
                 gizra // Replace all the [[ and all the ]]
-                        = gizra.replaceAll("\\[\\[|\\]\\]", "");
+                        = LINK_BRACKETS.matcher(gizra).replaceAll("");
                 if (!gizra.contains("|")) {
                     gizra = gizra.trim();
                     return;
@@ -139,22 +172,9 @@ public final class RootFinder {
         }
 
         // Trying to guss
-        if (line.contains("השלמים")) {
-            gizra = "גזרת השלמים";
-        } else if (line.contains("כפולים")) {
-            gizra = "כפולים";
-        } else if (line.contains("מרובעים")) {
-            gizra = "מרובעים";
-        } else if (line.contains("מחומשים")) {
-            gizra = "מחומשים";
-        } else if (line.contains("משושים")) {
-            gizra = "משושים";
-        } else if (line.contains("חסרי פ\"נ")) {
-            gizra = "חסרי פ\"נ";
-        } else if (line.contains("נחי ע\"ו")) {
-            gizra = "נחי ע\"ו";
-        } else if (line.contains("חפ\"נ")) {
-            gizra = "חפ\"נ";
+        String guess = GIZRA_GUESSES.find(line);
+        if (guess != null) {
+            gizra = guess;
         }
     }
 
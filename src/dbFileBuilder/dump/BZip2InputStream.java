@@ -0,0 +1,459 @@
+package dbFileBuilder.dump;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompress <a href="http://www.bzip.org/">bzip2</a> data.<br>
+ * Concatenated bzip2 streams (such as the wiktionary multistream dump) are
+ * decompressed one after the other, as if they were one stream.
+ * <br><br>
+ * <b>NOTE</b>:<br>
+ * Blocks written by the ancient "randomised" mode of bzip2 (version 0.9.0 and
+ * before) are not supported.
+ *
+ * @see <a href="https://github.com/dsnet/compress/blob/master/doc/bzip2-format.pdf">The
+ * bzip2 format</a>
+ */
+public class BZip2InputStream extends InputStream {
+
+    private static final long BLOCK_MAGIC = 0x314159265359L;
+    private static final long END_OF_STREAM_MAGIC = 0x177245385090L;
+    private static final int RUNA = 0;
+    private static final int RUNB = 1;
+    private static final int GROUP_SIZE = 50;
+    private static final int MAX_GROUPS = 6;
+    private static final int MAX_ALPHA_SIZE = 258;
+    private static final int MAX_CODE_LENGTH = 20;
+    private static final int MAX_SELECTORS = 18002;
+    /**
+     * CRC32 table of the bzip2 flavour (MSB first, polynomial 0x04c11db7).
+     */
+    private static final int[] CRC_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            int c = i << 24;
+            for (int j = 0; j < 8; j++) {
+                c = (c & 0x80000000) != 0 ? (c << 1) ^ 0x04c11db7 : c << 1;
+            }
+            CRC_TABLE[i] = c;
+        }
+    }
+    private final InputStream in;
+    private int bitBuffer;
+    private int bitCount;
+    /**
+     * Block size of the current stream, in bytes.
+     */
+    private int blockSize;
+    /**
+     * Holds the block after the Huffman and MTF stages, and then the inverse
+     * BWT links.
+     */
+    private int[] tt;
+    private int blockLength;
+    private int blockUsed;
+    private int tPos;
+    private int blockCrc;
+    private int computedBlockCrc;
+    private int streamCrc;
+    private int computedStreamCrc;
+    /**
+     * Run length decoding state.
+     */
+    private int lastByte = -1;
+    private int runCount;
+    private int repeat;
+    private boolean endOfData = false;
+    // Decoding tables, kept to avoid allocation per block.
+    private final byte[] seqToUnseq = new byte[256];
+    private final byte[] selectors = new byte[MAX_SELECTORS];
+    private final byte[][] lengths = new byte[MAX_GROUPS][MAX_ALPHA_SIZE];
+    private final int[][] limit = new int[MAX_GROUPS][MAX_CODE_LENGTH + 2];
+    private final int[][] base = new int[MAX_GROUPS][MAX_CODE_LENGTH + 2];
+    private final int[][] perm = new int[MAX_GROUPS][MAX_ALPHA_SIZE];
+    private final int[] minLength = new int[MAX_GROUPS];
+    private final int[] counts = new int[256];
+    private final byte[] oneByte = new byte[1];
+
+    /**
+     * Creates a new <tt>BZip2InputStream</tt>.
+     *
+     * @param in bzip2 compressed data. Should be buffered.
+     * @throws IOException if <tt>in</tt> does not start with a bzip2 stream
+     * header.
+     */
+    public BZip2InputStream(InputStream in) throws IOException {
+        this.in = in;
+        if (!this.readStreamHeader(true)) {
+            this.endOfData = true;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = this.read(this.oneByte, 0, 1);
+        return n == -1 ? -1 : this.oneByte[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        int written = 0;
+        while (written < length) {
+            if (this.repeat > 0) {
+                int n = Math.min(this.repeat, length - written);
+                byte b = (byte) this.lastByte;
+                for (int i = 0; i < n; i++) {
+                    buffer[offset + written + i] = b;
+                    this.updateCrc(b);
+                }
+                written += n;
+                this.repeat -= n;
+                continue;
+            }
+            if (this.endOfData) {
+                break;
+            }
+            if (this.blockUsed == this.blockLength) {
+                if (!this.nextBlock()) {
+                    this.endOfData = true;
+                }
+                continue;
+            }
+
+            // Inverse BWT, one byte at a time.
+            this.tPos = this.tt[this.tPos];
+            int b = this.tPos & 0xff;
+            this.tPos >>>= 8;
+            this.blockUsed++;
+
+            // Undo the initial run length encoding: four equal bytes are
+            // followed by the number of additional copies.
+            if (this.runCount == 4) {
+                this.repeat = b;
+                this.runCount = 0;
+                continue;
+            }
+            if (b == this.lastByte) {
+                this.runCount++;
+            } else {
+                this.runCount = 1;
+                this.lastByte = b;
+            }
+            buffer[offset + written++] = (byte) b;
+            this.updateCrc((byte) b);
+        }
+        return written == 0 ? -1 : written;
+    }
+
+    private void updateCrc(byte b) {
+        this.computedBlockCrc = (this.computedBlockCrc << 8) ^ CRC_TABLE[((this.computedBlockCrc >>> 24) ^ b) & 0xff];
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * Reads the <tt>BZh</tt> header of a stream.
+     *
+     * @param first <tt>true</tt> for the first stream, whose header must
+     * exist.
+     * @return <tt>false</tt> if the input ended instead of a new stream.
+     */
+    private boolean readStreamHeader(boolean first) throws IOException {
+        int b = this.in.read();
+        if (b == -1 && !first) {
+            return false;
+        }
+        if (b != 'B' || this.in.read() != 'Z' || this.in.read() != 'h') {
+            throw new IOException("Not a bzip2 stream");
+        }
+        int level = this.in.read() - '0';
+        if (level < 1 || level > 9) {
+            throw new IOException("Bad bzip2 block size");
+        }
+        if (this.tt == null || this.blockSize != level * 100000) {
+            this.blockSize = level * 100000;
+            this.tt = new int[this.blockSize];
+        }
+        this.bitCount = 0;
+        this.computedStreamCrc = 0;
+        return true;
+    }
+
+    /**
+     * Finish the current block and decode the next one, moving to the next
+     * stream if needed.
+     *
+     * @return <tt>false</tt> if there is no more data.
+     */
+    private boolean nextBlock() throws IOException {
+        if (this.tt != null && this.blockLength != 0) {
+            if (~this.computedBlockCrc != this.blockCrc) {
+                throw new IOException("bzip2 block CRC mismatch");
+            }
+            this.computedStreamCrc = ((this.computedStreamCrc << 1) | (this.computedStreamCrc >>> 31)) ^ this.blockCrc;
+        }
+        this.blockLength = 0;
+        this.blockUsed = 0;
+
+        while (true) {
+            long magic = ((long) this.readBits(24) << 24) | this.readBits(24);
+            if (magic == BLOCK_MAGIC) {
+                this.decodeBlock();
+                return true;
+            }
+            if (magic != END_OF_STREAM_MAGIC) {
+                throw new IOException("Bad bzip2 block magic");
+            }
+            this.streamCrc = this.readInt();
+            if (this.streamCrc != this.computedStreamCrc) {
+                throw new IOException("bzip2 stream CRC mismatch");
+            }
+            if (!this.readStreamHeader(false)) { // Streams are byte aligned.
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads one block up to (and including) the Huffman and MTF stages, and
+     * prepares the inverse BWT.
+     */
+    private void decodeBlock() throws IOException {
+        this.blockCrc = this.readInt();
+        this.computedBlockCrc = 0xffffffff;
+        this.lastByte = -1;
+        this.runCount = 0;
+        if (this.readBits(1) != 0) {
+            throw new IOException("Randomised bzip2 blocks are not supported");
+        }
+        int origPtr = this.readBits(24);
+
+        // Symbol map.
+        int inUse16 = this.readBits(16);
+        int numInUse = 0;
+        for (int i = 0; i < 16; i++) {
+            if ((inUse16 & (0x8000 >>> i)) != 0) {
+                int bits = this.readBits(16);
+                for (int j = 0; j < 16; j++) {
+                    if ((bits & (0x8000 >>> j)) != 0) {
+                        this.seqToUnseq[numInUse++] = (byte) (i * 16 + j);
+                    }
+                }
+            }
+        }
+        if (numInUse == 0) {
+            throw new IOException("Bad bzip2 symbol map");
+        }
+        int alphaSize = numInUse + 2;
+
+        // Selectors.
+        int numGroups = this.readBits(3);
+        int numSelectors = this.readBits(15);
+        if (numGroups < 2 || numGroups > MAX_GROUPS || numSelectors < 1) {
+            throw new IOException("Bad bzip2 Huffman groups");
+        }
+        byte[] position = new byte[MAX_GROUPS];
+        for (int i = 0; i < numGroups; i++) {
+            position[i] = (byte) i;
+        }
+        for (int i = 0; i < numSelectors; i++) {
+            int j = 0;
+            while (this.readBits(1) != 0) {
+                j++;
+                if (j >= numGroups) {
+                    throw new IOException("Bad bzip2 selector");
+                }
+            }
+            byte value = position[j]; // Undo the MTF of the selectors
+            for (; j > 0; j--) {
+                position[j] = position[j - 1];
+            }
+            position[0] = value;
+            if (i < MAX_SELECTORS) {
+                this.selectors[i] = value;
+            }
+        }
+        numSelectors = Math.min(numSelectors, MAX_SELECTORS);
+
+        // Huffman code lengths.
+        for (int t = 0; t < numGroups; t++) {
+            int current = this.readBits(5);
+            for (int i = 0; i < alphaSize; i++) {
+                while (true) {
+                    if (current < 1 || current > MAX_CODE_LENGTH) {
+                        throw new IOException("Bad bzip2 code length");
+                    }
+                    if (this.readBits(1) == 0) {
+                        break;
+                    }
+                    current += this.readBits(1) == 0 ? 1 : -1;
+                }
+                this.lengths[t][i] = (byte) current;
+            }
+            this.createDecodeTable(t, alphaSize);
+        }
+
+        // Huffman, run length (RUNA/RUNB) and MTF decoding.
+        int endOfBlock = numInUse + 1;
+        int[] mtf = new int[256];
+        for (int i = 0; i < 256; i++) {
+            mtf[i] = i;
+        }
+        for (int i = 0; i < 256; i++) {
+            this.counts[i] = 0;
+        }
+        int length = 0;
+        int groupIndex = -1;
+        int groupPosition = 0;
+        int table = 0;
+        int runLength = 0;
+        int runWeight = 1;
+        while (true) {
+            if (groupPosition == 0) {
+                groupIndex++;
+                if (groupIndex >= numSelectors) {
+                    throw new IOException("Bad bzip2 selector index");
+                }
+                groupPosition = GROUP_SIZE;
+                table = this.selectors[groupIndex];
+            }
+            groupPosition--;
+            int symbol = this.decodeSymbol(table);
+
+            if (symbol == RUNA || symbol == RUNB) {
+                runLength += (symbol + 1) * runWeight;
+                runWeight <<= 1;
+                if (runLength > this.blockSize) {
+                    throw new IOException("bzip2 block overflow");
+                }
+                continue;
+            }
+            if (runLength > 0) {
+                int b = this.seqToUnseq[mtf[0]] & 0xff;
+                if (length + runLength > this.blockSize) {
+                    throw new IOException("bzip2 block overflow");
+                }
+                this.counts[b] += runLength;
+                for (; runLength > 0; runLength--) {
+                    this.tt[length++] = b;
+                }
+                runWeight = 1;
+            }
+            if (symbol == endOfBlock) {
+                break;
+            }
+            if (length >= this.blockSize) {
+                throw new IOException("bzip2 block overflow");
+            }
+            int index = symbol - 1;
+            int value = mtf[index];
+            System.arraycopy(mtf, 0, mtf, 1, index);
+            mtf[0] = value;
+            int b = this.seqToUnseq[value] & 0xff;
+            this.counts[b]++;
+            this.tt[length++] = b;
+        }
+        if (origPtr >= length) {
+            throw new IOException("Bad bzip2 origin pointer");
+        }
+
+        // Prepare the inverse BWT: link each byte to its successor.
+        int[] cumulative = new int[256];
+        for (int i = 0, sum = 0; i < 256; i++) {
+            cumulative[i] = sum;
+            sum += this.counts[i];
+        }
+        for (int i = 0; i < length; i++) {
+            int b = this.tt[i] & 0xff;
+            this.tt[cumulative[b]++] |= i << 8;
+        }
+        this.tPos = this.tt[origPtr] >>> 8;
+        this.blockLength = length;
+        this.blockUsed = 0;
+    }
+
+    /**
+     * Builds the canonical Huffman decoding table number <tt>t</tt>.
+     */
+    private void createDecodeTable(int t, int alphaSize) {
+        byte[] length = this.lengths[t];
+        int[] tableLimit = this.limit[t];
+        int[] tableBase = this.base[t];
+        int[] tablePerm = this.perm[t];
+        int min = MAX_CODE_LENGTH;
+        int max = 0;
+        for (int i = 0; i < alphaSize; i++) {
+            min = Math.min(min, length[i]);
+            max = Math.max(max, length[i]);
+        }
+        int p = 0;
+        for (int l = min; l <= max; l++) {
+            for (int i = 0; i < alphaSize; i++) {
+                if (length[i] == l) {
+                    tablePerm[p++] = i;
+                }
+            }
+        }
+        int[] count = new int[MAX_CODE_LENGTH + 2];
+        for (int i = 0; i < alphaSize; i++) {
+            count[length[i]]++;
+        }
+        int code = 0;
+        int index = 0;
+        for (int l = 0; l < tableLimit.length; l++) {
+            tableLimit[l] = -1;
+        }
+        for (int l = min; l <= max; l++) {
+            // Codes of length l are [code, code + count[l]) and map to perm[index...]
+            tableBase[l] = index - code;
+            code += count[l];
+            index += count[l];
+            tableLimit[l] = code - 1;
+            code <<= 1;
+        }
+        this.minLength[t] = min;
+    }
+
+    private int decodeSymbol(int t) throws IOException {
+        int[] tableLimit = this.limit[t];
+        int length = this.minLength[t];
+        int code = this.readBits(length);
+        while (length <= MAX_CODE_LENGTH) {
+            if (code <= tableLimit[length]) {
+                return this.perm[t][code + this.base[t][length]];
+            }
+            code = (code << 1) | this.readBits(1);
+            length++;
+        }
+        throw new IOException("Bad bzip2 Huffman code");
+    }
+
+    private int readInt() throws IOException {
+        return (this.readBits(16) << 16) | this.readBits(16);
+    }
+
+    /**
+     * Reads up to 24 bits, most significant bit first.
+     */
+    private int readBits(int n) throws IOException {
+        while (this.bitCount < n) {
+            int b = this.in.read();
+            if (b == -1) {
+                throw new EOFException("Unexpected end of bzip2 data");
+            }
+            this.bitBuffer = (this.bitBuffer << 8) | b;
+            this.bitCount += 8;
+        }
+        this.bitCount -= n;
+        return (this.bitBuffer >>> this.bitCount) & ((1 << n) - 1);
+    }
+}
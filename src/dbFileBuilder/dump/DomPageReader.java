@@ -0,0 +1,216 @@
+package dbFileBuilder.dump;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+/**
+ * The original way of reading the dump: collect each
+ * <tt>{@literal <}page{@literal >}</tt> line by line and parse it to a W3C DOM.
+ * <br>
+ * The lines are collected as bytes, into a {@link PageBuffer} which is reused
+ * for every page, and the page is parsed from there; no line, text or array of
+ * a page is made on the way to its DOM.
+ * <br>
+ * Kept as a reference for the {@link StaxPageReader}, which should be
+ * preferred.
+ */
+public class DomPageReader implements PageSource {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] OPEN_PAGE_TAG = "<page>".getBytes(UTF_8);
+    private static final byte[] CLOSE_PAGE_TAG = "</page>".getBytes(UTF_8);
+    private final InputStream inputStream;
+    private final DocumentBuilder docBuilder;
+    /**
+     * The bytes read from the dump and not handled yet, from
+     * {@link #chunkStart} to {@link #chunkEnd}.
+     */
+    private final byte[] chunk = new byte[1 << 16];
+    private int chunkStart = 0;
+    private int chunkEnd = 0;
+    /**
+     * The lines of the current page; outside a page, the current line.
+     */
+    private final PageBuffer page = new PageBuffer();
+    /**
+     * Indicates whether the processing is inside page tag or not.
+     */
+    private boolean insidePage = false;
+    /**
+     * Current line to process.
+     */
+    private int lineCount = 0;
+
+    /**
+     * Creates a new <tt>DomPageReader</tt>.
+     *
+     * @param inputStream UTF-8 encoded XML dump.
+     * @throws IOException if the parser can't be created.
+     */
+    public DomPageReader(InputStream inputStream) throws IOException {
+        this.inputStream = inputStream;
+        try {
+            this.docBuilder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+        } catch (ParserConfigurationException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    @Override
+    public Page next() throws IOException {
+        while (true) {
+            if (this.insidePage == false) {
+                this.page.clear();
+            }
+            int line = this.page.length();
+            if (this.readLine() == false) {
+                return null;
+            }
+            this.lineCount++;
+
+            if (this.isALine(line, OPEN_PAGE_TAG)) {
+                this.insidePage = true;// Processing going inside page tag
+                this.page.keepFrom(line);
+            } else if (this.insidePage == true && this.isALine(line, CLOSE_PAGE_TAG)) {
+                this.insidePage = false;
+                try {
+                    Document doc = this.docBuilder.parse(this.page.stream());
+                    return toPage(doc);
+                } catch (SAXException ex) {
+                    throw new IOException(ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Append the next line of the dump to the page, with its new line sign.
+     *
+     * @return <tt>false</tt> if the dump ended before the line started.
+     */
+    private boolean readLine() throws IOException {
+        int start = this.page.length();
+        while (true) {
+            if (this.chunkStart == this.chunkEnd) {
+                // Not available(): a decompressing stream may have nothing buffered yet.
+                int n = this.inputStream.read(this.chunk, 0, this.chunk.length);
+                if (n == -1) {
+                    return this.page.length() > start;
+                }
+                this.chunkStart = 0;
+                this.chunkEnd = n;
+            }
+            int end = this.chunkStart;
+            while (end < this.chunkEnd && this.chunk[end] != '\n') {
+                end++;
+            }
+            boolean isLineEnd = end < this.chunkEnd;
+            if (isLineEnd) {
+                end++;
+            }
+            this.page.append(this.chunk, this.chunkStart, end - this.chunkStart);
+            this.chunkStart = end;
+            if (isLineEnd) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if the line which starts at <tt>from</tt> in the
+     * page is <tt>tag</tt>, with nothing but white space around it.
+     */
+    private boolean isALine(int from, byte[] tag) {
+        int to = this.page.length();
+        while (from < to && isWhiteSpace(this.page.get(from))) {
+            from++;
+        }
+        while (to > from && isWhiteSpace(this.page.get(to - 1))) {
+            to--;
+        }
+        if (to - from != tag.length) {
+            return false;
+        }
+        for (int i = 0; i < tag.length; i++) {
+            if (this.page.get(from + i) != tag[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <tt>true</tt> for the bytes of <tt>\s</tt> in a
+     * {@link java.util.regex.Pattern}.
+     */
+    private static boolean isWhiteSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == 0x0B || b == '\f' || b == '\r';
+    }
+
+    /**
+     * Converts a DOM of one page to {@link Page}.
+     *
+     * @param doc DOM of one <tt>{@literal <}page{@literal >}</tt> element.
+     * @return The page.
+     */
+    private static Page toPage(Document doc) {
+        String title = textOf(doc.getElementsByTagName("title"));
+        String ns = textOf(doc.getElementsByTagName("ns"));
+        String id = textOf(doc.getElementsByTagName("id"));
+        String revisionId = "";
+        NodeList revision = doc.getElementsByTagName("revision");
+        if (revision.getLength() != 0) {
+            revisionId = textOf(((Element) revision.item(0)).getElementsByTagName("id"));
+        }
+        String sha1 = textOf(doc.getElementsByTagName("sha1"));
+
+        String redirectTarget = null;
+        NodeList redirectNode = doc.getElementsByTagName("redirect");
+        if (redirectNode.getLength() != 0) {
+            redirectTarget = ((Element) redirectNode.item(0)).getAttribute("title");
+        }
+
+        return new Page(title,
+                ns.isEmpty() ? 0 : Integer.parseInt(ns.trim()),
+                id.isEmpty() ? 0 : Long.parseLong(id.trim()),
+                revisionId.isEmpty() ? 0 : Long.parseLong(revisionId.trim()),
+                sha1.isEmpty() ? null : sha1.trim(),
+                redirectTarget,
+                textOf(doc.getElementsByTagName("text")));
+    }
+
+    /**
+     * @return The text content of the first node in <tt>list</tt>, empty
+     * string if the list is empty.
+     */
+    private static String textOf(NodeList list) {
+        Node node = list.item(0);
+        if (node == null) {
+            return "";
+        }
+        return node.getTextContent();
+    }
+
+    @Override
+    public int getLineNumber() {
+        return this.lineCount;
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.inputStream.close();
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+}
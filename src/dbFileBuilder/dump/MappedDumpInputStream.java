@@ -0,0 +1,258 @@
+package dbFileBuilder.dump;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads an uncompressed XML dump which is mapped to memory, and leaves out
+ * the pages which are not to be processed on the way, as the
+ * {@link PageFilterInputStream} does.<br>
+ * The dump is mapped a large window at a time. The pages are found in the
+ * window itself, eight bytes at a time, and the bytes which are passed on are
+ * copied from it straight to the buffer of the reader: they are not read to
+ * a buffer of a stream first, and not copied again to filter them.
+ * <br><br>
+ * A page whose head or whose end is past the end of the window is mapped
+ * again from its start, in a window which is large enough to hold it.
+ */
+public class MappedDumpInputStream extends InputStream {
+
+    /**
+     * The number of bytes of the dump which are mapped at a time.
+     */
+    private static final int WINDOW = 1 << 28;
+    private static final long ONES = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final long size;
+    private MappedByteBuffer window;
+    /**
+     * Where the window starts in the dump.
+     */
+    private long windowStart = 0;
+    /**
+     * Where in the window the bytes which are not handled yet start.
+     */
+    private int position = 0;
+    /**
+     * The number of bytes at {@link #position} which are passed on without
+     * being looked at.
+     */
+    private int open = 0;
+    /**
+     * The new line signs of a page left out which are not passed on yet.
+     */
+    private int newLines = 0;
+    private final byte[] one = new byte[1];
+
+    /**
+     * Creates a new <tt>MappedDumpInputStream</tt>.
+     *
+     * @param file UTF-8 encoded XML dump.
+     * @throws IOException if the dump can't be opened or mapped.
+     */
+    public MappedDumpInputStream(File file) throws IOException {
+        this.file = new RandomAccessFile(file, "r");
+        this.channel = this.file.getChannel();
+        this.size = this.channel.size();
+        this.map(0, WINDOW);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = this.read(this.one, 0, 1);
+        return n == -1 ? -1 : this.one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (this.newLines > 0) {
+                int n = Math.min(len, this.newLines);
+                for (int i = 0; i < n; i++) {
+                    b[off + i] = '\n';
+                }
+                this.newLines -= n;
+                return n;
+            }
+            if (this.open > 0) {
+                int n = Math.min(len, this.open);
+                this.window.position(this.position);
+                this.window.get(b, off, n);
+                this.position += n;
+                this.open -= n;
+                return n;
+            }
+            int limit = this.window.limit();
+            if (this.position == limit && this.isLastWindow()) {
+                return -1;
+            }
+            int page = this.indexOf(this.position, limit, PageFilterInputStream.PAGE);
+            if (page == -1) {
+                if (this.isLastWindow()) {
+                    this.open = limit - this.position;
+                } else { // Keep the bytes which may be the start of a page
+                    this.open = Math.max(0, limit - PageFilterInputStream.PAGE.length + 1 - this.position);
+                    if (this.open == 0) {
+                        this.map(this.position, WINDOW);
+                    }
+                }
+                continue;
+            }
+            if (page > this.position) {
+                this.open = page - this.position;
+                continue;
+            }
+            int head = this.indexOf(page, limit, PageFilterInputStream.REVISION);
+            int pageEnd = this.indexOf(page, head == -1 ? limit : head, PageFilterInputStream.PAGE_END);
+            if (pageEnd != -1) { // A page without a revision
+                head = pageEnd;
+            }
+            if (head == -1) {
+                if (this.isLastWindow() == false) {
+                    this.map(page, page == 0 ? 2L * limit : WINDOW);
+                    continue;
+                }
+                head = limit; // Cut
+            }
+            if (PageFilterInputStream.isToProcess(this.window, page, head) == true) {
+                this.open = Math.max(head - page, PageFilterInputStream.PAGE.length);
+                continue;
+            }
+            if (pageEnd == -1) {
+                pageEnd = this.indexOf(head, limit, PageFilterInputStream.PAGE_END);
+            }
+            if (pageEnd != -1) {
+                pageEnd += PageFilterInputStream.PAGE_END.length;
+            } else if (this.isLastWindow() == false) {
+                this.map(page, page == 0 ? 2L * limit : WINDOW);
+                continue;
+            } else {
+                pageEnd = limit; // Cut
+            }
+            this.newLines = this.countNewLines(page, pageEnd);
+            this.position = pageEnd;
+        }
+    }
+
+    /**
+     * Map the dump from a place in the window.
+     *
+     * @param from Where in the window the new one starts.
+     * @param length The number of bytes to map, if the dump has them.
+     * @throws IOException if the window can't grow to hold a page.
+     */
+    private void map(int from, long length) throws IOException {
+        if (this.window != null && from == 0 && this.window.limit() == Integer.MAX_VALUE) {
+            throw new IOException("A page at byte " + this.windowStart + " is too long to map");
+        }
+        this.windowStart += from;
+        this.position = 0;
+        length = Math.min(Math.min(length, this.size - this.windowStart), Integer.MAX_VALUE);
+        this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, this.windowStart, length);
+        this.window.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private boolean isLastWindow() {
+        return this.windowStart + this.window.limit() == this.size;
+    }
+
+    /**
+     * Look for a tag in the window, a word of eight bytes at a time.
+     *
+     * @param bytes The tag, which starts with <tt>{@literal <}</tt>.
+     * @return Where the first <tt>bytes</tt> in the range start, or
+     * <tt>-1</tt> if they are not all in it.
+     */
+    private int indexOf(int from, int to, byte[] bytes) {
+        int last = to - bytes.length;
+        int i = from;
+        while (i <= last) {
+            if (i + 8 <= to) {
+                long zeros = zeroBytes(this.window.getLong(i) ^ ('<' * ONES));
+                if (zeros == 0) {
+                    i += 8;
+                    continue;
+                }
+                i += Long.numberOfTrailingZeros(zeros) >>> 3;
+                if (i > last) {
+                    break;
+                }
+            } else if (this.window.get(i) != '<') {
+                i++;
+                continue;
+            }
+            int j = 1;
+            while (j < bytes.length && this.window.get(i + j) == bytes[j]) {
+                j++;
+            }
+            if (j == bytes.length) {
+                return i;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of new line signs in the range of the window.
+     */
+    private int countNewLines(int from, int to) {
+        int count = 0;
+        int i = from;
+        for (; i + 8 <= to; i += 8) {
+            long word = this.window.getLong(i) ^ ('\n' * ONES);
+            // The high bit of each byte is clear only if the byte is zero
+            count += Long.bitCount(~(((word & LOW_BITS) + LOW_BITS) | word | LOW_BITS));
+        }
+        for (; i < to; i++) {
+            if (this.window.get(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return A word whose lowest set bit is the high bit of the first zero
+     * byte of <tt>word</tt>, or <tt>0</tt> if it has no zero byte.
+     */
+    private static long zeroBytes(long word) {
+        return (word - ONES) & ~word & HIGH_BITS;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] b = new byte[(int) Math.min(n, 1 << 13)];
+        long skippedBytes = 0;
+        while (skippedBytes < n) {
+            int read = this.read(b, 0, (int) Math.min(b.length, n - skippedBytes));
+            if (read == -1) {
+                break;
+            }
+            skippedBytes += read;
+        }
+        return skippedBytes;
+    }
+
+    @Override
+    public int available() {
+        return this.newLines + this.open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+        this.file.close();
+    }
+}
@@ -0,0 +1,130 @@
+package dbFileBuilder.dump;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.Arrays;
+
+/**
+ * The index of a multistream dump.<br>
+ * Each line of the index file has the form <tt>offset:pageId:title</tt>, where
+ * <tt>offset</tt> is the byte offset, in the compressed dump, of the bzip2
+ * stream that holds the page. Each stream holds up to 100 pages.
+ * <br><br>
+ * The first stream of the dump (the <tt>{@literal <}siteinfo{@literal >}</tt>)
+ * and the last one (the closing tag) hold no pages, so they are not listed in
+ * the index.
+ */
+public class MultistreamIndex {
+
+    /**
+     * Offsets of the streams listed in the index, ascending.
+     */
+    private final long[] offsets;
+    /**
+     * Id of the first page of each stream.
+     */
+    private final long[] firstPageIds;
+
+    /**
+     * Reads an index file.
+     *
+     * @param file The index file, bzip2 compressed if its name ends with
+     * <tt>.bz2</tt>.
+     * @throws IOException if the file can't be read or is malformed.
+     */
+    public MultistreamIndex(File file) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(file), 1 << 16);
+        if (file.getName().endsWith(".bz2")) {
+            in = new BZip2InputStream(in);
+        }
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+        long[] offs = new long[1024];
+        long[] ids = new long[1024];
+        int count = 0;
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int first = line.indexOf(':');
+                int second = line.indexOf(':', first + 1);
+                if (first == -1 || second == -1) {
+                    if (line.isEmpty()) {
+                        continue;
+                    }
+                    throw new IOException("Bad index line: " + line);
+                }
+                long offset = Long.parseLong(line.substring(0, first));
+                if (count != 0 && offs[count - 1] == offset) {
+                    continue; // Another page of the same stream.
+                }
+                if (count != 0 && offs[count - 1] > offset) {
+                    throw new IOException("Index is not sorted: " + line);
+                }
+                if (count == offs.length) {
+                    offs = Arrays.copyOf(offs, count * 2);
+                    ids = Arrays.copyOf(ids, count * 2);
+                }
+                offs[count] = offset;
+                ids[count] = Long.parseLong(line.substring(first + 1, second));
+                count++;
+            }
+        } catch (NumberFormatException ex) {
+            throw new IOException(ex);
+        } finally {
+            reader.close();
+        }
+        this.offsets = Arrays.copyOf(offs, count);
+        this.firstPageIds = Arrays.copyOf(ids, count);
+    }
+
+    /**
+     * @return Number of streams listed in the index.
+     */
+    public int size() {
+        return this.offsets.length;
+    }
+
+    /**
+     * @param i Stream number.
+     * @return The offset of stream number <tt>i</tt> in the compressed dump.
+     */
+    public long getOffset(int i) {
+        return this.offsets[i];
+    }
+
+    /**
+     * Find the stream which holds a page, assuming that the pages are ordered
+     * by id, as they are in the dumps.
+     *
+     * @param pageId Id of a page.
+     * @return The number of the last stream whose first page id is not above
+     * <tt>pageId</tt>, or <tt>0</tt> if there is no such stream.
+     */
+    public int findStream(long pageId) {
+        int low = 0;
+        int high = this.firstPageIds.length - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (this.firstPageIds[mid] <= pageId) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param i Stream number.
+     * @return The id of the first page in stream number <tt>i</tt>.
+     */
+    public long getFirstPageId(int i) {
+        return this.firstPageIds[i];
+    }
+}
@@ -0,0 +1,225 @@
+package dbFileBuilder.dump;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decompress a multistream dump on several threads.<br>
+ * The {@link MultistreamIndex index} splits the compressed dump into
+ * independent bzip2 streams. The streams are decompressed in parallel, and
+ * their content is returned in the original order, so reading this stream
+ * gives exactly the bytes of the uncompressed dump.
+ * <br><br>
+ * Only a few streams are decompressed ahead of the reader, so the memory in
+ * use does not depend on the size of the dump.
+ */
+public class MultistreamInputStream extends InputStream {
+
+    private final RandomAccessFile file;
+    private final FileChannel channel;
+    private final ExecutorService executor;
+    /**
+     * Start and end offsets of the chunks of the dump to read.
+     */
+    private final long[] starts;
+    private final long[] ends;
+    /**
+     * The next chunk to hand to the executor.
+     */
+    private int nextStream = 0;
+    /**
+     * Streams which are being decompressed, in order.
+     */
+    private final LinkedList<Future<byte[]>> pending = new LinkedList<Future<byte[]>>();
+    /**
+     * Maximum number of decompressed streams held ahead of the reader.
+     */
+    private final int lookahead;
+    private byte[] current = new byte[0];
+    private int position = 0;
+
+    /**
+     * Creates a new <tt>MultistreamInputStream</tt>.
+     *
+     * @param dump The multistream dump.
+     * @param index The index of <tt>dump</tt>.
+     * @param threads Number of threads to decompress with.
+     * @throws IOException if <tt>dump</tt> can't be opened.
+     */
+    public MultistreamInputStream(File dump, MultistreamIndex index, int threads) throws IOException {
+        this(dump, index, threads, 0);
+    }
+
+    /**
+     * Creates a new <tt>MultistreamInputStream</tt> which skips the indexed
+     * streams before <tt>firstStream</tt>. The stream with the
+     * <tt>{@literal <}siteinfo{@literal >}</tt> is still read, so the result
+     * is a well formed dump.
+     *
+     * @param dump The multistream dump.
+     * @param index The index of <tt>dump</tt>.
+     * @param threads Number of threads to decompress with.
+     * @param firstStream Number of the first indexed stream to read.
+     * @throws IOException if <tt>dump</tt> can't be opened.
+     */
+    public MultistreamInputStream(File dump, MultistreamIndex index, int threads, int firstStream) throws IOException {
+        this.file = new RandomAccessFile(dump, "r");
+        this.channel = this.file.getChannel();
+        long length = this.channel.size();
+
+        // The stream before the first indexed one holds the <siteinfo>, and
+        // the last indexed one is followed by the closing tag.
+        long[] bounds = new long[index.size() + 2];
+        int count = 0;
+        bounds[count++] = 0;
+        for (int i = 0; i < index.size(); i++) {
+            long offset = index.getOffset(i);
+            if (offset > bounds[count - 1] && offset < length) {
+                bounds[count++] = offset;
+            }
+        }
+        bounds[count++] = length;
+
+        // Each chunk is [starts[i], ends[i]); the chunks of the skipped streams
+        // are left out.
+        int first = 1;
+        while (first < count - 1 && bounds[first] < index.getOffset(firstStream)) {
+            first++;
+        }
+        int skip = first - 1;
+        int chunks = count - 1 - skip;
+        this.starts = new long[chunks];
+        this.ends = new long[chunks];
+        this.starts[0] = bounds[0];
+        this.ends[0] = bounds[1];
+        for (int i = 1; i < chunks; i++) {
+            this.starts[i] = bounds[i + skip];
+            this.ends[i] = bounds[i + skip + 1];
+        }
+
+        this.lookahead = threads * 2;
+        this.executor = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "bzip2-decompressor");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.fill();
+    }
+
+    /**
+     * Hand streams to the executor until the lookahead is full.
+     */
+    private void fill() {
+        while (this.pending.size() < this.lookahead && this.nextStream < this.starts.length) {
+            final long start = this.starts[this.nextStream];
+            final long end = this.ends[this.nextStream];
+            this.nextStream++;
+            this.pending.add(this.executor.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws IOException {
+                    return decompress(start, end);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Decompress the stream(s) between <tt>start</tt> and <tt>end</tt>.
+     */
+    private byte[] decompress(long start, long end) throws IOException {
+        byte[] compressed = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(compressed);
+        while (buffer.hasRemaining()) {
+            if (this.channel.read(buffer, start + buffer.position()) == -1) {
+                throw new EOFException("Unexpected end of the dump at " + (start + buffer.position()));
+            }
+        }
+        InputStream in = new BZip2InputStream(new ByteArrayInputStream(compressed));
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compressed.length * 5);
+        byte[] chunk = new byte[1 << 16];
+        int n;
+        while ((n = in.read(chunk, 0, chunk.length)) != -1) {
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Move to the next decompressed stream.
+     *
+     * @return <tt>false</tt> if there are no more streams.
+     */
+    private boolean nextChunk() throws IOException {
+        while (this.position == this.current.length) {
+            if (this.pending.isEmpty()) {
+                return false;
+            }
+            try {
+                this.current = this.pending.removeFirst().get();
+            } catch (InterruptedException ex) {
+                throw new InterruptedIOException();
+            } catch (ExecutionException ex) {
+                Throwable cause = ex.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(cause);
+            }
+            this.position = 0;
+            this.fill();
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (this.position == this.current.length && !this.nextChunk()) {
+            return -1;
+        }
+        return this.current[this.position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        if (this.position == this.current.length && !this.nextChunk()) {
+            return -1;
+        }
+        int n = Math.min(length, this.current.length - this.position);
+        System.arraycopy(this.current, this.position, buffer, offset, n);
+        this.position += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return this.current.length - this.position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.executor.shutdownNow();
+        this.pending.clear();
+        this.file.close();
+    }
+}
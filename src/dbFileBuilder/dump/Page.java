@@ -0,0 +1,128 @@
+package dbFileBuilder.dump;
+
+/**
+ * Lightweight representation of one <tt>{@literal <}page{@literal >}</tt>
+ * element of the wiktionary XML dump.<br>
+ * Holds only the values the builder needs, without any DOM behind it.
+ *
+ * @see <a href="http://meta.wikimedia.org/wiki/Data_dumps/Dump_format">Data
+ * dumps - Dump format</a>
+ */
+public class Page {
+
+    /**
+     * The title of the page.
+     */
+    private final String title;
+    /**
+     * The namespace of the page. <tt>0</tt> is the main (article) namespace.
+     */
+    private final int namespace;
+    /**
+     * The page id.
+     */
+    private final long id;
+    /**
+     * The id of the revision the text was taken from.
+     */
+    private final long revisionId;
+    /**
+     * The sha1 of the revision text as written in the dump (base 36).
+     */
+    private final String sha1;
+    /**
+     * Where the page redirect to, <tt>null</tt> if it is not a redirect page.
+     */
+    private final String redirectTarget;
+    /**
+     * The text of the page in wiki markup.
+     */
+    private final String text;
+
+    /**
+     * Creates a new <tt>Page</tt>.
+     *
+     * @param title of the page.
+     * @param namespace of the page.
+     * @param id of the page.
+     * @param revisionId of the revision.
+     * @param sha1 of the revision text, may be <tt>null</tt>.
+     * @param redirectTarget of the page, <tt>null</tt> if it is not a
+     * redirect page.
+     * @param text of the page in wiki markup.
+     */
+    public Page(String title, int namespace, long id, long revisionId,
+            String sha1, String redirectTarget, String text) {
+        this.title = title;
+        this.namespace = namespace;
+        this.id = id;
+        this.revisionId = revisionId;
+        this.sha1 = sha1;
+        this.redirectTarget = redirectTarget;
+        this.text = text;
+    }
+
+    /**
+     * @return The title of the page.
+     */
+    public String getTitle() {
+        return this.title;
+    }
+
+    /**
+     * @return The namespace of the page.
+     */
+    public int getNamespace() {
+        return this.namespace;
+    }
+
+    /**
+     * @return The page id.
+     */
+    public long getId() {
+        return this.id;
+    }
+
+    /**
+     * @return The id of the revision the text was taken from.
+     */
+    public long getRevisionId() {
+        return this.revisionId;
+    }
+
+    /**
+     * @return The sha1 of the revision text, <tt>null</tt> if the dump does
+     * not contain it.
+     */
+    public String getSha1() {
+        return this.sha1;
+    }
+
+    /**
+     * @return Where the page redirect to, <tt>null</tt> if it is not a
+     * redirect page.
+     */
+    public String getRedirectTarget() {
+        return this.redirectTarget;
+    }
+
+    /**
+     * @return <tt>true</tt> if, and only if, the page contains a
+     * <tt>{@literal <}redirect{@literal >}</tt> tag.
+     */
+    public boolean isRedirect() {
+        return this.redirectTarget != null;
+    }
+
+    /**
+     * @return The text of the page in wiki markup.
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    @Override
+    public String toString() {
+        return this.title + " (" + this.id + ")";
+    }
+}
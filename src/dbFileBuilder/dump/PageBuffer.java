@@ -0,0 +1,102 @@
+package dbFileBuilder.dump;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * The bytes of one page at a time, in a direct buffer which is reused for
+ * every page of the dump, so reading a page allocates no buffer of its own.
+ * <br>
+ * The buffer grows to hold the longest page so far. Once a page much longer
+ * than usual is done with, a buffer of the first size takes the place of the
+ * grown one, so a single long page does not hold its memory to the end of the
+ * dump.
+ */
+final class PageBuffer {
+
+    private static final int INITIAL_SIZE = 1 << 16;
+    /**
+     * The largest buffer which is kept for the next page.
+     */
+    private static final int MAX_KEPT_SIZE = 1 << 24;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(INITIAL_SIZE);
+
+    /**
+     * Drop the bytes of the page, to start the next one.
+     */
+    void clear() {
+        if (this.buffer.capacity() > MAX_KEPT_SIZE) {
+            this.buffer = ByteBuffer.allocateDirect(INITIAL_SIZE);
+        } else {
+            this.buffer.clear();
+        }
+    }
+
+    /**
+     * Drop the bytes before <tt>from</tt>, and move the rest to the start.
+     */
+    void keepFrom(int from) {
+        this.buffer.flip();
+        this.buffer.position(from);
+        this.buffer.compact();
+    }
+
+    /**
+     * @return The number of bytes in the buffer.
+     */
+    int length() {
+        return this.buffer.position();
+    }
+
+    byte get(int index) {
+        return this.buffer.get(index);
+    }
+
+    void append(byte[] bytes, int offset, int length) {
+        if (this.buffer.remaining() < length) {
+            long capacity = this.buffer.capacity();
+            while (capacity - this.buffer.position() < length) {
+                capacity *= 2;
+            }
+            ByteBuffer grown = ByteBuffer.allocateDirect((int) Math.min(capacity, Integer.MAX_VALUE));
+            this.buffer.flip();
+            grown.put(this.buffer);
+            this.buffer = grown;
+        }
+        this.buffer.put(bytes, offset, length);
+    }
+
+    /**
+     * @return The bytes in the buffer, as a stream. It is valid until the
+     * buffer is changed.
+     */
+    InputStream stream() {
+        final ByteBuffer bytes = this.buffer.duplicate();
+        bytes.flip();
+        return new InputStream() {
+
+            @Override
+            public int read() {
+                return bytes.hasRemaining() ? bytes.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0) {
+                    return 0;
+                }
+                if (bytes.hasRemaining() == false) {
+                    return -1;
+                }
+                int n = Math.min(len, bytes.remaining());
+                bytes.get(b, off, n);
+                return n;
+            }
+
+            @Override
+            public int available() {
+                return bytes.remaining();
+            }
+        };
+    }
+}
@@ -0,0 +1,287 @@
+package dbFileBuilder.dump;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * Drop the pages which are not to be processed from the UTF-8 bytes of the
+ * dump, before they are decoded.<br>
+ * The head of each <tt>{@literal <}page{@literal >}</tt>, up to its
+ * <tt>{@literal <}revision{@literal >}</tt>, is held back until it is read,
+ * and its title is looked at as bytes: a page whose title has a <tt>:</tt>,
+ * which the title of every page outside the main namespace has, or which is
+ * the main page and not a redirect, is left out, as
+ * {@link dbFileBuilder.PageConverter#isToProcess(dbFileBuilder.dump.Page)}
+ * leaves it out. The rest of the dump is passed on as it is. A page whose head
+ * is not as expected is passed on, to be checked after it is parsed.
+ * <br><br>
+ * A page left out is replaced by its new line signs, so the line numbers of
+ * the pages after it do not change.
+ */
+public class PageFilterInputStream extends FilterInputStream {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    static final byte[] PAGE = "<page>".getBytes(UTF_8);
+    static final byte[] PAGE_END = "</page>".getBytes(UTF_8);
+    static final byte[] REVISION = "<revision>".getBytes(UTF_8);
+    private static final byte[] TITLE = "<title>".getBytes(UTF_8);
+    private static final byte[] TITLE_END = "</title>".getBytes(UTF_8);
+    private static final byte[] REDIRECT = "<redirect".getBytes(UTF_8);
+    private static final byte[] MAIN_PAGE = "עמוד ראשי".getBytes(UTF_8);
+    /**
+     * Passing the bytes on, up to the next page.
+     */
+    private static final int PASS = 0;
+    /**
+     * At the start of a page, whose head is not read yet.
+     */
+    private static final int HEAD = 1;
+    /**
+     * In a page which is left out.
+     */
+    private static final int SKIP = 2;
+    private final byte[] buffer = new byte[1 << 16];
+    private final ByteBuffer wrapped = ByteBuffer.wrap(this.buffer);
+    /**
+     * The bytes read from the dump and not handled yet.
+     */
+    private int start = 0;
+    private int end = 0;
+    private boolean endOfDump = false;
+    private int state = PASS;
+    /**
+     * The number of bytes at {@link #start} which are passed on without being
+     * looked at.
+     */
+    private int open = 0;
+    /**
+     * The new line signs of a page left out which are not passed on yet.
+     */
+    private int newLines = 0;
+    private final byte[] one = new byte[1];
+
+    /**
+     * Creates a new <tt>PageFilterInputStream</tt>.
+     *
+     * @param in UTF-8 encoded XML dump.
+     */
+    public PageFilterInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = this.read(this.one, 0, 1);
+        return n == -1 ? -1 : this.one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (true) {
+            if (this.newLines > 0) {
+                int n = Math.min(len, this.newLines);
+                for (int i = 0; i < n; i++) {
+                    b[off + i] = '\n';
+                }
+                this.newLines -= n;
+                return n;
+            }
+            if (this.open > 0) {
+                int n = Math.min(len, this.open);
+                System.arraycopy(this.buffer, this.start, b, off, n);
+                this.start += n;
+                this.open -= n;
+                return n;
+            }
+            if (this.start == this.end && this.fill() == false) {
+                return -1;
+            }
+            switch (this.state) {
+                case PASS: {
+                    int page = indexOf(this.buffer, this.start, this.end, PAGE);
+                    if (page == this.start) {
+                        this.state = HEAD;
+                        continue;
+                    }
+                    if (page == -1) { // Keep the bytes which may be the start of a page
+                        page = this.endOfDump ? this.end : Math.max(this.start, this.end - PAGE.length + 1);
+                    }
+                    if (page == this.start) {
+                        this.fill();
+                        continue;
+                    }
+                    this.open = page - this.start;
+                    continue;
+                }
+                case HEAD: {
+                    int head = indexOf(this.buffer, this.start, this.end, REVISION);
+                    int pageEnd = indexOf(this.buffer, this.start, head == -1 ? this.end : head, PAGE_END);
+                    if (pageEnd != -1) { // A page without a revision
+                        head = pageEnd;
+                    }
+                    if (head == -1) {
+                        if (this.endOfDump == false && this.fill() == true) {
+                            continue;
+                        }
+                        head = this.end; // Too long, or cut: it is passed on
+                    }
+                    if (isToProcess(this.wrapped, this.start, head) == false) {
+                        this.state = SKIP;
+                        continue;
+                    }
+                    this.state = PASS;
+                    this.open = Math.max(head - this.start, PAGE.length);
+                    continue;
+                }
+                case SKIP: {
+                    int pageEnd = indexOf(this.buffer, this.start, this.end, PAGE_END);
+                    int to;
+                    if (pageEnd != -1) {
+                        to = pageEnd + PAGE_END.length;
+                        this.state = PASS;
+                    } else { // Keep the bytes which may be the start of its end
+                        to = this.endOfDump ? this.end : Math.max(this.start, this.end - PAGE_END.length + 1);
+                    }
+                    if (to == this.start) {
+                        this.fill();
+                        continue;
+                    }
+                    for (int i = this.start; i < to; i++) {
+                        if (this.buffer[i] == '\n') {
+                            this.newLines++;
+                        }
+                    }
+                    this.start = to;
+                    continue;
+                }
+            }
+        }
+    }
+
+    /**
+     * Read more of the dump to the buffer, after the bytes which are not
+     * handled yet.
+     *
+     * @return <tt>false</tt> if nothing more could be read: the dump ended,
+     * or the buffer is full.
+     */
+    private boolean fill() throws IOException {
+        if (this.endOfDump == true) {
+            return false;
+        }
+        if (this.start > 0) {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0, this.end - this.start);
+            this.end -= this.start;
+            this.start = 0;
+        }
+        if (this.end == this.buffer.length) {
+            return false;
+        }
+        int n = this.in.read(this.buffer, this.end, this.buffer.length - this.end);
+        if (n == -1) {
+            this.endOfDump = true;
+            return false;
+        }
+        this.end += n;
+        return true;
+    }
+
+    /**
+     * Decide on a page by its head.
+     *
+     * @param bytes which hold the head.
+     * @param from Where the head starts in <tt>bytes</tt>.
+     * @param to Where the head ends.
+     * @return <tt>false</tt> only if the page is surely not to be processed.
+     */
+    static boolean isToProcess(ByteBuffer bytes, int from, int to) {
+        int title = indexOf(bytes, from, to, TITLE);
+        if (title == -1) {
+            return true;
+        }
+        title += TITLE.length;
+        int titleEnd = indexOf(bytes, title, to, TITLE_END);
+        if (titleEnd == -1) {
+            return true;
+        }
+        for (int i = title; i < titleEnd; i++) {
+            if (bytes.get(i) == ':') {
+                return false;
+            }
+        }
+        return titleEnd - title != MAIN_PAGE.length || indexOf(bytes, title, titleEnd, MAIN_PAGE) != title
+                || indexOf(bytes, from, to, REDIRECT) != -1;
+    }
+
+    /**
+     * @return Where the first <tt>bytes</tt> in the range of <tt>buffer</tt>
+     * start, or <tt>-1</tt> if they are not all in it.
+     */
+    static int indexOf(ByteBuffer buffer, int from, int to, byte[] bytes) {
+        byte first = bytes[0];
+        for (int i = from; i <= to - bytes.length; i++) {
+            if (buffer.get(i) != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < bytes.length && buffer.get(i + j) == bytes[j]) {
+                j++;
+            }
+            if (j == bytes.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Where the first <tt>bytes</tt> in the range start, or
+     * <tt>-1</tt> if they are not all in it.
+     */
+    private static int indexOf(byte[] array, int from, int to, byte[] bytes) {
+        byte first = bytes[0];
+        for (int i = from; i <= to - bytes.length; i++) {
+            if (array[i] != first) {
+                continue;
+            }
+            int j = 1;
+            while (j < bytes.length && array[i + j] == bytes[j]) {
+                j++;
+            }
+            if (j == bytes.length) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        byte[] b = new byte[(int) Math.min(n, 1 << 13)];
+        long skippedBytes = 0;
+        while (skippedBytes < n) {
+            int read = this.read(b, 0, (int) Math.min(b.length, n - skippedBytes));
+            if (read == -1) {
+                break;
+            }
+            skippedBytes += read;
+        }
+        return skippedBytes;
+    }
+
+    @Override
+    public int available() {
+        return this.newLines + this.open;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
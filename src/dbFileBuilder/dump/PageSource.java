@@ -0,0 +1,29 @@
+package dbFileBuilder.dump;
+
+import java.io.IOException;
+
+/**
+ * Source of {@link Page}s, in the order they appear in the dump.
+ */
+public interface PageSource {
+
+    /**
+     * Reads the next page of the dump.
+     *
+     * @return The next {@link Page}, or <tt>null</tt> if there are no more
+     * pages.
+     * @throws IOException if the dump can't be read or is malformed.
+     */
+    Page next() throws IOException;
+
+    /**
+     * @return The line of the dump the last returned page ends on. Used for
+     * diagnostics only.
+     */
+    int getLineNumber();
+
+    /**
+     * Close the source and release its resources.
+     */
+    void close();
+}
@@ -0,0 +1,155 @@
+package dbFileBuilder.dump;
+
+import java.io.IOException;
+import java.io.InputStream;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads {@link Page}s from the XML dump with a single streaming
+ * (<a href="http://docs.oracle.com/javase/6/docs/api/javax/xml/stream/package-summary.html">StAX</a>)
+ * parser.<br>
+ * The dump is walked once; no DOM is built and no parser is created per page.
+ */
+public class StaxPageReader implements PageSource {
+
+    /**
+     * The dump sizes are far above the default JAXP entity accounting limits,
+     * each one of them is turned off if the implementation knows it.
+     */
+    private static final String[] LIMIT_PROPERTIES = {
+        "http://www.oracle.com/xml/jaxp/properties/totalEntitySizeLimit",
+        "http://www.oracle.com/xml/jaxp/properties/entityExpansionLimit",
+        "http://www.oracle.com/xml/jaxp/properties/maxGeneralEntitySizeLimit"
+    };
+    private final InputStream inputStream;
+    private final XMLStreamReader reader;
+
+    /**
+     * Creates a new <tt>StaxPageReader</tt>.
+     *
+     * @param inputStream UTF-8 encoded XML dump.
+     * @throws IOException if the parser can't be created.
+     */
+    public StaxPageReader(InputStream inputStream) throws IOException {
+        this.inputStream = inputStream;
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        for (String property : LIMIT_PROPERTIES) {
+            try {
+                factory.setProperty(property, "0");
+            } catch (IllegalArgumentException ex) {
+                // Not supported by this implementation - nothing to relax.
+            }
+        }
+        try {
+            this.reader = factory.createXMLStreamReader(inputStream, "UTF-8");
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    @Override
+    public Page next() throws IOException {
+        try {
+            while (this.reader.hasNext()) {
+                if (this.reader.next() == XMLStreamConstants.START_ELEMENT
+                        && this.reader.getLocalName().equals("page")) {
+                    return this.readPage();
+                }
+            }
+            return null;
+        } catch (XMLStreamException ex) {
+            throw new IOException(ex);
+        }
+    }
+
+    /**
+     * Reads the content of the current <tt>{@literal <}page{@literal >}</tt>
+     * element. The reader is left on its end tag.
+     *
+     * @return The page.
+     */
+    private Page readPage() throws XMLStreamException {
+        String title = "";
+        int namespace = 0;
+        long id = 0;
+        long revisionId = 0;
+        String sha1 = null;
+        String redirectTarget = null;
+        String text = "";
+
+        int depth = 0; // Nesting depth relative to <page>
+        boolean insideRevision = false;
+        while (true) {
+            int event = this.reader.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                if (depth == 0) { // </page>
+                    break;
+                }
+                depth--;
+                if (depth == 0) {
+                    insideRevision = false;
+                }
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+
+            String name = this.reader.getLocalName();
+            if (depth == 0) { // Direct child of <page>
+                if (name.equals("title")) {
+                    title = this.reader.getElementText();
+                } else if (name.equals("ns")) {
+                    namespace = Integer.parseInt(this.reader.getElementText().trim());
+                } else if (name.equals("id")) {
+                    id = Long.parseLong(this.reader.getElementText().trim());
+                } else {
+                    if (name.equals("redirect")) {
+                        redirectTarget = this.reader.getAttributeValue(null, "title");
+                        if (redirectTarget == null) {
+                            redirectTarget = "";
+                        }
+                    } else if (name.equals("revision")) {
+                        insideRevision = true;
+                    }
+                    depth++;
+                }
+            } else if (depth == 1 && insideRevision) { // Direct child of <revision>
+                if (name.equals("id")) {
+                    revisionId = Long.parseLong(this.reader.getElementText().trim());
+                } else if (name.equals("text")) {
+                    text = this.reader.getElementText();
+                } else if (name.equals("sha1")) {
+                    sha1 = this.reader.getElementText().trim();
+                } else {
+                    depth++;
+                }
+            } else {
+                depth++;
+            }
+        }
+        return new Page(title, namespace, id, revisionId, sha1, redirectTarget, text);
+    }
+
+    @Override
+    public int getLineNumber() {
+        return this.reader.getLocation().getLineNumber();
+    }
+
+    @Override
+    public void close() {
+        try {
+            this.reader.close();
+            this.inputStream.close();
+        } catch (XMLStreamException ex) {
+            System.out.println(ex);
+        } catch (IOException ex) {
+            System.out.println(ex);
+        }
+    }
+}
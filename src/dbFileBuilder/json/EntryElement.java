@@ -0,0 +1,69 @@
+package dbFileBuilder.json;
+
+import java.util.List;
+
+/**
+ * An element of the HTML of an entry, as the conversion to JSON walks it.<br>
+ * The walks are written once for both trees: the Jsoup document, through
+ * {@link JsoupElement}, and the {@link EntryNode}s {@link EntryReader} reads.
+ *
+ * @param <E> The elements of the tree.
+ */
+interface EntryElement<E extends EntryElement<E>> {
+
+    String tagName();
+
+    boolean isBlock();
+
+    /**
+     * @return The parent element, or <tt>null</tt>.
+     */
+    E parent();
+
+    /**
+     * @return The child elements, without the texts.
+     */
+    List<E> children();
+
+    E child(int index);
+
+    /**
+     * @return The next element of the parent, or <tt>null</tt>.
+     */
+    E nextElementSibling();
+
+    /**
+     * @return The inner HTML of this element, pretty printed.
+     */
+    String html();
+
+    /**
+     * Replace the content of this element with <tt>html</tt>.
+     */
+    void html(String html);
+
+    /**
+     * @return The text of this element and the elements in it, with the white
+     * space normalized.
+     */
+    String text();
+
+    /**
+     * @return This element and all the elements in it, in the order of the
+     * document.
+     */
+    List<E> getAllElements();
+
+    /**
+     * @return This element and all the elements in it with the tag, in the
+     * order of the document.
+     */
+    List<E> getElementsByTag(String tagName);
+
+    /**
+     * @return This element and all the elements in it whose attribute
+     * <tt>name</tt> has <tt>value</tt> in it, ignoring case, in the order of
+     * the document.
+     */
+    List<E> getElementsByAttributeValueContaining(String name, String value);
+}
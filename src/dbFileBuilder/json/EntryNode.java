@@ -0,0 +1,377 @@
+package dbFileBuilder.json;
+
+import java.util.ArrayList;
+import java.util.Map;
+import org.jsoup.nodes.Entities;
+import org.jsoup.parser.Tag;
+
+/**
+ * A node of the tree of an entry: an element, or a text.<br>
+ * The tree is read from the HTML of an {@link dbFileBuilder.article.Article}
+ * by {@link EntryReader}, and as an {@link EntryElement} it answers the
+ * questions the conversion to JSON asks - its {@link #html() html}, its
+ * {@link #text() text}, its children and siblings - exactly as a Jsoup 1.7.2
+ * {@link org.jsoup.nodes.Element Element} does, pretty printing included. So
+ * both give the same JSON.
+ */
+final class EntryNode implements EntryElement<EntryNode> {
+
+    /**
+     * The escaped form of the chars Jsoup escapes, by the char. They are all
+     * below <tt>256</tt>.
+     */
+    private static final String[] ESCAPED = new String[256];
+
+    static {
+        for (Map.Entry<Character, String> entry : Entities.EscapeMode.base.getMap().entrySet()) {
+            ESCAPED[entry.getKey()] = '&' + entry.getValue() + ';';
+        }
+    }
+    /**
+     * The tag, <tt>null</tt> for a text.
+     */
+    private final Tag tag;
+    private final String tagName;
+    /**
+     * Names and values of the attributes, one after the other.
+     */
+    private final String[] attributes;
+    private final String text;
+    private EntryNode parent;
+    private ArrayList<EntryNode> childNodes;
+
+    private EntryNode(String tagName, String[] attributes, String text) {
+        this.tag = tagName == null ? null : Tag.valueOf(tagName);
+        this.tagName = tagName;
+        this.attributes = attributes;
+        this.text = text;
+        this.childNodes = new ArrayList<EntryNode>(tagName == null ? 0 : 4);
+    }
+
+    /**
+     * @param tagName Name of the tag, in lower case.
+     * @param attributes Names, in lower case, and values of the attributes,
+     * one after the other.
+     * @return A new element.
+     */
+    static EntryNode element(String tagName, String[] attributes) {
+        return new EntryNode(tagName, attributes, null);
+    }
+
+    /**
+     * @return A new text.
+     */
+    static EntryNode text(String text) {
+        return new EntryNode(null, null, text);
+    }
+
+    boolean isText() {
+        return this.tag == null;
+    }
+
+    @Override
+    public String tagName() {
+        return this.tagName;
+    }
+
+    @Override
+    public boolean isBlock() {
+        return this.tag.isBlock();
+    }
+
+    @Override
+    public EntryNode parent() {
+        return this.parent;
+    }
+
+    void appendChild(EntryNode child) {
+        child.parent = this;
+        this.childNodes.add(child);
+    }
+
+    /**
+     * Move the nodes of <tt>other</tt> to the end of this element.
+     */
+    void appendChildrenOf(EntryNode other) {
+        for (EntryNode node : other.childNodes) {
+            this.appendChild(node);
+        }
+        other.childNodes = new ArrayList<EntryNode>();
+    }
+
+    /**
+     * @return The value of the attribute, <tt>null</tt> if there is no such
+     * attribute.
+     */
+    String attr(String name) {
+        for (int i = 0; this.attributes != null && i < this.attributes.length; i += 2) {
+            if (this.attributes[i].equals(name)) {
+                return this.attributes[i + 1];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ArrayList<EntryNode> children() {
+        ArrayList<EntryNode> children = new ArrayList<EntryNode>(this.childNodes.size());
+        for (EntryNode node : this.childNodes) {
+            if (node.isText() == false) {
+                children.add(node);
+            }
+        }
+        return children;
+    }
+
+    @Override
+    public EntryNode child(int index) {
+        return this.children().get(index);
+    }
+
+    @Override
+    public EntryNode nextElementSibling() {
+        ArrayList<EntryNode> siblings = this.parent.childNodes;
+        for (int i = siblings.indexOf(this) + 1; i < siblings.size(); i++) {
+            if (siblings.get(i).isText() == false) {
+                return siblings.get(i);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public ArrayList<EntryNode> getAllElements() {
+        ArrayList<EntryNode> elements = new ArrayList<EntryNode>();
+        this.collect(elements, null);
+        return elements;
+    }
+
+    @Override
+    public ArrayList<EntryNode> getElementsByTag(String tagName) {
+        ArrayList<EntryNode> elements = new ArrayList<EntryNode>();
+        this.collect(elements, tagName);
+        return elements;
+    }
+
+    @Override
+    public ArrayList<EntryNode> getElementsByAttributeValueContaining(String name, String value) {
+        name = name.toLowerCase();
+        value = value.toLowerCase();
+        ArrayList<EntryNode> elements = new ArrayList<EntryNode>();
+        for (EntryNode element : this.getAllElements()) {
+            String attribute = element.attr(name);
+            if (attribute != null && attribute.toLowerCase().contains(value)) {
+                elements.add(element);
+            }
+        }
+        return elements;
+    }
+
+    private void collect(ArrayList<EntryNode> elements, String tagName) {
+        if (tagName == null || tagName.equals(this.tagName)) {
+            elements.add(this);
+        }
+        for (EntryNode node : this.childNodes) {
+            if (node.isText() == false) {
+                node.collect(elements, tagName);
+            }
+        }
+    }
+
+    /**
+     * Remove the elements in this element which have no text but white space,
+     * as they have no meaning.
+     *
+     * @return <tt>true</tt> if there is text in this element but white space.
+     */
+    boolean removeBlankElements() {
+        boolean hasText = false;
+        for (int i = 0; i < this.childNodes.size(); i++) {
+            EntryNode node = this.childNodes.get(i);
+            if (node.isText() == true) {
+                for (int j = 0; hasText == false && j < node.text.length(); j++) {
+                    hasText = node.text.charAt(j) > ' ';
+                }
+            } else if (node.removeBlankElements() == true) {
+                hasText = true;
+            } else {
+                this.childNodes.remove(i--);
+                node.parent = null;
+            }
+        }
+        return hasText;
+    }
+
+    @Override
+    public String html() {
+        StringBuilder accum = new StringBuilder();
+        for (int i = 0; i < this.childNodes.size(); i++) {
+            this.childNodes.get(i).outerHtml(accum, 0, i);
+        }
+        return accum.toString().trim();
+    }
+
+    /**
+     * @param html Pretty printed HTML of the elements of an entry.
+     */
+    @Override
+    public void html(String html) {
+        this.childNodes = new ArrayList<EntryNode>();
+        if (EntryReader.readFragment(html, this) == false) {
+            throw new IllegalStateException("Can't read back: " + html);
+        }
+    }
+
+    private void outerHtml(StringBuilder accum, int depth, int siblingIndex) {
+        if (this.isText() == true) {
+            if (siblingIndex == 0 && this.parent.tag.formatAsBlock() && isWhitespace(this.text) == false) {
+                indent(accum, depth);
+            }
+            accum.append(normaliseWhitespace(escape(this.text)));
+            return;
+        }
+        if (accum.length() > 0 && (this.tag.formatAsBlock()
+                || (this.parent != null && this.parent.tag.formatAsBlock()))) {
+            indent(accum, depth);
+        }
+        accum.append('<').append(this.tagName);
+        for (int i = 0; this.attributes != null && i < this.attributes.length; i += 2) {
+            accum.append(' ').append(this.attributes[i]).append("=\"").append(escape(this.attributes[i + 1])).append('"');
+        }
+        if (this.childNodes.isEmpty() && this.tag.isSelfClosing()) {
+            accum.append(" />");
+            return;
+        }
+        accum.append('>');
+        for (int i = 0; i < this.childNodes.size(); i++) {
+            this.childNodes.get(i).outerHtml(accum, depth + 1, i);
+        }
+        if (this.childNodes.isEmpty() == false && this.tag.formatAsBlock()) {
+            indent(accum, depth);
+        }
+        accum.append("</").append(this.tagName).append('>');
+    }
+
+    @Override
+    public String text() {
+        StringBuilder accum = new StringBuilder();
+        this.appendText(accum);
+        return accum.toString().trim();
+    }
+
+    private void appendText(StringBuilder accum) {
+        for (EntryNode node : this.childNodes) {
+            if (node.isText() == true) {
+                String text = normaliseWhitespace(node.text);
+                if (lastCharIsWhitespace(accum) == true) {
+                    int start = 0;
+                    while (start < text.length() && " \t\n\u000B\f\r".indexOf(text.charAt(start)) != -1) {
+                        start++;
+                    }
+                    text = text.substring(start);
+                }
+                accum.append(text);
+            } else {
+                if (accum.length() > 0 && (node.isBlock() || node.tagName.equals("br"))
+                        && lastCharIsWhitespace(accum) == false) {
+                    accum.append(' ');
+                }
+                node.appendText(accum);
+            }
+        }
+    }
+
+    private static boolean lastCharIsWhitespace(StringBuilder accum) {
+        return accum.length() != 0 && accum.charAt(accum.length() - 1) == ' ';
+    }
+
+    private static void indent(StringBuilder accum, int depth) {
+        accum.append('\n');
+        for (int i = 0; i < depth; i++) {
+            accum.append(' ');
+        }
+    }
+
+    /**
+     * @return <tt>true</tt> if <tt>c</tt> is white space for HTML.
+     */
+    static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * @return <tt>true</tt> if <tt>text</tt> is all {@link #isWhitespace(char)
+     * white space}.
+     */
+    static boolean isWhitespace(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (isWhitespace(text.charAt(i)) == false) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return <tt>text</tt> with each run of white space replaced by one
+     * space.
+     */
+    private static String normaliseWhitespace(String text) {
+        StringBuilder normalised = new StringBuilder(text.length());
+        boolean lastWasWhite = false;
+        boolean modified = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c) == true) {
+                if (lastWasWhite == true) {
+                    modified = true;
+                    continue;
+                }
+                if (c != ' ') {
+                    modified = true;
+                }
+                normalised.append(' ');
+                lastWasWhite = true;
+            } else {
+                normalised.append(c);
+                lastWasWhite = false;
+            }
+        }
+        return modified ? normalised.toString() : text;
+    }
+
+    /**
+     * @return <tt>text</tt> with the chars Jsoup escapes in entities, and the
+     * surrogates which are not in a pair in numeric entities.
+     */
+    private static String escape(String text) {
+        StringBuilder escaped = null;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String entity = null;
+            if (c < 256) {
+                entity = ESCAPED[c];
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                if (escaped != null) {
+                    escaped.append(c).append(text.charAt(i + 1));
+                }
+                i++;
+                continue;
+            } else if (Character.isHighSurrogate(c) || Character.isLowSurrogate(c)) {
+                entity = "&#x" + Integer.toHexString(c) + ';';
+            }
+            if (entity != null && escaped == null) {
+                escaped = new StringBuilder(text.length() + 16).append(text, 0, i);
+            }
+            if (escaped != null) {
+                if (entity != null) {
+                    escaped.append(entity);
+                } else {
+                    escaped.append(c);
+                }
+            }
+        }
+        return escaped == null ? text : escaped.toString();
+    }
+}
@@ -0,0 +1,409 @@
+package dbFileBuilder.json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.jsoup.nodes.Entities;
+
+/**
+ * Read the HTML of an {@link dbFileBuilder.article.Article} to a tree of
+ * {@link EntryNode}s, the same tree the HTML5 tree builder of Jsoup 1.7.2
+ * builds.<br>
+ * Only the markup {@link dbFileBuilder.wiki.Wiki} writes is read: lists,
+ * paragraphs, headings, and a few inline tags which are closed in order. On
+ * anything else - another tag, an inline tag which is left open across a
+ * block, a comment, an entity Jsoup may read differently - the reader gives
+ * up, and the article is left to Jsoup.
+ */
+final class EntryReader {
+
+    private static final HashSet<String> INLINE_TAGS = new HashSet<String>(Arrays.asList(
+            "a", "b", "i", "span", "sup", "sub", "small", "big", "u", "strong", "em", "code", "tt"));
+    private static final HashSet<String> BLOCK_TAGS = new HashSet<String>(Arrays.asList(
+            "p", "h1", "h2", "h3", "h4", "h5", "h6", "ol", "ul", "dl", "li", "dd", "dt", "hr"));
+    private static final HashSet<String> HEADINGS = new HashSet<String>(Arrays.asList(
+            "h1", "h2", "h3", "h4", "h5", "h6"));
+    private final String html;
+    private int pos = 0;
+    /**
+     * The open elements. The first is the <tt>html</tt> element, which is
+     * never closed.
+     */
+    private final ArrayList<EntryNode> stack = new ArrayList<EntryNode>();
+    /**
+     * The text since the last tag.
+     */
+    private final StringBuilder chars = new StringBuilder();
+    /**
+     * <tt>true</tt> before the body of a document starts. White space is
+     * dropped there.
+     */
+    private boolean beforeBody;
+
+    private EntryReader(String html, EntryNode root) {
+        this.html = html;
+        this.stack.add(root);
+    }
+
+    /**
+     * Read a document.
+     *
+     * @param html The HTML of an article.
+     * @return The document, with its <tt>html</tt>, <tt>head</tt> and
+     * <tt>body</tt> elements, or <tt>null</tt> if it has to be read by Jsoup.
+     */
+    static EntryNode read(String html) {
+        EntryNode document = EntryNode.element("#root", null);
+        EntryNode root = EntryNode.element("html", null);
+        EntryNode body = EntryNode.element("body", null);
+        document.appendChild(root);
+        root.appendChild(EntryNode.element("head", null));
+        root.appendChild(body);
+        EntryReader reader = new EntryReader(html, root);
+        reader.stack.add(body);
+        reader.beforeBody = true;
+        if (reader.read() == false) {
+            return null;
+        }
+        return document;
+    }
+
+    /**
+     * Read a fragment of a document into an element, the way
+     * {@link org.jsoup.nodes.Element#html(java.lang.String)} does.
+     *
+     * @param html The HTML of the fragment.
+     * @param parent The element to put it in. Its content is appended to.
+     * @return <tt>false</tt> if the fragment is not in the markup which is
+     * read.
+     */
+    static boolean readFragment(String html, EntryNode parent) {
+        EntryNode root = EntryNode.element("html", null);
+        EntryReader reader = new EntryReader(html, root);
+        if (reader.read() == false) {
+            return false;
+        }
+        parent.appendChildrenOf(root);
+        return true;
+    }
+
+    private boolean read() {
+        if (this.html.indexOf('\r') != -1 || this.html.indexOf('\0') != -1) {
+            return false;
+        }
+        int length = this.html.length();
+        while (this.pos < length) {
+            char c = this.html.charAt(this.pos);
+            if (c == '<' && this.pos + 1 < length) {
+                char next = this.html.charAt(this.pos + 1);
+                if (Character.isLetter(next) == true) {
+                    this.flush();
+                    if (this.startTag() == false) {
+                        return false;
+                    }
+                    continue;
+                }
+                if (next == '/' || next == '!' || next == '?') {
+                    this.flush();
+                    if (next != '/' || this.endTag() == false) {
+                        return false;
+                    }
+                    continue;
+                }
+            } else if (c == '&') {
+                if (this.characterReference() == false) {
+                    return false;
+                }
+                continue;
+            }
+            this.chars.append(c);
+            this.pos++;
+        }
+        this.flush();
+        return true;
+    }
+
+    /**
+     * Put the text since the last tag in the current element.
+     */
+    private void flush() {
+        if (this.chars.length() == 0) {
+            return;
+        }
+        String text = this.chars.toString();
+        this.chars.setLength(0);
+        if (this.beforeBody == true && EntryNode.isWhitespace(text) == true) {
+            return;
+        }
+        this.beforeBody = false;
+        this.current().appendChild(EntryNode.text(text));
+    }
+
+    private boolean startTag() {
+        this.beforeBody = false;
+        int length = this.html.length();
+        this.pos++;
+        String name = this.tagName();
+        ArrayList<String> attributes = null;
+        boolean selfClosing = false;
+        while (true) {
+            if (this.pos == length) {
+                return false;
+            }
+            char c = this.html.charAt(this.pos);
+            if (EntryNode.isWhitespace(c) == true) {
+                this.pos++;
+                continue;
+            }
+            if (c == '>') {
+                this.pos++;
+                break;
+            }
+            if (c == '/') {
+                if (this.pos + 1 == length || this.html.charAt(this.pos + 1) != '>') {
+                    return false;
+                }
+                selfClosing = true;
+                this.pos += 2;
+                break;
+            }
+            int start = this.pos;
+            while (this.pos < length && isAttributeNameChar(this.html.charAt(this.pos)) == true) {
+                this.pos++;
+            }
+            if (this.pos == start || this.pos + 1 >= length
+                    || this.html.charAt(this.pos) != '=' || this.html.charAt(this.pos + 1) != '"') {
+                return false;
+            }
+            String attributeName = this.html.substring(start, this.pos).toLowerCase();
+            int end = this.html.indexOf('"', this.pos + 2);
+            if (end == -1) {
+                return false;
+            }
+            String value = this.html.substring(this.pos + 2, end);
+            this.pos = end + 1;
+            if (value.indexOf('&') != -1 || (this.pos < length && this.html.charAt(this.pos) != '>'
+                    && this.html.charAt(this.pos) != '/' && EntryNode.isWhitespace(this.html.charAt(this.pos)) == false)) {
+                return false;
+            }
+            if (attributes == null) {
+                attributes = new ArrayList<String>(4);
+            }
+            for (int i = 0; i < attributes.size(); i += 2) {
+                if (attributes.get(i).equals(attributeName)) { // Jsoup keeps the first one
+                    return false;
+                }
+            }
+            attributes.add(attributeName);
+            attributes.add(value);
+        }
+        if (selfClosing == true && name.equals("br") == false && name.equals("hr") == false) {
+            return false;
+        }
+        return this.startTag(name, attributes == null ? null : attributes.toArray(new String[attributes.size()]));
+    }
+
+    private boolean startTag(String name, String[] attributes) {
+        if (name.equals("br")) {
+            this.current().appendChild(EntryNode.element(name, attributes));
+            return true;
+        }
+        if (INLINE_TAGS.contains(name) == true) {
+            if (name.equals("a") && this.isOpen("a") == true) { // Jsoup closes the first one
+                return false;
+            }
+            this.push(name, attributes);
+            return true;
+        }
+        if (BLOCK_TAGS.contains(name) == false || INLINE_TAGS.contains(this.current().tagName()) == true) {
+            return false;
+        }
+        if (name.equals("li") || name.equals("dd") || name.equals("dt")) {
+            // Close the item which is open, unless there is a block in it
+            for (int i = this.stack.size() - 1; i > 0; i--) {
+                String tagName = this.stack.get(i).tagName();
+                if (name.equals("li") ? tagName.equals("li") : (tagName.equals("dd") || tagName.equals("dt"))) {
+                    this.popUntil(tagName);
+                    break;
+                }
+                if (tagName.equals("p") == false) {
+                    break;
+                }
+            }
+        }
+        if (this.isOpen("p") == true) {
+            this.popUntil("p");
+        }
+        if (HEADINGS.contains(name) == true && HEADINGS.contains(this.current().tagName()) == true) {
+            this.stack.remove(this.stack.size() - 1);
+        }
+        if (name.equals("hr")) {
+            this.current().appendChild(EntryNode.element(name, attributes));
+        } else {
+            this.push(name, attributes);
+        }
+        return true;
+    }
+
+    private boolean endTag() {
+        if (this.beforeBody == true) {
+            return false;
+        }
+        int length = this.html.length();
+        this.pos += 2;
+        String name = this.tagName();
+        while (this.pos < length && EntryNode.isWhitespace(this.html.charAt(this.pos)) == true) {
+            this.pos++;
+        }
+        if (this.pos == length || this.html.charAt(this.pos) != '>') {
+            return false;
+        }
+        this.pos++;
+        String current = this.current().tagName();
+        if (INLINE_TAGS.contains(name) == true) {
+            if (current.equals(name)) {
+                this.stack.remove(this.stack.size() - 1);
+                return true;
+            }
+            // Jsoup ignores it if it is not open, and closes it out of order if it is
+            for (int i = this.stack.size() - 1; INLINE_TAGS.contains(this.stack.get(i).tagName()); i--) {
+                if (this.stack.get(i).tagName().equals(name)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (BLOCK_TAGS.contains(name) == false || name.equals("hr") || INLINE_TAGS.contains(current) == true) {
+            return false;
+        }
+        if (name.equals("p")) {
+            if (this.isOpen("p") == true) {
+                this.popUntil("p");
+            } else { // An empty paragraph
+                this.current().appendChild(EntryNode.element(name, null));
+            }
+        } else if (name.equals("li")) {
+            for (int i = this.stack.size() - 1; i > 0; i--) {
+                String tagName = this.stack.get(i).tagName();
+                if (tagName.equals("li")) {
+                    this.popUntil("li");
+                    break;
+                }
+                if (tagName.equals("ol") || tagName.equals("ul")) { // Not in this list
+                    break;
+                }
+            }
+        } else if (HEADINGS.contains(name) == true) {
+            for (int i = this.stack.size() - 1; i > 0; i--) {
+                if (HEADINGS.contains(this.stack.get(i).tagName()) == true) {
+                    while (HEADINGS.contains(this.stack.remove(this.stack.size() - 1).tagName()) == false) {
+                    }
+                    break;
+                }
+            }
+        } else if (this.isOpen(name) == true) {
+            this.popUntil(name);
+        }
+        return true;
+    }
+
+    /**
+     * @return The name of the tag at the current position, in lower case.
+     */
+    private String tagName() {
+        int start = this.pos;
+        while (this.pos < this.html.length() && isAttributeNameChar(this.html.charAt(this.pos)) == true
+                && this.html.charAt(this.pos) != '-' && this.html.charAt(this.pos) != '_'
+                && this.html.charAt(this.pos) != ':') {
+            this.pos++;
+        }
+        return this.html.substring(start, this.pos).toLowerCase();
+    }
+
+    /**
+     * Read a character reference. Those Jsoup may read differently are not
+     * read.
+     *
+     * @return <tt>false</tt> if it is not read.
+     */
+    private boolean characterReference() {
+        int length = this.html.length();
+        int i = this.pos + 1;
+        if (i == length || " \t\n\f<&".indexOf(this.html.charAt(i)) != -1) { // Not a reference
+            this.chars.append('&');
+            this.pos++;
+            return true;
+        }
+        if (this.html.charAt(i) == '#') {
+            i++;
+            int radix = 10;
+            if (i < length && (this.html.charAt(i) == 'x' || this.html.charAt(i) == 'X')) {
+                radix = 16;
+                i++;
+            }
+            int start = i;
+            while (i < length && i - start < 6 && Character.digit(this.html.charAt(i), radix) != -1) {
+                i++;
+            }
+            if (i == start || i == length || this.html.charAt(i) != ';') {
+                return false;
+            }
+            int value = Integer.parseInt(this.html.substring(start, i), radix);
+            if ((value < 0x20 || value >= 0x7F) && (value < 0xA0 || value >= 0xD800)
+                    && (value < 0xE000 || value > 0xFFFD)) {
+                return false;
+            }
+            this.chars.append((char) value);
+        } else {
+            while (i < length && ((this.html.charAt(i) >= 'a' && this.html.charAt(i) <= 'z')
+                    || (this.html.charAt(i) >= 'A' && this.html.charAt(i) <= 'Z'))) {
+                i++;
+            }
+            while (i < length && this.html.charAt(i) >= '0' && this.html.charAt(i) <= '9') {
+                i++;
+            }
+            String name = this.html.substring(this.pos + 1, i);
+            if (i == length || this.html.charAt(i) != ';' || Entities.isNamedEntity(name) == false) {
+                return false;
+            }
+            this.chars.append(Entities.getCharacterByName(name).charValue());
+        }
+        this.pos = i + 1;
+        return true;
+    }
+
+    private EntryNode current() {
+        return this.stack.get(this.stack.size() - 1);
+    }
+
+    private void push(String name, String[] attributes) {
+        EntryNode element = EntryNode.element(name, attributes);
+        this.current().appendChild(element);
+        this.stack.add(element);
+    }
+
+    /**
+     * @return <tt>true</tt> if an element with the tag is open.
+     */
+    private boolean isOpen(String name) {
+        for (int i = this.stack.size() - 1; i > 0; i--) {
+            if (this.stack.get(i).tagName().equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Close the last open element with the tag, and the elements in it.
+     */
+    private void popUntil(String name) {
+        while (this.stack.remove(this.stack.size() - 1).tagName().equals(name) == false) {
+        }
+    }
+
+    private static boolean isAttributeNameChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '_' || c == ':';
+    }
+}
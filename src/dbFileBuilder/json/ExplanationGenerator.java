@@ -1,27 +1,21 @@
 package dbFileBuilder.json;
 
+import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import org.json.JSONArray;
 import org.json.JSONObject;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 /**
  * Create explanation
  */
 public class ExplanationGenerator {
 
-    /**
-     * Reference to the {@link JSON} object who call
-     * {@link  ExplanationGenerator#findExplanation findExplanation} method.
-     */
-    private static JSON caller;
     /**
      * {@link java.util.regex.Pattern Pattern} to identify open tags of the
      * following types: <tt>UL, OL, DL, DD, LI</tt>.
      */
-    private static Pattern OPENING_BLOCK_TAG = Pattern.compile("<\\s*(ul|ol|dl|dd|li).*?>");
+    private static final Pattern OPENING_BLOCK_TAG = Pattern.compile("<\\s*(ul|ol|dl|dd|li).*?>");
     /*
      * NOT IN USE! static Pattern CLOSING_BLOCK_TAG =
      * Pattern.compile("</\\s*(ul|ol|dl|dd|li).*?>");
@@ -55,18 +49,18 @@ public class ExplanationGenerator {
      * section title.<br>The section title should be h2 tag.
      * @param caller The {@link JSON} object who call this method.
      */
-    protected static void findExplanation(Element sectionTitle, JSON caller) {
-        ExplanationGenerator.caller = caller;
+    protected static <E extends EntryElement<E>> void findExplanation(E sectionTitle, JSON caller) {
         JSONArray // To store all the explanations and examples
                 explanationList = new JSONArray();
 
-        Element //The next element after the h2
+        E //The next element after the h2
                 explanationSection = sectionTitle.nextElementSibling();
+        List<E> explanations = explanationSection.children();
 
-        for (int i = 0; i < explanationSection.children().size(); i++) // iterat all the explanations
+        for (int i = 0; i < explanations.size(); i++) // iterat all the explanations
         {
-            Element // current element to work on 
-                    ex = explanationSection.children().get(i);
+            E // current element to work on 
+                    ex = explanations.get(i);
             JSONArray // Store all the direct nested element
                     explanationList4OneExample = new JSONArray();
             String oneExample;
@@ -83,8 +77,8 @@ public class ExplanationGenerator {
                 {
                     ex = ex.parent(); // Roll back
                 }
-                for (Element el : ex.children()) {//
-                    Element ptr = el;// access via reference
+                for (E el : ex.children()) {//
+                    E ptr = el;// access via reference
                     boolean goUp = true;
                     while (ptr.isBlock()) { // Unwarp unnecessary tags
                         if (ptr.children().isEmpty()) {
@@ -138,7 +132,7 @@ public class ExplanationGenerator {
 
 //      System.out.println(explanationList);
         if (explanationList.length() > 0) {
-            ExplanationGenerator.caller.put("explanation", explanationList);
+            caller.put("explanation", explanationList);
         }
 
     }
@@ -157,7 +151,7 @@ public class ExplanationGenerator {
      * @param element to extract text from.
      * @return text of <tt>{@literal element} </tt>
      */
-    private static String getTextOfFather(Element element) {
+    private static <E extends EntryElement<E>> String getTextOfFather(E element) {
         String innerHTML = element.html();
 
         Pattern p = OPENING_BLOCK_TAG;
@@ -173,7 +167,7 @@ public class ExplanationGenerator {
         }
 
         int start = m.start() - 1;
-        int end = element.html().length();
+        int end = innerHTML.length();
 
         if (start < 0) // nothing has been found. Malformed document.
         {
@@ -194,12 +188,19 @@ public class ExplanationGenerator {
 
     /**
      * @return Returns <tt>true</tt> if, and only if, <tt>elm</tt> has at list
-     * one child {@link  Element} with the following {@link Element#tag() tags}:
+     * one child element with the following {@link EntryElement#tagName() tags}:
      * <tt>ul,ol,dl,dd,li</tt>
      */
-    private static boolean hasABlockChild(Element elm) {
-        Elements list = elm.select("ul,ol,dl,dd,li");
-        if (list.size() > 1) {
+    private static <E extends EntryElement<E>> boolean hasABlockChild(E elm) {
+        int count = 0;
+        for (E element : elm.getAllElements()) {
+            String tagName = element.tagName();
+            if (tagName.equals("ul") || tagName.equals("ol") || tagName.equals("dl")
+                    || tagName.equals("dd") || tagName.equals("li")) {
+                count++;
+            }
+        }
+        if (count > 1) {
             return true;
         }
 
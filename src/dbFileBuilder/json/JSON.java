@@ -1,41 +1,62 @@
 package dbFileBuilder.json;
 
 import dbFileBuilder.RegEx;
+import dbFileBuilder.Settings;
 import dbFileBuilder.article.Article;
+import dbFileBuilder.article.ConversionContext;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.regex.Pattern;
 import org.json.JSONArray;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 import org.json.JSONObject;
 
 /**
  * Convert {@link Article} to <a href="http://www.json.org/">JSON</a>
- * representation.
+ * representation.<br>
+ * The HTML of the article is parsed by Jsoup; with the
+ * {@link Settings.Engine#DIRECT direct} engine it is read by
+ * {@link EntryReader} instead, unless it is markup only Jsoup can read.
  */
 public class JSON {
 
-    private static Pattern isHebrew = Pattern.compile("\\p{InHebrew}+", Pattern.UNICODE_CASE);
-    private static Pattern nonPrintableCharacters = Pattern.compile("[\\p{C}\u200F]*", Pattern.UNICODE_CASE);
+    private static final Pattern isHebrew = Pattern.compile("\\p{InHebrew}+", Pattern.UNICODE_CASE);
+    private static final Pattern nonPrintableCharacters = Pattern.compile("[\\p{C}\u200F]*", Pattern.UNICODE_CASE);
     private Document document;
     private ArrayList<String> look_by;
     private JSONObject jsonObject;
     private Article article;
+
     /**
-     * count article which can't be process.
+     * Convert <tt>article</tt> in a new {@link ConversionContext}.
+     *
+     * @param article to convert to JSON object.
      */
-    public static int defect = 0;
+    public JSON(final Article article) {
+        this(article, new ConversionContext());
+    }
 
     /**
      *
      * @param article to convert to JSON object.
+     * @param context of the conversion. Counts the article if it can't be
+     * process, and tells how to read its HTML.
      */
-    public JSON(final Article article) {
-        this.document = Jsoup.parse(article.getContent());
-        this.normalize();
+    public JSON(final Article article, final ConversionContext context) {
+        EntryNode entry = null;
+        if (context.getEngine() == Settings.Engine.DIRECT) {
+            entry = EntryReader.read(article.getContent());
+            if (entry != null && entry.removeBlankElements() == false) { // Let Jsoup fail on it
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            this.document = Jsoup.parse(article.getContent());
+            this.normalize();
+        }
         this.look_by = new ArrayList<String>();
         this.jsonObject = new JSONObject();
         this.article = article;
@@ -64,86 +85,115 @@ public class JSON {
             }
         }
 
-        Element sectionTitle;  // The title of the entry
-        sectionTitle = document.getElementsByTag("h2").first();
-        if (sectionTitle == null) {
-            sectionTitle = document.getElementsByTag("h3").first();
+        if (entry == null) {
+            this.convert(new JsoupElement(this.document), context);
+        } else {
+            this.convert(entry, context);
+        }
+        /*
+         * TODO: מילים נרדפות
+         * TODO: צירופים
+         * TODO: ראו גם
+         * TODO: תואר השם
+         * TODO: ניגודים
+         */
+//        if (this.jsonObject.has("look_by"))
+//            System.out.println("title: " + this.jsonObject.get("title").toString() + " look_by: " + this.jsonObject.get("look_by").toString());
+    }
+
+    /**
+     * Convert the sections of the article from its document.
+     *
+     * @param document The Jsoup document, or the tree {@link EntryReader}
+     * read; without their blank elements.
+     */
+    private <E extends EntryElement<E>> void convert(final E document, final ConversionContext context) {
+        List<E> sectionTitles = document.getElementsByTag("h2");
+        if (sectionTitles.isEmpty()) {
+            sectionTitles = document.getElementsByTag("h3");
         }
 
-        if (sectionTitle == null) {
+        if (sectionTitles.isEmpty()) {
             // System.out.println("sectionTitle == null");
-            JSON.defect++;
+            context.addDefect();
         } else {
+            E sectionTitle = sectionTitles.get(0); // The title of the entry
+            this.putTitle(sectionTitle.text());
 
-            /*
-             * if the title from XML <title> tag is not equal to the title
-             * display in the web page: take the title in the tag to lookBy
-             * array and set the display title as title.
-             */
-            if (article.getTitle().equals(sectionTitle.text().trim()) == false) {
+            ExplanationGenerator.findExplanation(sectionTitle, this);
 
-                String candidateTitle = JSONUtil.removeNewLine(sectionTitle.text().trim());
+            List<E> subSectionTitles = document.getElementsByTag("h3");
+            this.findGizron(subSectionTitles);
 
-                //    System.out.println(candidateTitle);
-                if (candidateTitle.contains("מילים נרדפות")) {
-                    jsonObject.accumulate("title", article.getTitle());
+            this.putLookBy(new TranslationFinder(subSectionTitles, document));
+        }
+    }
 
-                } else {
-                    this.generateTitle(candidateTitle);
-                }
+    /**
+     * Put the title of the entry.
+     *
+     * @param sectionTitle The text of the title of the entry section.
+     */
+    private void putTitle(final String sectionTitle) {
+        /*
+         * if the title from XML <title> tag is not equal to the title
+         * display in the web page: take the title in the tag to lookBy
+         * array and set the display title as title.
+         */
+        if (article.getTitle().equals(sectionTitle.trim()) == false) {
 
-            } else {
-                String title = JSONUtil.removeNewLine(sectionTitle.text().trim());
-                jsonObject.accumulate("title", title);
-
-                if (article.isAcronym() == true) {
-                    if (title.contains("\"")) {
-                        if (title.length() >= 6 && title.length() <= 8) {
-                            title = title.replace("\"", "");
-                            jsonObject.accumulate("title", title);
-                        }
-                    }
-                }
-            }
+            String candidateTitle = JSONUtil.removeNewLine(sectionTitle.trim());
 
-            ExplanationGenerator.findExplanation(sectionTitle, this);
+            //    System.out.println(candidateTitle);
+            if (candidateTitle.contains("מילים נרדפות")) {
+                jsonObject.accumulate("title", article.getTitle());
 
-            Elements subSectionTitles = document.getElementsByTag("h3");
-            this.findGizron(subSectionTitles);
+            } else {
+                this.generateTitle(candidateTitle);
+            }
 
-            TranslationFinder tf = new TranslationFinder(subSectionTitles, document);
-            if (tf.found()) {
-                JSONArray translationArr = tf.getTranslationArray();
+        } else {
+            String title = JSONUtil.removeNewLine(sectionTitle.trim());
+            jsonObject.accumulate("title", title);
 
-                this.jsonObject.put("translation", translationArr);
-                // Add the translations to look_by
-                for (int i = 0; i < translationArr.length(); i++) {
-                    look_by.add(translationArr.getString(i));
+            if (article.isAcronym() == true) {
+                if (title.contains("\"")) {
+                    if (title.length() >= 6 && title.length() <= 8) {
+                        title = title.replace("\"", "");
+                        jsonObject.accumulate("title", title);
+                    }
                 }
             }
+        }
+    }
 
-            if (this.jsonObject.get("title") instanceof String) {
-                look_by.add(this.jsonObject.getString("title"));
-            } else {
-                JSONArray a = this.jsonObject.getJSONArray("title");
-                for (int i = 0; i < a.length(); i++) {
-                    look_by.add(a.getString(i));
-                }
-            }
-            if (!look_by.isEmpty()) {
-                this.jsonObject.put("look_by", look_by);
+    /**
+     * Put the translations, and then all the values to look the entry by.
+     *
+     * @param tf The translations of the entry.
+     */
+    private void putLookBy(final TranslationFinder tf) {
+        if (tf.found()) {
+            JSONArray translationArr = tf.getTranslationArray();
+
+            this.jsonObject.put("translation", translationArr);
+            // Add the translations to look_by
+            for (int i = 0; i < translationArr.length(); i++) {
+                look_by.add(translationArr.getString(i));
             }
+        }
 
+        if (this.jsonObject.get("title") instanceof String) {
+            look_by.add(this.jsonObject.getString("title"));
+        } else {
+            JSONArray a = this.jsonObject.getJSONArray("title");
+            for (int i = 0; i < a.length(); i++) {
+                look_by.add(a.getString(i));
+            }
+        }
+        if (!look_by.isEmpty()) {
+            this.jsonObject.put("look_by", look_by);
         }
-        /*
-         * TODO: מילים נרדפות
-         * TODO: צירופים
-         * TODO: ראו גם
-         * TODO: תואר השם
-         * TODO: ניגודים
-         */
-//        if (this.jsonObject.has("look_by"))
-//            System.out.println("title: " + this.jsonObject.get("title").toString() + " look_by: " + this.jsonObject.get("look_by").toString());
     }
 
     /**
@@ -152,10 +202,10 @@ public class JSON {
      *
      * @param subSectionTitles list of all the h3 tag in the document.
      */
-    private void findGizron(Elements subSectionTitles) {
-        for (Element h3 : subSectionTitles) {
+    private <E extends EntryElement<E>> void findGizron(List<E> subSectionTitles) {
+        for (E h3 : subSectionTitles) {
             if (h3.text().equals("גיזרון") == true) {
-                Element gizron = h3.nextElementSibling();
+                E gizron = h3.nextElementSibling();
                 if (gizron == null) {
                     //         System.out.println("");
                 }
@@ -0,0 +1,92 @@
+package dbFileBuilder.json;
+
+import dbFileBuilder.PageConverter;
+import dbFileBuilder.Settings;
+import dbFileBuilder.article.Article;
+import dbFileBuilder.article.ConversionContext;
+import dbFileBuilder.dump.BZip2InputStream;
+import dbFileBuilder.dump.Page;
+import dbFileBuilder.dump.PageSource;
+import dbFileBuilder.dump.StaxPageReader;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Test for the {@link Settings.Engine#DIRECT direct} engine of {@link JSON}.
+ * <br>
+ * Every article of every page of a dump is converted to JSON with
+ * {@link Settings.Engine#JSOUP Jsoup} and with the direct engine, and any
+ * article they convert differently is reported.
+ * <br><br>
+ * Usage: <tt>JSONEngineTester dump</tt><br>
+ * The dump is XML, or bzip2 compressed XML. Exits with <tt>1</tt> if any
+ * article differs.
+ */
+public class JSONEngineTester {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: JSONEngineTester dump");
+            return;
+        }
+        InputStream in = new BufferedInputStream(new FileInputStream(args[0]), 1 << 16);
+        if (args[0].endsWith(".bz2")) {
+            in = new BufferedInputStream(new BZip2InputStream(in), 1 << 16);
+        }
+        PageSource source = new StaxPageReader(in);
+        ConversionContext jsoup = new ConversionContext(Settings.Engine.JSOUP);
+        ConversionContext direct = new ConversionContext(Settings.Engine.DIRECT);
+        int articles = 0;
+        int read = 0;
+        int mismatches = 0;
+        long jsoupTime = 0;
+        long directTime = 0;
+        try {
+            Page page;
+            while ((page = source.next()) != null) {
+                if (page.isRedirect() || PageConverter.isToProcess(page) == false) {
+                    continue;
+                }
+                for (Article article : Article.getArticles(page.getTitle(), page.getText(), jsoup)) {
+                    if (article.isEmpty()) {
+                        continue;
+                    }
+                    articles++;
+                    if (EntryReader.read(article.getContent()) != null) {
+                        read++;
+                    }
+                    long start = System.nanoTime();
+                    String expected = convert(article, jsoup);
+                    jsoupTime += System.nanoTime() - start;
+                    start = System.nanoTime();
+                    String actual = convert(article, direct);
+                    directTime += System.nanoTime() - start;
+                    if (expected.equals(actual) == false) {
+                        mismatches++;
+                        System.out.println("Differs: " + page + "\n  jsoup:  " + expected + "\n  direct: " + actual);
+                    }
+                }
+            }
+        } finally {
+            source.close();
+        }
+        System.out.println(articles + " articles, " + read + " read without Jsoup, " + mismatches + " differ");
+        System.out.println("Jsoup: " + jsoupTime / 1000000 + " ms, direct: " + directTime / 1000000 + " ms");
+        if (mismatches != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return The JSON of <tt>article</tt>, or the exception it failed with.
+     */
+    private static String convert(Article article, ConversionContext context) {
+        try {
+            return new JSON(article, context).toString();
+        } catch (RuntimeException ex) {
+            return ex.getClass().getName();
+        }
+    }
+}
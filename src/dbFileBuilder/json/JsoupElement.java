@@ -0,0 +1,90 @@
+package dbFileBuilder.json;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jsoup.nodes.Element;
+import org.jsoup.select.Elements;
+
+/**
+ * A Jsoup {@link Element}, as an {@link EntryElement}.
+ */
+final class JsoupElement implements EntryElement<JsoupElement> {
+
+    private final Element element;
+
+    JsoupElement(Element element) {
+        this.element = element;
+    }
+
+    private static JsoupElement of(Element element) {
+        return element == null ? null : new JsoupElement(element);
+    }
+
+    private static List<JsoupElement> of(Elements elements) {
+        ArrayList<JsoupElement> list = new ArrayList<JsoupElement>(elements.size());
+        for (Element element : elements) {
+            list.add(new JsoupElement(element));
+        }
+        return list;
+    }
+
+    @Override
+    public String tagName() {
+        return this.element.tagName();
+    }
+
+    @Override
+    public boolean isBlock() {
+        return this.element.isBlock();
+    }
+
+    @Override
+    public JsoupElement parent() {
+        return of(this.element.parent());
+    }
+
+    @Override
+    public List<JsoupElement> children() {
+        return of(this.element.children());
+    }
+
+    @Override
+    public JsoupElement child(int index) {
+        return new JsoupElement(this.element.child(index));
+    }
+
+    @Override
+    public JsoupElement nextElementSibling() {
+        return of(this.element.nextElementSibling());
+    }
+
+    @Override
+    public String html() {
+        return this.element.html();
+    }
+
+    @Override
+    public void html(String html) {
+        this.element.html(html);
+    }
+
+    @Override
+    public String text() {
+        return this.element.text();
+    }
+
+    @Override
+    public List<JsoupElement> getAllElements() {
+        return of(this.element.getAllElements());
+    }
+
+    @Override
+    public List<JsoupElement> getElementsByTag(String tagName) {
+        return of(this.element.getElementsByTag(tagName));
+    }
+
+    @Override
+    public List<JsoupElement> getElementsByAttributeValueContaining(String name, String value) {
+        return of(this.element.getElementsByAttributeValueContaining(name, value));
+    }
+}
@@ -1,9 +1,7 @@
 package dbFileBuilder.json;
 
+import java.util.List;
 import org.json.JSONArray;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
 
 /**
  * Class to extract translation values from HTML document.
@@ -19,12 +17,12 @@ public class TranslationFinder {
      * @param subSectionTitles List of all the h3 tag in the document.
      * @param document         A HTML Document.
      */
-    TranslationFinder(Elements subSectionTitles, Document document) {
+    <E extends EntryElement<E>> TranslationFinder(List<E> subSectionTitles, E document) {
 
-        Elements transArray = document.getElementsByAttributeValueContaining("data-destinationLanguage", "אנגלית");
+        List<E> transArray = document.getElementsByAttributeValueContaining("data-destinationLanguage", "אנגלית");
 
         this.JSONTransArray = new JSONArray();
-        for (Element translation : transArray) {
+        for (E translation : transArray) {
             this.JSONTransArray.put(translation.text().toLowerCase());
         }
 
@@ -35,16 +33,16 @@ public class TranslationFinder {
 
 
 
-        for (Element h3 : subSectionTitles) {
+        for (E h3 : subSectionTitles) {
             if (h3.text().equals("תרגום") == true) {
-                Element translation = h3.nextElementSibling();
-                Element englishEntry = null;
+                E translation = h3.nextElementSibling();
+                E englishEntry = null;
 
                 if (translation == null) {
                     //    System.out.println("No translation for " + article.getTitle());
                     return;
                 }
-                for (Element li : translation.getElementsByTag("li")) {
+                for (E li : translation.getElementsByTag("li")) {
                     if (li.text().contains("אנגלית") == true) {
                         englishEntry = li;
                         break;
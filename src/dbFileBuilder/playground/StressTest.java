@@ -0,0 +1,116 @@
+package dbFileBuilder.playground;
+
+import dbFileBuilder.PageConverter;
+import dbFileBuilder.article.ConversionContext;
+import dbFileBuilder.dump.BZip2InputStream;
+import dbFileBuilder.dump.Page;
+import dbFileBuilder.dump.PageSource;
+import dbFileBuilder.dump.StaxPageReader;
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Check that the article pipeline gives the same result on many threads as on
+ * one.<br>
+ * All the pages of a dump are converted on this thread, and then again, in a
+ * shuffled order, on a pool of threads. Any page whose JSON differs is
+ * reported.
+ * <br><br>
+ * Usage: <tt>StressTest dump [threads] [rounds]</tt><br>
+ * The dump is XML, or bzip2 compressed XML. Exits with <tt>1</tt> if any page
+ * differs.
+ */
+public class StressTest {
+
+    public static void main(String args[]) throws Exception {
+        if (args.length == 0) {
+            System.out.println("Usage: StressTest dump [threads] [rounds]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        final List<Page> pages = readPages(args[0]);
+        List<ArrayList<String>> expected = new ArrayList<ArrayList<String>>();
+        long start = System.currentTimeMillis();
+        for (Page page : pages) {
+            expected.add(PageConverter.convert(page, new ConversionContext()));
+        }
+        System.out.println(pages.size() + " pages on 1 thread: " + (System.currentTimeMillis() - start) + " ms");
+
+        int mismatches = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 1; round <= rounds; round++) {
+                List<Integer> order = new ArrayList<Integer>();
+                for (int i = 0; i < pages.size(); i++) {
+                    order.add(i);
+                }
+                Collections.shuffle(order, new Random(round));
+
+                start = System.currentTimeMillis();
+                List<Future<ArrayList<String>>> results = new ArrayList<Future<ArrayList<String>>>();
+                for (int i = 0; i < pages.size(); i++) {
+                    results.add(null);
+                }
+                for (final Integer i : order) {
+                    results.set(i, executor.submit(new Callable<ArrayList<String>>() {
+                        @Override
+                        public ArrayList<String> call() {
+                            return PageConverter.convert(pages.get(i), new ConversionContext());
+                        }
+                    }));
+                }
+                int roundMismatches = 0;
+                for (int i = 0; i < pages.size(); i++) {
+                    if (!results.get(i).get().equals(expected.get(i))) {
+                        roundMismatches++;
+                        System.out.println("Round " + round + ": differs: " + pages.get(i));
+                    }
+                }
+                System.out.println("Round " + round + ": " + pages.size() + " pages on " + threads + " threads: "
+                        + (System.currentTimeMillis() - start) + " ms, " + roundMismatches + " differ");
+                mismatches += roundMismatches;
+            }
+        } finally {
+            executor.shutdown();
+        }
+        if (mismatches != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return All the pages of <tt>fileName</tt> which are
+     * {@link PageConverter#isToProcess(dbFileBuilder.dump.Page) to be processed}.
+     */
+    private static List<Page> readPages(String fileName) throws IOException {
+        InputStream in = new BufferedInputStream(new FileInputStream(fileName), 1 << 16);
+        if (fileName.endsWith(".bz2")) {
+            in = new BufferedInputStream(new BZip2InputStream(in), 1 << 16);
+        }
+        PageSource source = new StaxPageReader(in);
+        List<Page> pages = new ArrayList<Page>();
+        try {
+            Page page;
+            while ((page = source.next()) != null) {
+                if (PageConverter.isToProcess(page)) {
+                    pages.add(page);
+                }
+            }
+        } finally {
+            source.close();
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,172 @@
+package dbFileBuilder.utilities;
+
+import java.util.Arrays;
+
+/**
+ * Index of the template braces (<tt>{{ }}</tt>) and the link brackets
+ * (<tt>[[ ]]</tt>) of a wiki text, made in one pass over it.<br>
+ * Each pair is matched the way MediaWiki nests them: a template in a template
+ * is closed before the one it is in, instead of the outer one being closed by
+ * the first <tt>}}</tt> after it. A run of braces is read two by two from its
+ * start, so <tt>{{{</tt> is a <tt>{{</tt> and a single brace. Braces and
+ * brackets are matched apart; a closing pair with nothing open, and the pairs
+ * still open at the end, are left unmatched.
+ * <br><br>
+ * The index is of the text it was made of; once the text is changed, a new
+ * one has to be made.
+ */
+public final class BracketIndex {
+
+    private final CharSequence text;
+    /**
+     * Where each pair of braces or brackets starts, in the order of the text.
+     */
+    private int[] starts;
+    /**
+     * Its char: <tt>{</tt>, <tt>}</tt>, <tt>[</tt> or <tt>]</tt>.
+     */
+    private char[] kinds;
+    /**
+     * The one it is matched with, <tt>-1</tt> if none.
+     */
+    private int[] matches;
+    private int size = 0;
+
+    /**
+     * Index a text.
+     *
+     * @param text Wiki text, or a view of it.
+     */
+    public BracketIndex(CharSequence text) {
+        this.text = text;
+        this.starts = new int[16];
+        this.kinds = new char[16];
+        this.matches = new int[16];
+        int[] braces = new int[8];
+        int braceDepth = 0;
+        int[] brackets = new int[8];
+        int bracketDepth = 0;
+        int length = text.length();
+        for (int i = 0; i < length - 1; i++) {
+            char c = text.charAt(i);
+            if ((c != '{' && c != '}' && c != '[' && c != ']') || text.charAt(i + 1) != c) {
+                continue;
+            }
+            int token = this.add(i, c);
+            switch (c) {
+                case '{':
+                    if (braceDepth == braces.length) {
+                        braces = Arrays.copyOf(braces, braceDepth * 2);
+                    }
+                    braces[braceDepth++] = token;
+                    break;
+                case '[':
+                    if (bracketDepth == brackets.length) {
+                        brackets = Arrays.copyOf(brackets, bracketDepth * 2);
+                    }
+                    brackets[bracketDepth++] = token;
+                    break;
+                case '}':
+                    if (braceDepth != 0) {
+                        this.match(braces[--braceDepth], token);
+                    }
+                    break;
+                case ']':
+                    if (bracketDepth != 0) {
+                        this.match(brackets[--bracketDepth], token);
+                    }
+                    break;
+            }
+            i++;
+        }
+    }
+
+    private int add(int start, char kind) {
+        if (this.size == this.starts.length) {
+            int capacity = this.size * 2;
+            this.starts = Arrays.copyOf(this.starts, capacity);
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.matches = Arrays.copyOf(this.matches, capacity);
+        }
+        this.starts[this.size] = start;
+        this.kinds[this.size] = kind;
+        this.matches[this.size] = -1;
+        return this.size++;
+    }
+
+    private void match(int open, int close) {
+        this.matches[open] = close;
+        this.matches[close] = open;
+    }
+
+    /**
+     * @return The number of the pair of braces or brackets which starts at
+     * <tt>position</tt>, or <tt>-1</tt> if none does.
+     */
+    private int token(int position) {
+        int token = Arrays.binarySearch(this.starts, 0, this.size, position);
+        return token < 0 ? -1 : token;
+    }
+
+    private static boolean isOpening(char kind) {
+        return kind == '{' || kind == '[';
+    }
+
+    /**
+     * @param open Where a <tt>{{</tt> or a <tt>[[</tt> starts.
+     * @return Where the <tt>}}</tt> or <tt>]]</tt> which closes it starts, or
+     * <tt>-1</tt> if it is not closed, or nothing is opened at
+     * <tt>open</tt>.
+     */
+    public int closing(int open) {
+        int token = this.token(open);
+        if (token == -1 || isOpening(this.kinds[token]) == false || this.matches[token] == -1) {
+            return -1;
+        }
+        return this.starts[this.matches[token]];
+    }
+
+    /**
+     * @param open Where a <tt>{{</tt> starts.
+     * @return The name of the template, as it is written: its text up to the
+     * first <tt>|</tt> or its closing braces, or <tt>null</tt> if no template
+     * is opened at <tt>open</tt>. The name of a template which is not closed
+     * goes up to the first <tt>|</tt> or the end of the text.
+     */
+    public String templateName(int open) {
+        int token = this.token(open);
+        if (token == -1 || this.kinds[token] != '{') {
+            return null;
+        }
+        int end = this.matches[token] == -1 ? this.text.length() : this.starts[this.matches[token]];
+        int pipe = StringUtility.indexOf(this.text, '|', open + 2);
+        if (pipe != -1 && pipe < end) {
+            end = pipe;
+        }
+        return this.text.subSequence(open + 2, end).toString();
+    }
+
+    /**
+     * @param kind <tt>{</tt>, <tt>}</tt>, <tt>[</tt> or <tt>]</tt>.
+     * @param from Where to start looking.
+     * @return Where the first pair of <tt>kind</tt> at or after
+     * <tt>from</tt> starts, or <tt>-1</tt> if there is none.
+     */
+    public int next(char kind, int from) {
+        for (int i = this.first(from); i < this.size; i++) {
+            if (this.kinds[i] == kind) {
+                return this.starts[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return The number of the first pair which starts at or after
+     * <tt>position</tt>.
+     */
+    private int first(int position) {
+        int token = Arrays.binarySearch(this.starts, 0, this.size, position);
+        return token < 0 ? -token - 1 : token;
+    }
+}
@@ -0,0 +1,121 @@
+package dbFileBuilder.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A trie of strings, each mapped to a number which is not negative.<br>
+ * A text is looked for all the strings in one pass over it: from each char of
+ * the text the trie is walked, with {@link #next(int, char)}, only as far as a
+ * string goes on with it.
+ */
+public final class CharTrie {
+
+    /**
+     * The node the walks start at, of the empty string.
+     */
+    public static final int ROOT = 0;
+    /**
+     * The chars out of each node, sorted, by the node.
+     */
+    private char[][] chars = new char[16][];
+    /**
+     * The node each of those chars leads to.
+     */
+    private int[][] next = new int[16][];
+    /**
+     * The number of the string which ends at each node, <tt>-1</tt> if none
+     * does.
+     */
+    private int[] values = new int[16];
+    private int size = 0;
+
+    /**
+     * Make an empty trie.
+     */
+    public CharTrie() {
+        this.node();
+    }
+
+    /**
+     * Add a string. A string which is already there keeps its number.
+     *
+     * @param string to add.
+     * @param value Its number, not negative.
+     */
+    public void add(String string, int value) {
+        int node = ROOT;
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            int at = Arrays.binarySearch(this.chars[node], c);
+            if (at < 0) {
+                at = -at - 1;
+                int child = this.node();
+                this.chars[node] = insert(this.chars[node], at, c);
+                this.next[node] = insert(this.next[node], at, child);
+            }
+            node = this.next[node][at];
+        }
+        if (this.values[node] == -1) {
+            this.values[node] = value;
+        }
+    }
+
+    private int node() {
+        if (this.size == this.values.length) {
+            this.chars = Arrays.copyOf(this.chars, this.size * 2);
+            this.next = Arrays.copyOf(this.next, this.size * 2);
+            this.values = Arrays.copyOf(this.values, this.size * 2);
+        }
+        this.chars[this.size] = new char[0];
+        this.next[this.size] = new int[0];
+        this.values[this.size] = -1;
+        return this.size++;
+    }
+
+    private static char[] insert(char[] array, int at, char c) {
+        char[] inserted = new char[array.length + 1];
+        System.arraycopy(array, 0, inserted, 0, at);
+        inserted[at] = c;
+        System.arraycopy(array, at, inserted, at + 1, array.length - at);
+        return inserted;
+    }
+
+    private static int[] insert(int[] array, int at, int n) {
+        int[] inserted = new int[array.length + 1];
+        System.arraycopy(array, 0, inserted, 0, at);
+        inserted[at] = n;
+        System.arraycopy(array, at, inserted, at + 1, array.length - at);
+        return inserted;
+    }
+
+    /**
+     * @param node A node, {@link #ROOT} to start a walk.
+     * @param c The next char of the text.
+     * @return The node <tt>c</tt> leads to, or <tt>-1</tt> if no string goes
+     * on with it.
+     */
+    public int next(int node, char c) {
+        int at = Arrays.binarySearch(this.chars[node], c);
+        return at < 0 ? -1 : this.next[node][at];
+    }
+
+    /**
+     * @return The number of the string which ends at <tt>node</tt>, or
+     * <tt>-1</tt> if none does.
+     */
+    public int value(int node) {
+        return this.values[node];
+    }
+
+    /**
+     * @return The number of the string which is all of <tt>text</tt>, or
+     * <tt>-1</tt> if it is not there.
+     */
+    public int get(CharSequence text) {
+        int node = ROOT;
+        for (int i = 0; i < text.length() && node != -1; i++) {
+            node = this.next(node, text.charAt(i));
+        }
+        return node == -1 ? -1 : this.values[node];
+    }
+}
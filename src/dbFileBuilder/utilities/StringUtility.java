@@ -7,8 +7,6 @@ import java.util.regex.Pattern;
  * Class with useful functions dealing with strings.
  */
 public final class StringUtility {
-    private static Pattern pattern;
-    private static Matcher matcher;
     /**
      * Pattern to detect open page tag.<br>
      * e.i: <tt>{@literal <}page{@literal >}</tt>
@@ -22,6 +20,10 @@ public final class StringUtility {
 
     /**
      * Return {@code true} only if {@code str} is an open/close page XML tag.
+     * <br>
+     * A line without <tt>{@literal <}</tt> is rejected before the pattern is
+     * tried, by a plain scan for it; a bitmap of the delimiters of a page was
+     * tried instead and dropped, as it was no faster.
      *
      * @param str   String to check whether its tag or not.
      * @param state <tt>True</tt> to look for open page tag
@@ -32,14 +34,18 @@ public final class StringUtility {
      *         page tag.
      */
     public static boolean isAPageTag(String str, boolean state) {
+        if (str.indexOf('<') == -1) { // The lines of the text have it escaped
+            return false;
+        }
+        Pattern pattern;
         if (state == true) {
-            StringUtility.pattern = OPEN_PAGE_TAG;
+            pattern = OPEN_PAGE_TAG;
         } else {
-            StringUtility.pattern = CLOSE_PAGE_TAG;
+            pattern = CLOSE_PAGE_TAG;
         }
 
-        StringUtility.matcher = pattern.matcher(str);
-        return StringUtility.matcher.matches();
+        Matcher matcher = pattern.matcher(str);
+        return matcher.matches();
     }
 
     /**
@@ -76,16 +82,81 @@ public final class StringUtility {
         return count;
     }
 
+    /**
+     * Returns the index within <tt>text</tt> of the first occurrence of
+     * <tt>target</tt>, starting at <tt>fromIndex</tt>, as
+     * {@link String#indexOf(String, int)} does for a String.
+     * @param text      to search in, which may be a view of another text.
+     * @param target    to search for.
+     * @param fromIndex the index to start the search from.
+     * @return The index of the first occurrence, or <tt>-1</tt> if there is
+     *         none.
+     */
+    public static int indexOf(final CharSequence text, final String target, final int fromIndex) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(target, fromIndex);
+        }
+        int last = text.length() - target.length();
+        for (int i = Math.max(fromIndex, 0); i <= last; i++) {
+            if (startsWith(text, target, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index within <tt>text</tt> of the first occurrence of
+     * <tt>c</tt>, starting at <tt>fromIndex</tt>.
+     * @param text      to search in, which may be a view of another text.
+     * @param c         to search for.
+     * @param fromIndex the index to start the search from.
+     * @return The index of the first occurrence, or <tt>-1</tt> if there is
+     *         none.
+     */
+    public static int indexOf(final CharSequence text, final char c, final int fromIndex) {
+        if (text instanceof String) {
+            return ((String) text).indexOf(c, fromIndex);
+        }
+        for (int i = Math.max(fromIndex, 0); i < text.length(); i++) {
+            if (text.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns <tt>true</tt> if <tt>text</tt> has <tt>prefix</tt> at
+     * <tt>offset</tt>, as {@link String#startsWith(String, int)} does for a
+     * String.
+     * @param text   to check, which may be a view of another text.
+     * @param prefix to look for.
+     * @param offset where to look for it.
+     * @return <tt>true</tt> if <tt>prefix</tt> is at <tt>offset</tt>.
+     */
+    public static boolean startsWith(final CharSequence text, final String prefix, final int offset) {
+        if (text instanceof String) {
+            return ((String) text).startsWith(prefix, offset);
+        }
+        if (offset < 0 || offset > text.length() - prefix.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Remove all the<tt>\n</tt> (new line sign) from <tt>text</tt>.
      * @param text to remove newline sign from.
      * @return same String as <tt>text</tt> but without newline sings.
      */
     public static String removeNewLine(String text) {
-        do {
-            text = text.replaceAll("\n", "");
-        } while (text.contains("\n"));
-        return text;
+        return text.replace("\n", "");
     }
 }
 
@@ -0,0 +1,156 @@
+package dbFileBuilder.utilities;
+
+/**
+ * A view of parts of a text, read as one text without being copied.<br>
+ * A slice is made of a range of a text. The slices made of it by
+ * {@link #subSequence(int, int) subSequence} and
+ * {@link #without(int, int) without} are views of the same text, so a page can
+ * be cut to sections, and a section can have a part taken out of it, without a
+ * char being copied. The chars are copied only by {@link #toString()}, once,
+ * where a stage changes the text.
+ */
+public final class TextSlice implements CharSequence {
+
+    private final String text;
+    /**
+     * Where each part of the view starts in {@link #text}, in order.
+     */
+    private final int[] starts;
+    /**
+     * Where each part of the view ends in {@link #text}, exclusive.
+     */
+    private final int[] ends;
+    private final int length;
+    /**
+     * The chars of the view, once they were copied.
+     */
+    private String string;
+
+    /**
+     * Make a view of a range of a text.
+     *
+     * @param text to view.
+     * @param start of the range, inclusive.
+     * @param end of the range, exclusive.
+     * @throws StringIndexOutOfBoundsException if the range is not in
+     * <tt>text</tt>.
+     */
+    public TextSlice(String text, int start, int end) {
+        this(text, new int[]{start}, new int[]{end});
+        if (start < 0 || end > text.length() || start > end) {
+            throw new StringIndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + text.length());
+        }
+    }
+
+    private TextSlice(String text, int[] starts, int[] ends) {
+        this.text = text;
+        this.starts = starts;
+        this.ends = ends;
+        int sum = 0;
+        for (int i = 0; i < starts.length; i++) {
+            sum += ends[i] - starts[i];
+        }
+        this.length = sum;
+    }
+
+    /**
+     * Make a view of a range of a text.
+     *
+     * @param text to view. If it is a slice, the view is of its text.
+     * @param start of the range, inclusive.
+     * @param end of the range, exclusive.
+     * @return A view of <tt>text</tt> from <tt>start</tt> to <tt>end</tt>.
+     */
+    public static TextSlice of(CharSequence text, int start, int end) {
+        if (text instanceof TextSlice) {
+            return ((TextSlice) text).subSequence(start, end);
+        }
+        return new TextSlice(text.toString(), start, end);
+    }
+
+    @Override
+    public int length() {
+        return this.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= this.length) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        for (int i = 0; i < this.starts.length; i++) {
+            int partLength = this.ends[i] - this.starts[i];
+            if (index < partLength) {
+                return this.text.charAt(this.starts[i] + index);
+            }
+            index -= partLength;
+        }
+        throw new StringIndexOutOfBoundsException(index);
+    }
+
+    @Override
+    public TextSlice subSequence(int start, int end) {
+        if (start < 0 || end > this.length || start > end) {
+            throw new StringIndexOutOfBoundsException("Range [" + start + ", " + end + ") of " + this.length);
+        }
+        int[] partStarts = new int[this.starts.length];
+        int[] partEnds = new int[this.starts.length];
+        int parts = 0;
+        int offset = 0; // Of the current part in the view
+        for (int i = 0; i < this.starts.length && offset < end; i++) {
+            int partLength = this.ends[i] - this.starts[i];
+            int from = Math.max(start - offset, 0);
+            int to = Math.min(end - offset, partLength);
+            if (from < to) {
+                partStarts[parts] = this.starts[i] + from;
+                partEnds[parts] = this.starts[i] + to;
+                parts++;
+            }
+            offset += partLength;
+        }
+        if (parts == 0) {
+            return new TextSlice(this.text, new int[]{0}, new int[]{0});
+        }
+        return new TextSlice(this.text, copy(partStarts, parts), copy(partEnds, parts));
+    }
+
+    /**
+     * @param start of the range to take out, inclusive.
+     * @param end of the range to take out, exclusive.
+     * @return A view of this text without the range from <tt>start</tt> to
+     * <tt>end</tt>.
+     */
+    public TextSlice without(int start, int end) {
+        TextSlice before = this.subSequence(0, start);
+        TextSlice after = this.subSequence(end, this.length);
+        int[] partStarts = new int[before.starts.length + after.starts.length];
+        int[] partEnds = new int[partStarts.length];
+        System.arraycopy(before.starts, 0, partStarts, 0, before.starts.length);
+        System.arraycopy(after.starts, 0, partStarts, before.starts.length, after.starts.length);
+        System.arraycopy(before.ends, 0, partEnds, 0, before.ends.length);
+        System.arraycopy(after.ends, 0, partEnds, before.ends.length, after.ends.length);
+        return new TextSlice(this.text, partStarts, partEnds);
+    }
+
+    private static int[] copy(int[] array, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(array, 0, copy, 0, length);
+        return copy;
+    }
+
+    @Override
+    public String toString() {
+        if (this.string == null) {
+            if (this.starts.length == 1) {
+                this.string = this.text.substring(this.starts[0], this.ends[0]);
+            } else {
+                StringBuilder builder = new StringBuilder(this.length);
+                for (int i = 0; i < this.starts.length; i++) {
+                    builder.append(this.text, this.starts[i], this.ends[i]);
+                }
+                this.string = builder.toString();
+            }
+        }
+        return this.string;
+    }
+}
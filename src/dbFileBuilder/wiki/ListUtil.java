@@ -1,18 +1,10 @@
 package dbFileBuilder.wiki;
 
-import java.util.regex.Pattern;
-
 /**
  * Class to deal with list.
  */
 public final class ListUtil {
 
-    /**
-     * Used by {@link  ListUtil#removeFirstListSign removeFirstListSign} method.
-     */
-    private static final Pattern LIST_SIGN_REMOVER
-            = Pattern.compile("(^|\\n)[\\*#:;]{0,1}", Pattern.UNICODE_CASE);
-
     /**
      * Don't let anyone instantiate this class.
      */
@@ -20,33 +12,17 @@ public final class ListUtil {
     }
 
     /**
-     * @param text to check whether it's list or not.
-     * @return <tt>true</tt> if and only if <tt>str</tt> containing a list on
-     * it.
-     */
-    protected static boolean isAList(String text) {
-        String arr[] = Util.splitByNewLineSign(text);
-        for (int i = 0; i < arr.length; i++) {
-            if (arr[i].length() != 0) {
-                if (isAListChar(arr[i].charAt(0)) == true) {
-                    return true;
-                }
-            }
-        }
-        return false;
-    }
-
-    /**
-     * Returns string with <tt>HTML</tt> list tag corresponding to the first
-     * character of<tt>str</tt>.
+     * Returns string with <tt>HTML</tt> list tag corresponding to a list
+     * character.
      *
-     * @param str
-     * @return Return values specified on the flowing table.
+     * @param chr A list character.
+     * @return Return values specified on the flowing table, or <tt>null</tt>
+     * if <tt>chr</tt> is not a list character.
      * <br>
      * <table style="width: 40%" border="1">
      * <tbody>
      * <tr>
-     * <td>First character of <tt>str</tt></td>
+     * <td><tt>chr</tt></td>
      * <td>Returned value</td>
      * <td>HTML Meaning</td>
      * </tr>
@@ -70,8 +46,7 @@ public final class ListUtil {
      * </tbody>
      * </table>
      */
-    protected static String getListTagForString(String str) {
-        char chr = str.charAt(0);
+    protected static String getListTag(char chr) {
         switch (chr) {
             case '#':
                 return "ol";
@@ -128,28 +103,6 @@ public final class ListUtil {
 
     }
 
-    /**
-     * Remove first list sign (can be #, * Or :) from each line on
-     * <tt>text</tt>.
-     *
-     * @param text to remove first list sign from its beginning.
-     * @return Same as {@code text } but without first list sign.
-     */
-    protected static String removeFirstListSign(String text) {
-        return LIST_SIGN_REMOVER.matcher(text).replaceAll("\n");
-        //<editor-fold defaultstate="collapsed" desc="Another way to impliment">
-        // Another way to impliment:
-        // return str.replaceAll("(^|\\n)[\\*#:]{0,1}", "\n");
-        /*
-         * // Another way to impliment... String[] arr =
-         * splitByNewLineSign(str); String strToRet = ""; for (int i = 0; i <
-         * arr.length; i++) { if (isAListChar(arr[i].charAt(0))) strToRet +=
-         * arr[i].substring(1, arr[i].length()) + '\n'; else strToRet += arr[i]
-         * + '\n'; } return removeNewLineSignFromEnd(strToRet);
-         */
-        //</editor-fold>
-    }
-
     /**
      * Returns <tt>true</tt> if and only if <tt>character</tt> is one of the
      * list chars.<br>
@@ -1,7 +1,6 @@
 package dbFileBuilder.wiki;
 
 import java.util.regex.Pattern;
-import dbFileBuilder.RegEx;
 
 /**
  * Static utility class to be used by {@link Wiki} class.
@@ -14,42 +13,6 @@ public final class Util {
     private Util() {
     }
 
-    /**
-     * Remove the last <tt>\n</tt>(new line sign) from <tt>text</tt>.
-     *
-     * @param text to remove the last <tt>\n</tt> from.
-     * @return If <tt>text</tt> does not contain <tt>\n</tt> in its end, the
-     * <tt>text</tt> returned as is.<br>
-     * Otherwise <tt>text</tt> returned without the <tt>\n</tt> in its end.
-     */
-    protected static StringBuilder removeNewLineSignFromEnd(StringBuilder text) {
-        if (text.charAt(text.length() - 1) == '\n') {
-            return new StringBuilder(text.substring(0, text.length() - 1));
-        } else {
-            return text;
-        }
-    }
-
-    /**
-     * Remove the first <tt>\n</tt> (new line sign) from the beginning of
-     * <tt>text</tt>.
-     *
-     * @param text to remove <tt>\n</tt> from its beginning.
-     * @return If <tt>text</tt> does not start with <tt>\n</tt>, the
-     * <tt>text</tt> returned as is.<br>
-     * Otherwise <tt>text</tt> returned without the <tt>\n</tt> in its start.
-     */
-    protected static String removeNewLineSignFromStart(String text) {
-        if (text.length() == 0) {
-            return text;
-        }
-        if (text.charAt(0) == '\n') {
-            return text.substring(1, text.length());
-        } else {
-            return text;
-        }
-    }
-
     /**
      * @param str String to split by new line sign.
      * @return Array strings
@@ -67,67 +30,58 @@ public final class Util {
      * @return <tt>true</tt> if <tt>text</tt> is a normal text.
      */
     protected static boolean isNormalText(String text) {
-        if (text.matches("^={2}[^=]*={2}") == true) {
-            return false;
-        }
-        if (text.matches("^={3}[^=]*={3}") == true) {
-            return false;
-        }
-        if (text.matches("^={4}[^=]*={4}") == true) {
-            return false;
-        }
-        if (text.matches("^={5}[^=]*={5}") == true) {
+        if (text.isEmpty() == true) {
             return false;
         }
-        if (text.matches("^={6}[^=]*={6}") == true) {
-            return false;
+        switch (text.charAt(0)) {
+            case ':': // Patterns.INDENT
+                return false;
+            case ';': // Patterns.DEFINITION_LIST
+                if (text.indexOf(':') != -1) {
+                    return false;
+                }
+                break;
+            case '-': // Patterns.LINE
+                if (text.startsWith("----") == true) {
+                    return false;
+                }
+                break;
+            case '=':
+                if (headingLevel(text) != 0) {
+                    return false;
+                }
+                break;
         }
-        if (RegEx.find(Patterns.DEFINITION_LIST, text) == true) {
-            return false;
+        // Patterns.ORDERED_LIST and Patterns.BULLET are found anywhere
+        return text.indexOf('#') == -1 && text.indexOf('*') == -1;
+    }
+
+    /**
+     * @param text One line in a Wiki markup.
+     * @return The level of the heading on the line, <tt>2</tt> to <tt>6</tt>,
+     * or <tt>0</tt> if it is not a heading. Same as matching
+     * <tt>^={n}[^=]*={n}</tt> for <tt>n</tt> from <tt>6</tt> down to
+     * <tt>2</tt>.
+     */
+    protected static int headingLevel(String text) {
+        int length = text.length();
+        int leading = 0;
+        while (leading < length && text.charAt(leading) == '=') {
+            leading++;
         }
-        if (RegEx.find(Patterns.INDENT, text) == true) {
-            return false;
+        if (leading == length) { // Only '='; the middle is empty
+            return (length % 2 == 0 && length >= 4 && length <= 12) ? length / 2 : 0;
         }
-        if (RegEx.find(Patterns.ORDERED_LIST, text) == true) {
-            return false;
+        if (leading < 2 || leading > 6) {
+            return 0;
         }
-        if (RegEx.find(Patterns.BULLET, text) == true) {
-            return false;
+        int trailing = 0;
+        while (text.charAt(length - 1 - trailing) == '=') {
+            trailing++;
         }
-        if (RegEx.find(Patterns.LINE, text) == true) {
-            return false;
+        if (trailing != leading || text.indexOf('=', leading) != length - trailing) {
+            return 0;
         }
-        if (text.isEmpty() == true) {
-            return false;
-        }
-        return true;
-    }
-
-    /**
-     * @param str the substring to search for.
-     * @param fromIndex the index to start the search from.
-     * @return the index of the last occurrence of the specified substring,
-     * searching backward from the specified index, or {@code -1} if there is no
-     * such occurrence.
-     */
-    protected static int findClosingBracket(String str, int fromIndex) {
-        int count = 0;
-        int i = fromIndex;
-        do {
-            i++;
-            if (i >= str.length()) {
-                return -1;
-            }
-            switch (str.charAt(i)) {
-                case ']':
-                    count++;
-                    break;
-                case '[':
-                    count--;
-                    break;
-            }
-        } while (count != 0);
-
-        return i;
+        return leading;
     }
 }
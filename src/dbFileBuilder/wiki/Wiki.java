@@ -2,6 +2,7 @@ package dbFileBuilder.wiki;
 
 import dbFileBuilder.utilities.ArrayUtils;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Convert Wiki markup to HTML.<br>
@@ -18,149 +19,312 @@ import java.util.ArrayList;
  */
 public class Wiki {
 
+    /**
+     * Told again and again while a text is converted: before each line, and
+     * within a long line. It may throw, to stop a conversion which takes too
+     * long.
+     */
+    public interface Watch {
+
+        void check();
+    }
+    private final Watch watch;
+
+    /**
+     * Creates a <tt>Wiki</tt> whose conversions are not watched.
+     */
+    public Wiki() {
+        this(null);
+    }
+
+    /**
+     * @param watch Told of the progress of each conversion, <tt>null</tt> for
+     * none.
+     */
+    public Wiki(Watch watch) {
+        this.watch = watch;
+    }
+
     /**
      * Convert Wiki markup to HTML.<br>
+     * Every line is converted by
+     * {@link WikiTextProcessor#processLine(java.lang.String)} once, and the
+     * lists are put together in one pass over the lines, with a stack of the
+     * lists which are open.
      *
      * @param wikiText to convert to HTML.
      * @return HTML representation of {@code wikiText}
      */
     public String process(String wikiText) {
-        String[] linesArray = arrayOfBloks(wikiText);
-        String HalfBaked = "";
-        for (String line : linesArray) {
-            // For each bloke of text: 
-            //      if it free text Wrap with P tag.
-            //      Otherwise append it as is.
-            if (Util.isNormalText(line) == true) {
-                String[] a = Util.splitByNewLineSign(line);
-                line = ArrayUtils.join(a, "<br/>\n");
-                HalfBaked += "<p>" + line + "</p>\n";
-            } else {
-                HalfBaked += line + '\n';
-            }
-        }
+        return this.process(Util.splitByNewLineSign(wikiText));
+    }
 
-        return jobManager(HalfBaked);
+    /**
+     * Convert Wiki markup, given line by line, to HTML.<br>
+     * The lines are converted as they are, without being put together to one
+     * text first.
+     *
+     * @param wikiLines The lines to convert, without the new line signs. There
+     * is at least one.
+     * @return HTML representation of {@code wikiLines}
+     * @see #process(java.lang.String)
+     */
+    public String process(String[] wikiLines) {
+        return render(paragraphs(wikiLines), this.watch);
     }
 
-    private String jobManager(String str) {
-        String stringToReturn = "";
-        if (ListUtil.isAList(str) == true) {
-            String[] linesArray = arrayOfBloks(str);
-            for (int i = 0; i < linesArray.length; i++) {
-                if (ListUtil.isAList(linesArray[i]) == true) {
-                    stringToReturn += list(linesArray[i]);
-                    stringToReturn = WikiTextProcessor.processLine(stringToReturn);
-                } else {
-                    String[] notAListArray = Util.splitByNewLineSign(linesArray[i]);
-                    for (String line : notAListArray) {
-                        line = WikiTextProcessor.processLine(line);
-                        stringToReturn += '\n' + line;
-                    }
+    /**
+     * Get the lines of a text in mediaWiki markup, and return them with the
+     * free text wrapped in paragraphs.
+     *
+     * @param wikiLines to convert to HTML.
+     * @return The lines, trimmed, without the empty ones.
+     */
+    private static ArrayList<String> paragraphs(String[] wikiLines) {
+        String[] linesArray = new String[wikiLines.length];
+        ArrayList<String> lines = new ArrayList<String>(linesArray.length);
+        for (int i = 0; i < linesArray.length; i++) {
+            linesArray[i] = wikiLines[i].trim();
+        }
+        int i = 0;
+        while (i < linesArray.length) {
+            String line = linesArray[i];
+            if (line.length() == 0) { // Ignore empty lines
+                i++;
+                continue;
+            }
+            int end = i + 1;
+            boolean normalText;
+            char firstChar = line.charAt(0);
+            if (ListUtil.isAListChar(firstChar) == true) { // A list block; free text if it has only ';'
+                normalText = firstChar == ';' && line.indexOf(':') == -1
+                        && line.indexOf('#') == -1 && line.indexOf('*') == -1;
+                while (end < linesArray.length && linesArray[end].length() != 0
+                        && linesArray[end].charAt(0) == firstChar) {
+                    normalText = normalText && linesArray[end].indexOf(':') == -1
+                            && linesArray[end].indexOf('#') == -1 && linesArray[end].indexOf('*') == -1;
+                    end++;
                 }
+            } else if (Util.isNormalText(line) == true) {
+                while (end < linesArray.length && linesArray[end].length() != 0
+                        && ListUtil.isAListChar(linesArray[end].charAt(0)) == false
+                        && Util.isNormalText(linesArray[end]) == true) {
+                    end++;
+                }
+                normalText = end - i == 1 || line.startsWith("==") == false // It may be a heading as a whole
+                        || Util.headingLevel(ArrayUtils.join(Arrays.copyOfRange(linesArray, i, end), "\n")) == 0;
+            } else {
+                normalText = false;
             }
-
-            return Util.removeNewLineSignFromStart(stringToReturn);
-        } else {
-            String[] notAListArray = Util.splitByNewLineSign(str);
-            for (String line : notAListArray) {
-                line = WikiTextProcessor.processLine(line);
-                stringToReturn += '\n' + line;
+            if (normalText == false) {
+                lines.addAll(Arrays.asList(linesArray).subList(i, end));
+            } else if (end - i == 1) {
+                lines.add("<p>" + line + "</p>");
+            } else {
+                lines.add("<p>" + line + "<br/>");
+                for (int j = i + 1; j < end - 1; j++) {
+                    lines.add(linesArray[j] + "<br/>");
+                }
+                lines.add(linesArray[end - 1] + "</p>");
             }
-            return Util.removeNewLineSignFromStart(stringToReturn);
+            i = end;
         }
+        return lines;
     }
 
-    private String list(String match) {
-        String type = ListUtil.getListTagForString(match);
+    /**
+     * A list which is open, or the whole text.
+     */
+    private static final class Frame {
+
+        /**
+         * The end of its lines.
+         */
+        private int to;
+        /**
+         * Its next line.
+         */
+        private int next;
+        /**
+         * The list tag, <tt>null</tt> for the whole text.
+         */
+        private final String tag;
+        private final String innerTag;
+        /**
+         * <tt>true</tt> if it has lists in it. Its lines are trimmed, and the
+         * empty ones are skipped.
+         */
+        private final boolean hasLists;
+        /**
+         * Leading line breaks which are dropped: one of the text, and for a
+         * list, the one before its first line too.
+         */
+        private int dropped;
+        /**
+         * Line breaks which are not written yet; the trailing ones of a list
+         * are dropped.
+         */
+        private int pending;
+        private boolean written;
 
-        String innerType = // dl if the type is dd. Otherewith li
-                ListUtil.getInnerListTag(type);
+        Frame(int from, int to, char listChar, boolean hasLists) {
+            this.next = from;
+            this.to = to;
+            this.tag = listChar == 0 ? null : ListUtil.getListTag(listChar);
+            this.innerTag = listChar == 0 ? null : ListUtil.getInnerListTag(this.tag);
+            this.hasLists = hasLists;
+            this.dropped = listChar == 0 ? 1 : 2;
+        }
 
-        match = // Strip first layer of list
-                ListUtil.removeFirstListSign(match);
+        /**
+         * A line break, before a line.
+         */
+        void lineBreak() {
+            if (this.written == false && this.dropped > 0) {
+                this.dropped--;
+            } else {
+                this.pending++;
+            }
+        }
 
-        match = jobManager(match);
-        String tmp = Util.removeNewLineSignFromStart(match);
-        String[] arr = Util.splitByNewLineSign(tmp);
-        String str = ArrayUtils.join(arr, "</li><li>");
-        return '<' + type + "><" + innerType + '>' + str + "</" + innerType + "></" + type + '>';
+        /**
+         * Write the pending line breaks, before something is written.
+         */
+        void content(StringBuilder html) {
+            for (; this.pending > 0; this.pending--) {
+                // Each line of a list is an item; always joined with li
+                html.append(this.tag == null ? "\n" : "</li><li>");
+            }
+            this.written = true;
+        }
 
+        void open(StringBuilder html) {
+            html.append('<').append(this.tag).append("><").append(this.innerTag).append('>');
+        }
+
+        /**
+         * Close the list. A list whose lines are all empty, e.g. a list of
+         * images, is one empty item.
+         */
+        void close(StringBuilder html) {
+            if (this.tag == null) {
+                this.content(html);
+                return;
+            }
+            html.append("</").append(this.innerTag).append("></").append(this.tag).append('>');
+        }
     }
 
     /**
-     * Get string in mediaWiki markup return array of what gonna be HTML blocks.
+     * Convert the lines, and put the lists together.<br>
+     * The lines of a list are looked at without their first list char, and a
+     * list in a list is a run of lines which start with the same list char
+     * after it.
+     *
+     * A line whose HTML still has markup to convert, e.g. an unclosed
+     * template, is converted again while that changes it, at most once for
+     * each list it is in, but on its own: the markup is not matched with the
+     * lines around it.
      *
-     * @param wikiText description Indicate whether the element create block by
-     * default.
-     * @see <a
-     * href="https://developer.mozilla.org/en-US/docs/HTML/Block-level_elements">
-     * MDN: Block-level elements</a>
+     * @param lines The lines of the text, with the free text in paragraphs.
+     * @param watch Told before each line, <tt>null</tt> for none.
+     * @return The HTML.
      */
-    private String[] arrayOfBloks(String wikiText) {
-        ArrayList<String> arrayToReturn = new ArrayList<String>();
-        String[] linesArray = Util.splitByNewLineSign(wikiText);
-        StringBuilder currentBlock;
-        for (int i = 0; i < linesArray.length; i++) {
-            linesArray[i] = linesArray[i].trim();
-        }
-        for (int i = 0; i < linesArray.length; i++) {
-            currentBlock = new StringBuilder();
-            if (linesArray[i].length() == 0) // Ignore empty lines
-            {
+    private static String render(ArrayList<String> lines, Watch watch) {
+        int[] starts = new int[lines.size()]; // Where each line starts in the list it is in
+        StringBuilder html = new StringBuilder(lines.size() * 64);
+        ArrayList<Frame> stack = new ArrayList<Frame>();
+        stack.add(new Frame(0, lines.size(), (char) 0, hasLists(lines, starts, 0, lines.size())));
+        // In a text with lists, lines are converted again while that changes them
+        boolean converted = stack.get(0).hasLists;
+        while (stack.isEmpty() == false) {
+            Frame frame = stack.get(stack.size() - 1);
+            if (frame.next == frame.to) {
+                stack.remove(stack.size() - 1);
+                frame.close(html);
                 continue;
             }
-            char firstChar
-                    = /*
-                     * The kind of the list is determined by the first character
-                     * of the line.
-                     */ linesArray[i].charAt(0);
-            if (ListUtil.isAListChar(firstChar) == true) { // Is it list block?
-                do {
-                    currentBlock.append(linesArray[i]).append('\n');
-                    i++;
-                    if (i == linesArray.length) // Reach to the end?
-                    {
-                        break;
+            int i = frame.next;
+            String line = lines.get(i);
+            if (frame.hasLists == true) {
+                starts[i] = trim(line, starts[i]);
+                if (starts[i] == line.length()) {
+                    frame.next++;
+                    continue;
+                }
+                char listChar = line.charAt(starts[i]);
+                if (ListUtil.isAListChar(listChar) == true) {
+                    int end = i + 1;
+                    while (end < frame.to) {
+                        starts[end] = trim(lines.get(end), starts[end]);
+                        if (starts[end] == lines.get(end).length()
+                                || lines.get(end).charAt(starts[end]) != listChar) {
+                            break;
+                        }
+                        end++;
                     }
-                    if (linesArray[i].length() == 0) {// Empty line?
-                        break;
+                    for (int j = i; j < end; j++) {
+                        starts[j]++; // Strip the list char
                     }
-                } while (linesArray[i].charAt(0) == firstChar);// Is it still a list block?
-                currentBlock = // Remove the last \n from the last line
-                        Util.removeNewLineSignFromEnd(currentBlock);
-                arrayToReturn.add(currentBlock.toString());
-                i--;
-            } else if (Util.isNormalText(linesArray[i]) == true) {
-                do {
-                    currentBlock.append(linesArray[i]).append('\n');
-                    i++;
-                    if (i == linesArray.length) // Reach to the end?
-                    {
-                        break;
+                    frame.next = end;
+                    frame.content(html);
+                    Frame list = new Frame(i, end, listChar, hasLists(lines, starts, i, end));
+                    list.open(html);
+                    if (list.hasLists == false) { // Its lines are split as they are
+                        while (list.to > i && starts[list.to - 1] == lines.get(list.to - 1).length()) {
+                            list.to--; // Trailing empty lines are not there
+                        }
+                        if (list.to > i) {
+                            list.lineBreak(); // Before the empty line it starts with
+                        }
                     }
-                    if (linesArray[i].length() == 0) {// Empty line?
+                    stack.add(list);
+                    continue;
+                }
+            }
+            if (watch != null) {
+                watch.check();
+            }
+            frame.lineBreak();
+            String lineHtml = WikiTextProcessor.processLine(starts[i] == 0 ? line : line.substring(starts[i]), watch);
+            if (converted == true) {
+                for (int k = 0; k < stack.size() && WikiTextProcessor.isStable(lineHtml) == false; k++) {
+                    String again = WikiTextProcessor.processLine(lineHtml, watch);
+                    if (again.equals(lineHtml) == true) {
                         break;
                     }
-                } while (Util.isNormalText(linesArray[i]) == true
-                        && ListUtil.isAListChar(linesArray[i].charAt(0)) == false);
-                i--;
-                currentBlock = // Remove the last \n from the last line
-                        Util.removeNewLineSignFromEnd(currentBlock);
-                arrayToReturn.add(currentBlock.toString());
-            } else // it's not a list, and not a free text - its get it one block
-            {
-                currentBlock.append(linesArray[i]).append('\n');
-                currentBlock = // Remove the last \n from the last line
-                        Util.removeNewLineSignFromEnd(currentBlock);
-                arrayToReturn.add(currentBlock.toString());
+                    lineHtml = again;
+                }
             }
+            if (lineHtml.length() != 0) {
+                frame.content(html);
+                html.append(lineHtml);
+            }
+            frame.next++;
         }
+        return html.toString();
+    }
 
-        String[] returnType = // The right type to return
-                new String[arrayToReturn.size()];
-        returnType = arrayToReturn.toArray(returnType);
+    /**
+     * @return <tt>true</tt> if any of the lines from <tt>from</tt> to
+     * <tt>to</tt> starts with a list char.
+     */
+    private static boolean hasLists(ArrayList<String> lines, int[] starts, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (starts[i] < lines.get(i).length() && ListUtil.isAListChar(lines.get(i).charAt(starts[i])) == true) {
+                return true;
+            }
+        }
+        return false;
+    }
 
-        return returnType;
+    /**
+     * @return Where <tt>line</tt> starts from <tt>start</tt>, trimmed.
+     */
+    private static int trim(String line, int start) {
+        while (start < line.length() && line.charAt(start) <= ' ') {
+            start++;
+        }
+        return start;
     }
 }
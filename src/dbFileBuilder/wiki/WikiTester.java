@@ -1,6 +1,7 @@
 package dbFileBuilder.wiki;
 
 import dbFileBuilder.article.nituachDikduki.NituachDikduki;
+import dbFileBuilder.article.nituachDikduki.Position;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
@@ -52,9 +53,10 @@ public class WikiTester {
                 + "    </head>\n"
                 + "    <body>\n");
 
-        if (NituachDikduki.isNeeded(str)) {
-            NituachDikduki nd = new NituachDikduki(str);
-            str = nd.getWikiEntryWithoutND();
+        Position ndPosition = NituachDikduki.find(str);
+        if (ndPosition != null) {
+            NituachDikduki nd = new NituachDikduki(str, ndPosition);
+            str = nd.getWikiEntryWithoutND().toString();
         }
         str = nw.process(str);
         bufferWriter.write(str);
@@ -1,5 +1,9 @@
 package dbFileBuilder.wiki;
 
+import dbFileBuilder.utilities.BracketIndex;
+import java.util.ArrayList;
+import java.util.HashMap;
+
 /**
  * Class with method to convert text in Wiki markup to HTML.<br>
  */
@@ -28,310 +32,432 @@ public final class WikiTextProcessor {
      * //TODO: complit the list of supported syntax
      * </pre>
      * </blockquote>
+     * The line is scanned once: links and templates are handed to their
+     * {@link Processors} on the way, through the {@link Template} table, the
+     * ones nested in a template before it, and runs of apostrophes become bold
+     * and italic tags as they are written.<br>
+     * Braces or brackets which close nothing are left in the HTML as they
+     * are. A template with too few parameters for its processor fails the
+     * line with the exception of the processor.
      *
      * @param wikiText to convert to HTML text.
      * @return String with HTML representation of wiki markup.
      */
     public static String processLine(String wikiText) {
-       
-        String rtn;
-        if (wikiText.matches("^={6}[^=]*={6}") == true) {
-            rtn = "<h6>";
-            rtn += wikiText.substring(6, wikiText.length() - 6);
-            rtn += "</h6>";
-            return rtn;
-        } else if (wikiText.matches("^={5}[^=]*={5}") == true) {
-            rtn = "<h5>";
-            rtn += wikiText.substring(5, wikiText.length() - 5);
-            rtn += "</h5>";
-            return rtn;
-        } else if (wikiText.matches("^={4}[^=]*={4}") == true) {
-            rtn = "<h4>";
-            rtn += wikiText.substring(4, wikiText.length() - 4);
-            rtn += "</h4>";
-            return rtn;
-        } else if (wikiText.matches("^={3}[^=]*={3}") == true) {
-            rtn = "<h3>";
-            rtn += wikiText.substring(3, wikiText.length() - 3);
-            rtn += "</h3>";
-            return rtn;
-        } else if (wikiText.matches("^={2}[^=]*={2}") == true) {
-            rtn = Processors.processHeading(wikiText.substring(2, wikiText.length() - 2));
-            rtn = "<h2>" + rtn + "</h2>";
-            return rtn;
-        } else if (dbFileBuilder.RegEx.find(Patterns.LINE, wikiText) == true) {
-            return "<hr/>";
-        }
-        // Image
-        int indexOfImage = wikiText.indexOf("[[תמונה:");
-        int endIndexOfImage = Util.findClosingBracket(wikiText, indexOfImage);
-        //     wikiText.lastIndexOf("]]", indexOfImage + 8);
-        while (indexOfImage != -1 && endIndexOfImage != -1) {
-            String prefixText = wikiText.substring(0, indexOfImage);// Removes the "[[תמונה:"
-            String imageTag = Processors.processImage(wikiText.substring(indexOfImage + 8, endIndexOfImage));
-            String suffixText = wikiText.substring(endIndexOfImage + 2);// Removes the "]]"
-
-            wikiText = prefixText + imageTag + suffixText;
+        return processLine(wikiText, null);
+    }
 
-            indexOfImage = // Gets the indexes of next image
-                    wikiText.indexOf("[[תמונה:", indexOfImage + 7);
-            endIndexOfImage = wikiText.lastIndexOf("]]", indexOfImage + 7);
+    /**
+     * {@link #processLine(java.lang.String)}, telling <tt>watch</tt> of the
+     * progress in a long line.
+     *
+     * @param watch Told every {@link Scanner#CHECK_INTERVAL} chars,
+     * <tt>null</tt> for none.
+     */
+    static String processLine(String wikiText, Wiki.Watch watch) {
+        int level = Util.headingLevel(wikiText);
+        if (level == 2) {
+            return "<h2>" + Processors.processHeading(wikiText.substring(2, wikiText.length() - 2)) + "</h2>";
+        } else if (level != 0) {
+            return "<h" + level + ">" + wikiText.substring(level, wikiText.length() - level) + "</h" + level + ">";
+        } else if (wikiText.startsWith("----") == true) {
+            return "<hr/>";
         }
+        return new Scanner(wikiText, watch).scan();
+    }
 
-        // URL 
-        for (int i = 0; i < WEB_PROTOCOLS.length; i++) {
-            int index = wikiText.indexOf("[" + WEB_PROTOCOLS[i] + "://");
-            int endIndex = wikiText.indexOf("]", index + 1);
-            while (index != -1 && endIndex != -1) {
-                String prefixText = wikiText.substring(0, index);
-                String aTag = Processors.processURL(wikiText.substring(index + 1, endIndex));
-                String suffixText = wikiText.substring(endIndex + 1);
-
-                wikiText = prefixText + aTag + suffixText;
-
-                index = wikiText.indexOf("[" + WEB_PROTOCOLS[i] + "://", endIndex + 1);
-                endIndex = wikiText.indexOf("]", index + 1);
+    /**
+     * Returns <tt>true</tt> if {@link #processLine(java.lang.String)} gives
+     * <tt>html</tt> back as it is, whatever it is put between: it has no
+     * links, templates or apostrophes to convert.
+     *
+     * @param html A line converted by
+     * {@link #processLine(java.lang.String)}.
+     * @return <tt>true</tt> if converting <tt>html</tt> again does nothing.
+     */
+    static boolean isStable(String html) {
+        int length = html.length();
+        for (int i = 0; i < length - 1; i++) {
+            switch (html.charAt(i)) {
+                case '[':
+                    if (html.charAt(i + 1) == '[' || Scanner.isURL(html, i + 1) == true) {
+                        return false;
+                    }
+                    break;
+                case '{':
+                    if (html.charAt(i + 1) == '{') {
+                        return false;
+                    }
+                    break;
+                case '\'':
+                    if (html.charAt(i + 1) == '\'') {
+                        return false;
+                    }
+                    break;
+                case '<':
+                    if (html.startsWith("<\\/b><\\/i>", i) == true) {
+                        return false;
+                    }
+                    break;
             }
         }
+        return true;
+    }
 
-        // Inner URL
-        int indexOfOpenBracket = wikiText.indexOf("[[");
-        int indexOfCloseBracket = wikiText.indexOf("]]", indexOfOpenBracket + 2);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);// Removes the "[[File:"
-            String aTag = Processors.processInnerURL(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);// Removes the "]]"
-
-            wikiText = prefixText + aTag + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next image
-                    wikiText.indexOf("[[", indexOfOpenBracket + 2);
-            indexOfCloseBracket = wikiText.indexOf("]]", indexOfOpenBracket + 2);
-        }
-
-        // register (mishlav)
-        indexOfOpenBracket = wikiText.indexOf("{{משלב");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 6);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processRegister(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{משלב", indexOfOpenBracket + 6);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 6);
-        }
-
-        // roved lashon (stratum)
-        indexOfOpenBracket = wikiText.indexOf("{{רובד|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 7);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processStratum(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
+    /**
+     * The templates which have a processor, by the way their names are
+     * matched.
+     */
+    private enum Template {
 
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{רובד|", indexOfOpenBracket + 7);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 7);
+        REGISTER("משלב", false) {
+            @Override
+            String process(String text) {
+                return Processors.processRegister(text);
+            }
+        },
+        STRATUM("רובד", true) {
+            @Override
+            String process(String text) {
+                return Processors.processStratum(text);
+            }
+        },
+        NEW_HEBREW("חידוש", true) {
+            @Override
+            String process(String text) {
+                return Processors.processNewHebrew(text);
+            }
+        },
+        FOREIGN_LANGUAGE("לועזית", true) {
+            @Override
+            String process(String text) {
+                return Processors.processForeignLanguage(text);
+            }
+        },
+        GREEK("יוונית", true) {
+            @Override
+            String process(String text) {
+                return Processors.processGreek(text);
+            }
+        },
+        UNICODE("יוניקוד", true) {
+            @Override
+            String process(String text) {
+                return Processors.processUnicode(text);
+            }
+        },
+        SHORT_QUOTE("צט", false) {
+            @Override
+            String process(String text) {
+                return Processors.processShortQuote(text);
+            }
+        },
+        SMALL_QUOTE("ציטוטון", true) {
+            @Override
+            String process(String text) {
+                return Processors.processSmallQuote(text);
+            }
+        },
+        QUOTE("ציטוט", true) {
+            @Override
+            String process(String text) {
+                return Processors.processQuote(text);
+            }
+        },
+        EMPHASIS("הדגשה", true) {
+            @Override
+            String process(String text) {
+                return Processors.processEmphasis(text);
+            }
+        },
+        ABBREVIATION("ר\"ת", false) {
+            @Override
+            String process(String text) {
+                return Processors.processAbbreviation(text);
+            }
+        },
+        /**
+         * Gets its text with the opening braces. Once there was one on the
+         * line, every template after it which has no processor of its own is
+         * a translation too.
+         */
+        TRANSLATION("ת", true) {
+            @Override
+            String process(String text) {
+                return Processors.processTranslation("{{" + text);
+            }
+        },
+        OTHER("", false) {
+            @Override
+            String process(String text) {
+                return Processors.processInnerURL(text);
+            }
+        };
+        /**
+         * The templates whose names must be followed by <tt>|</tt>, by name.
+         */
+        private static final HashMap<String, Template> BY_NAME = new HashMap<String, Template>();
+        /**
+         * The templates of all the names which start with their names.
+         */
+        private static final Template[] BY_PREFIX = {REGISTER, SHORT_QUOTE, ABBREVIATION};
+
+        static {
+            for (Template template : values()) {
+                if (template.exactName == true) {
+                    BY_NAME.put(template.name, template);
+                }
+            }
         }
+        private final String name;
+        private final boolean exactName;
 
-        // Chidush lashon 
-        indexOfOpenBracket = wikiText.indexOf("{{חידוש|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processNewHebrew(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{חידוש|", indexOfOpenBracket + 8);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
+        private Template(String name, boolean exactName) {
+            this.name = name;
+            this.exactName = exactName;
         }
 
-        // from foreign language (מלועזית)
-        indexOfOpenBracket = wikiText.indexOf("{{לועזית|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 9);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processForeignLanguage(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{לועזית|", indexOfOpenBracket + 9);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 9);
+        /**
+         * @param text The template, without its braces.
+         * @return Its HTML.
+         */
+        abstract String process(String text);
+
+        /**
+         * @param line The line the template is in.
+         * @param from Where its text starts, after its braces.
+         * @param to Where its closing braces start.
+         * @return The kind of the template.
+         */
+        static Template of(String line, int from, int to) {
+            int pipe = from;
+            while (pipe < to && line.charAt(pipe) != '|') {
+                pipe++;
+            }
+            if (pipe < to) {
+                Template template = BY_NAME.get(line.substring(from, pipe));
+                if (template != null) {
+                    return template;
+                }
+            }
+            for (Template template : BY_PREFIX) {
+                if (from + template.name.length() <= to && line.startsWith(template.name, from) == true) {
+                    return template;
+                }
+            }
+            return OTHER;
         }
+    }
 
-        // Greek
-        indexOfOpenBracket = wikiText.indexOf("{{יוונית|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 9);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processGreek(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{יוונית|", indexOfOpenBracket + 9);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 9);
+    /**
+     * Converts one line in a single pass.<br>
+     * A template or a link is closed by the braces or the brackets which
+     * match its own, as the {@link BracketIndex} finds them, and the templates
+     * and the links in it are converted before it is: its text is gathered in
+     * a {@link Part} of its own, and handed to its processor when its end is
+     * reached.
+     */
+    private static final class Scanner {
+
+        /**
+         * The number of chars, or templates and links, scanned between two
+         * checks of the watch.
+         */
+        private static final int CHECK_INTERVAL = 1 << 16;
+        private final String text;
+        private final Wiki.Watch watch;
+        private final StringBuilder html;
+        /**
+         * The templates and the links which are open at the scan, the inner
+         * one last.
+         */
+        private final ArrayList<Part> parts = new ArrayList<Part>();
+        /**
+         * Apostrophes seen but not written yet.
+         */
+        private int apostrophes;
+        private int countBold;
+        private int countItalic;
+        private boolean translationSeen;
+
+        Scanner(String wikiText, Wiki.Watch watch) {
+            this.text = wikiText;
+            this.watch = watch;
+            this.html = new StringBuilder(wikiText.length() + (wikiText.length() >> 1) + 16);
         }
 
-        // Unicode
-        indexOfOpenBracket = wikiText.indexOf("{{יוניקוד|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 10);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String text = Processors.processUnicode(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + text + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{יוניקוד|", indexOfOpenBracket + 10);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 10);
+        /**
+         * @return The HTML of the line.
+         */
+        String scan() {
+            String line = this.text;
+            int length = line.length();
+            BracketIndex brackets = new BracketIndex(line);
+            int end = length; // Where the inner open part ends
+            int i = 0;
+            int untilCheck = CHECK_INTERVAL;
+            while (true) {
+                if (--untilCheck == 0) {
+                    untilCheck = CHECK_INTERVAL;
+                    if (this.watch != null) {
+                        this.watch.check();
+                    }
+                }
+                if (i == end) {
+                    if (this.parts.isEmpty() == true) {
+                        break;
+                    }
+                    Part part = this.parts.remove(this.parts.size() - 1);
+                    end = this.parts.isEmpty() ? length : this.parts.get(this.parts.size() - 1).end;
+                    this.write(part.process());
+                    i = part.next;
+                    continue;
+                }
+                char c = line.charAt(i);
+                int close;
+                if (c == '{' && line.startsWith("{{", i) == true
+                        && (close = brackets.closing(i)) != -1 && close + 2 <= end) {
+                    Template template = Template.of(line, i + 2, close);
+                    if (template == Template.TRANSLATION) {
+                        this.translationSeen = true;
+                    } else if (template == Template.OTHER && this.translationSeen == true) {
+                        template = Template.TRANSLATION;
+                    }
+                    this.parts.add(new Part(template, close, close + 2));
+                    end = close;
+                    i += 2;
+                } else if (c == '[' && line.startsWith("[[", i) == true && isURL(line, i + 2) == false
+                        && (close = brackets.closing(i)) != -1 && close + 2 <= end) {
+                    if (line.startsWith("תמונה:", i + 2) == true) { // Dropped with all that is in it
+                        this.write(Processors.processImage(line.substring(i + 8, close)));
+                        i = close + 2;
+                        continue;
+                    }
+                    this.parts.add(new Part(Template.OTHER, close, close + 2));
+                    end = close;
+                    i += 2;
+                } else if (c == '[' && isURL(line, i + 1) == true
+                        && (close = line.indexOf(']', i + 1)) != -1 && close < end) {
+                    this.parts.add(new Part(null, close, close + 1));
+                    end = close;
+                    i++;
+                } else { // Text, and braces or brackets which close nothing
+                    this.write(c);
+                    i++;
+                }
+            }
+            this.flushApostrophes();
+            String rtn = this.html.toString();
+            if (rtn.indexOf("<\\/b><\\/i>") != -1) {
+                rtn = rtn.replace("<\\/b><\\/i>", "</i></b>");
+            }
+            return rtn;
         }
 
-        //   Quote short
-        indexOfOpenBracket = wikiText.indexOf("{{צט");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 4);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String quoteText = Processors.processShortQuote(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + quoteText + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{צט", indexOfOpenBracket + 1);
-
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 4);
+        /**
+         * @return <tt>true</tt> if there is a URL of one of the
+         * {@link #WEB_PROTOCOLS} at <tt>index</tt>.
+         */
+        private static boolean isURL(String line, int index) {
+            for (String protocol : WEB_PROTOCOLS) {
+                if (line.startsWith(protocol, index) == true
+                        && line.startsWith("://", index + protocol.length()) == true) {
+                    return true;
+                }
+            }
+            return false;
         }
 
-        // Small  Quote
-        indexOfOpenBracket = wikiText.indexOf("{{ציטוטון|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String quoteText = Processors.processSmallQuote(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + quoteText + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{ציטוטון|", indexOfOpenBracket + 1);
-
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
+        /**
+         * Write to the inner open part, or to the HTML if none is open.
+         */
+        private void write(String s) {
+            if (this.parts.isEmpty() == true) {
+                this.append(s, 0, s.length());
+            } else {
+                this.parts.get(this.parts.size() - 1).text.append(s);
+            }
         }
 
-        //   Quote
-        indexOfOpenBracket = wikiText.indexOf("{{ציטוט|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String quoteText = Processors.processQuote(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + quoteText + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next processShortQuote
-                    wikiText.indexOf("{{ציטוט|", indexOfOpenBracket + 1);
-
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
+        private void write(char c) {
+            if (this.parts.isEmpty() == true) {
+                this.append(c);
+            } else {
+                this.parts.get(this.parts.size() - 1).text.append(c);
+            }
         }
 
-        // Emphasis
-        indexOfOpenBracket = wikiText.indexOf("{{הדגשה|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 8);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-
-            String emTag = Processors.processEmphasis(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + emTag + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next image
-                    wikiText.indexOf("{{הדגשה|", indexOfOpenBracket + 2);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 2);
+        private void append(CharSequence s, int from, int to) {
+            for (int i = from; i < to; i++) {
+                this.append(s.charAt(i));
+            }
         }
 
-        // abbreviation
-        indexOfOpenBracket = wikiText.indexOf("{{ר\"ת");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 5);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-
-            String emTag = Processors.processAbbreviation(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);
-
-            wikiText = prefixText + emTag + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next image
-                    wikiText.indexOf("{{ר\"ת", indexOfOpenBracket + 5);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 5);
+        private void append(char c) {
+            if (c == '\'') {
+                this.apostrophes++;
+                return;
+            }
+            if (this.apostrophes != 0) {
+                this.flushApostrophes();
+            }
+            this.html.append(c);
         }
 
-        // Translation
-        indexOfOpenBracket = wikiText.indexOf("{{ת|");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 4);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-
-            String spanTag = Processors.processTranslation(wikiText.substring(indexOfOpenBracket, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);// Removes the "}}"
-
-            wikiText = prefixText + spanTag + suffixText;
-            indexOfOpenBracket = // Gets the indexes of next image
-                    wikiText.indexOf("{{", indexOfOpenBracket + 4);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 2);
+        /**
+         * Write a run of apostrophes: each <tt>'''</tt> of it toggles bold,
+         * and what is left, <tt>''</tt> toggles italic.
+         */
+        private void flushApostrophes() {
+            for (; this.apostrophes >= 3; this.apostrophes -= 3) {
+                this.html.append((this.countBold++ % 2) == 0 ? "<b>" : "</b>");
+            }
+            if (this.apostrophes == 2) {
+                this.html.append((this.countItalic++ % 2) == 0 ? "<i>" : "</i>");
+            } else if (this.apostrophes == 1) {
+                this.html.append('\'');
+            }
+            this.apostrophes = 0;
         }
+    }
 
-        // Inner URL of the second  type
-        indexOfOpenBracket = wikiText.indexOf("{{");
-        indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 2);
-        while (indexOfOpenBracket != -1 && indexOfCloseBracket != -1) {
-            String prefixText = wikiText.substring(0, indexOfOpenBracket);
-            String aTag = Processors.processInnerURL(wikiText.substring(indexOfOpenBracket + 2, indexOfCloseBracket));
-            String suffixText = wikiText.substring(indexOfCloseBracket + 2);// Removes the "]]"
-            wikiText = prefixText + aTag + suffixText;
-
-            indexOfOpenBracket = // Gets the indexes of next image
-                    wikiText.indexOf("{{", indexOfOpenBracket + 2);
-            indexOfCloseBracket = wikiText.indexOf("}}", indexOfOpenBracket + 2);
+    /**
+     * A template or a link which is open at the scan.
+     */
+    private static final class Part {
+
+        /**
+         * The processor of a template or an inner link, <tt>null</tt> for a
+         * URL.
+         */
+        private final Template template;
+        /**
+         * Where its closing braces or brackets start.
+         */
+        private final int end;
+        /**
+         * Where the text after it starts.
+         */
+        private final int next;
+        /**
+         * Its text, with the parts in it converted.
+         */
+        private final StringBuilder text = new StringBuilder();
+
+        Part(Template template, int end, int next) {
+            this.template = template;
+            this.end = end;
+            this.next = next;
         }
 
-        int countBold = 0;
-        int indexOfApostrophe = wikiText.indexOf("'''");
-        while (indexOfApostrophe != -1) {
-            if ((countBold % 2) == 0) {
-                wikiText = wikiText.replaceFirst("'''", "<b>");
-            } else {
-                wikiText = wikiText.replaceFirst("'''", "</b>");
-            }
-            countBold++;
-            indexOfApostrophe = wikiText.indexOf("'''", indexOfApostrophe);
-        }
-        int countItalic = 0;
-        indexOfApostrophe = wikiText.indexOf("''");
-        while (indexOfApostrophe > -1) {
-            if ((countItalic % 2) == 0) {
-                wikiText = wikiText.replaceFirst("''", "<i>");
-            } else {
-                wikiText = wikiText.replaceFirst("''", "</i>");
+        /**
+         * @return Its HTML.
+         */
+        String process() {
+            if (this.template == null) {
+                return Processors.processURL(this.text.toString());
             }
-            countItalic++;
-            indexOfApostrophe = wikiText.indexOf("''", indexOfApostrophe);
+            return this.template.process(this.text.toString());
         }
-        wikiText = wikiText.replace("<\\/b><\\/i>", "</i></b>");
-        return wikiText;
     }
 }
@@ -0,0 +1,93 @@
+package dbFileBuilder.wiki;
+
+/**
+ * Test for {@link WikiTextProcessor} class.<br>
+ * Lines of wiki markup are converted by
+ * {@link WikiTextProcessor#processLine(java.lang.String)}, and compared with
+ * the HTML they are known to convert to. A line which fails is compared by the
+ * name of its exception.
+ * <br><br>
+ * Usage: <tt>WikiTextProcessorTester</tt><br>
+ * Exits with <tt>1</tt> if any line differs.
+ */
+public class WikiTextProcessorTester {
+
+    /**
+     * Pairs of a line and its HTML.
+     */
+    private static final String[][] LINES = {
+        {"plain text",
+            "plain text"},
+        {"'''bold''' and ''italic''",
+            "<b>bold</b> and <i>italic</i>"},
+        {"'''''both'''''",
+            "<b><i>both</b></i>"},
+        {"== כותרת ==",
+            "<h2>כותרת</h2>"},
+        {"=== חלק ===",
+            "<h3> חלק </h3>"},
+        {"----",
+            "<hr/>"},
+        {"[[קישור]] ו[[יעד|תווית]]",
+            "<a href=\"innerURL://קישור\">קישור</a> ו<a href=\"innerURL://יעד\">תווית</a>"},
+        {"[http://www.example.com דוגמה]",
+            "<a href=\"http://www.example.com\">דוגמה</a>"},
+        {"[[http://www.example.com דוגמה]]",
+            "[<a href=\"http://www.example.com\">דוגמה</a>]"},
+        {"{{משלב|ספרותי}} מילה",
+            "<span class=\"linguisticRegister\">[ספרותי]</span> מילה"},
+        {"{{הדגשה|משפט|מקור}}",
+            "<span class=\"emphasis\">משפט</span><span class=\"afterEmphasis\">מקור</span>"},
+        {"{{הדגשה|{{ת|אנגלית|w}}}}",
+            "<span class=\"emphasis\"><span class=\"translation\" data-destinationLanguage=\"אנגלית\">w</span></span>"},
+        {"{{ת|אנגלית|dog|hound}} {{עוד|cat}}",
+            "<span class=\"translation\" data-destinationLanguage=\"אנגלית\">dog</span> | <span class=\"translation\" data-destinationLanguage=\"אנגלית\">hound</span> "},
+        {"{{ת|אנגלית}} {{עוד}}",
+            "java.lang.ArrayIndexOutOfBoundsException"},
+        {"{{x|{{y}}}}",
+            "<a href=\"innerURL://x\"><a href=\"innerURL://y\">y</a></a>"},
+        {"{{{p}}} z",
+            "<a href=\"innerURL://{p\">{p</a>} z"},
+        {"see {{unclosed",
+            "see {{unclosed"},
+        {"q {{a } b }}c",
+            "q <a href=\"innerURL://a } b \">a } b </a>c"},
+        {"[[תמונה:a.jpg|{{x}}|[[y]]]] אחרי",
+            " אחרי"},
+        {"[[a|{{b}}]]",
+            "<a href=\"innerURL://a\"><a href=\"innerURL://b\">b</a></a>"},
+        {"[http://x.com {{b}}] k",
+            "<a href=\"http://x.com\"><a href=\"innerURL://b\">b</a></a> k"},
+        {"{{ר\"ת|צה\"ל|צבא הגנה לישראל}}",
+            "צבא הגנה לישראל (צה\"ל) "},
+        {"x ]] y }} z",
+            "x ]] y }} z"}
+    };
+
+    public static void main(String[] args) {
+        int mismatches = 0;
+        for (String[] line : LINES) {
+            String html = convert(line[0]);
+            if (html.equals(line[1]) == false) {
+                mismatches++;
+                System.out.println("Differs: " + line[0] + "\n  expected: " + line[1]
+                        + "\n  actual:   " + html);
+            }
+        }
+        System.out.println(LINES.length + " lines, " + mismatches + " differ");
+        if (mismatches != 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return The HTML of <tt>line</tt>, or the exception it failed with.
+     */
+    private static String convert(String line) {
+        try {
+            return WikiTextProcessor.processLine(line);
+        } catch (RuntimeException ex) {
+            return ex.getClass().getName();
+        }
+    }
+}